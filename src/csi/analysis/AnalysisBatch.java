@@ -0,0 +1,294 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.annotation.Nullable;
+
+import csi.models.BatchModel;
+import csi.models.FileModel;
+import csi.models.ModelException;
+
+/**
+ * AnalysisBatch reads every analysis file in a directory (e.g., a batch of crash reports to triage).  A
+ * bounded number of files are read at once.  Each file's local data is kept as its own RootModel, while
+ * the global data of all files is combined into one FileModel per source file.  A file that cannot be
+ * read does not stop the batch: its error is recorded in its Report instead.
+ */
+public final class AnalysisBatch {
+	// the most analysis files read at once (each text file is also parsed in parallel)
+	private static final int MAX_CONCURRENT_READS = 4;
+	
+	// the analysis file names read from a directory (the same as the single-file load dialog)
+	private static final String[] EXTENSIONS = { ".csi", ".csib", ".gz", ".xz" };
+	
+	/**
+	 * Report is the outcome of reading one analysis file of a batch.
+	 */
+	public static final class Report {
+		private final String name;
+		private final @Nullable AnalysisData data;
+		private final @Nullable String error;
+		private final long loadMillis;
+		
+		private Report(String name, @Nullable AnalysisData data, @Nullable String error, long loadMillis) {
+			this.name = name;
+			this.data = data;
+			this.error = error;
+			this.loadMillis = loadMillis;
+		}
+		
+		/**
+		 * Get the name of the analysis file.
+		 *
+		 * @return the file name
+		 */
+		public String getName(){
+			return(name);
+		}
+		
+		/**
+		 * Get the data read from the analysis file.
+		 *
+		 * @return the data, or null if the file could not be read
+		 */
+		public @Nullable AnalysisData getData(){
+			return(data);
+		}
+		
+		/**
+		 * Get the reason the analysis file could not be read.
+		 *
+		 * @return the error message (suitable for the user), or null if the file was read
+		 */
+		public @Nullable String getError(){
+			return(error);
+		}
+		
+		/**
+		 * Get how long reading the analysis file took.
+		 *
+		 * @return the elapsed (wall-clock) time, in milliseconds
+		 */
+		public long getLoadMillis(){
+			return(loadMillis);
+		}
+	}
+	
+	private final List<Report> reports;
+	private final AnalysisData data;
+	
+	private AnalysisBatch(List<Report> reports, AnalysisData data) {
+		this.reports = reports;
+		this.data = data;
+	}
+	
+	/**
+	 * Read every analysis file (*.csi, *.csib, *.gz, or *.xz) in a directory, reporting progress and
+	 * checking for cancellation as bytes of the files are consumed.  This shows no dialogs, so it may be
+	 * called from any thread (e.g., from a Job).
+	 *
+	 * @param directory the path to the directory
+	 * @param lazy whether to load the local data of text files on demand (see AnalysisReader)
+	 * @param monitor the monitor to report progress to and to check for cancellation
+	 * @return the batch, with a report for each analysis file (in file name order)
+	 * @throws AnalysisFormatException if the directory cannot be listed or holds no analysis files
+	 * @throws OperationCanceledException if the monitor is canceled before all files are read
+	 */
+	public static AnalysisBatch read(String directory, boolean lazy, IProgressMonitor monitor)
+			throws AnalysisFormatException, OperationCanceledException {
+		final File[] files = new File(directory).listFiles(file -> file.isFile() && isAnalysisFile(file.getName()));
+		if(files == null)
+			throw new AnalysisFormatException("Invalid directory specified");
+		else if(files.length == 0)
+			throw new AnalysisFormatException("No CSI analysis files found in " + directory);
+		Arrays.sort(files);
+		
+		long totalBytes = 0;
+		for(File file : files)
+			totalBytes += file.length();
+		
+		// (all readers share one symbol table, so equal names in different files share one String)
+		final SymbolTable symbols = new SymbolTable();
+		// (all readers share one reporter, so progress is counted across the whole batch)
+		final ProgressReporter progress = new ProgressReporter(monitor,
+				"Loading " + files.length + " analysis files from " + directory, totalBytes);
+		final ExecutorService pool = Executors.newFixedThreadPool(
+				Math.min(MAX_CONCURRENT_READS, Runtime.getRuntime().availableProcessors()));
+		try{
+			List<Future<Report>> pending = new ArrayList<>(files.length);
+			for(File file : files){
+				final String path = utils.NotNull.check(file.getPath());
+				pending.add(pool.submit(() -> readReport(path, lazy, progress, symbols)));
+			}
+			
+			List<Report> reports = new ArrayList<>(files.length);
+			for(Future<Report> report : pending)
+				reports.add(utils.NotNull.check(waitFor(report)));
+			return(new AnalysisBatch(utils.NotNull.check(Collections.unmodifiableList(reports)), combine(reports)));
+		}
+		finally{
+			// (on failure or cancellation, stop the reads that are still going)
+			pool.shutdownNow();
+			progress.done();
+		}
+	}
+	
+	/**
+	 * Get the outcome of reading each analysis file.
+	 *
+	 * @return a report for each file, in file name order
+	 */
+	public List<Report> getReports(){
+		return(reports);
+	}
+	
+	/**
+	 * Get the analysis data of every file that was read: the local data of each file as a child of one
+	 * BatchModel, and the combined global data.
+	 *
+	 * @return the analysis data of the batch
+	 */
+	public AnalysisData getData(){
+		return(data);
+	}
+	
+	/**
+	 * Get the number of analysis files that were read successfully.
+	 *
+	 * @return the number of reports with data
+	 */
+	public int getLoadedCount(){
+		return(data.getReports().size());
+	}
+	
+	private static boolean isAnalysisFile(String name){
+		final String lower = name.toLowerCase(Locale.ROOT);
+		for(String extension : EXTENSIONS){
+			if(lower.endsWith(extension))
+				return(true);
+		}
+		return(false);
+	}
+	
+	private static Report readReport(String path, boolean lazy, ProgressReporter progress, SymbolTable symbols)
+			throws OperationCanceledException {
+		final String name = AnalysisReader.reportName(path);
+		final long start = System.nanoTime();
+		try{
+			final AnalysisData data = AnalysisReader.load(path, lazy, progress, symbols);
+			return(new Report(name, data, null, elapsedMillis(start)));
+		}
+		catch(AnalysisFormatException e){
+			return(new Report(name, null, e.getMessage(), elapsedMillis(start)));
+		}
+	}
+	
+	private static long elapsedMillis(long startNanos){
+		return(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+	}
+	
+	/**
+	 * Wait for one read of the batch to finish.
+	 *
+	 * @throws OperationCanceledException if the read was canceled (or this thread was interrupted)
+	 */
+	private static Report waitFor(Future<Report> report) throws OperationCanceledException {
+		try{
+			return(report.get());
+		}
+		catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		}
+		catch(ExecutionException e){
+			// (readReport() returns all format errors, so anything else is a cancellation or a bug)
+			final Throwable cause = e.getCause();
+			if(cause instanceof RuntimeException)
+				throw (RuntimeException)cause;
+			else if(cause instanceof Error)
+				throw (Error)cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+	
+	/**
+	 * Combine the data of all successfully-read files: each keeps its own local data, and the global data
+	 * of each source file is merged across files (in order of first appearance).  The per-line counts of
+	 * the files' global data (see LineFrequencies) and the line index of all files' local data are also
+	 * computed.
+	 *
+	 * @throws AnalysisFormatException if a file's local data cannot be attached to the batch tree
+	 * @throws IllegalArgumentException if the files have too many stack frames to index
+	 */
+	private static AnalysisData combine(List<Report> reports) throws AnalysisFormatException, IllegalArgumentException {
+		BatchModel localData = new BatchModel();
+		Map<String, FileModel> globalData = new LinkedHashMap<>();
+		List<AnalysisData> loaded = new ArrayList<>(reports.size());
+		List<LineIndex> indexes = new ArrayList<>(reports.size());
+		List<LazyAnalysisFile> lazyFiles = new ArrayList<>();
+		for(Report report : reports){
+			final AnalysisData data = report.data;
+			if(data == null)
+				continue;
+			loaded.add(data);
+			// (so the frames of reports loaded on demand are never loaded for the combined index)
+			indexes.add(data.getLineIndex());
+			lazyFiles.addAll(data.getLazyFiles());
+			
+			try{
+				localData.addReport(data.getReports().get(0));
+			}
+			catch(ModelException e){
+				throw new AnalysisFormatException("Internal error building model for report " + report.name, e);
+			}
+			
+			// (each report keeps its own global data unchanged; the combined models are new)
+			for(FileModel reportFile : data.getGlobalData()){
+				FileModel file = globalData.get(reportFile.getFile());
+				@SuppressWarnings("null") // nullness analysis mistakenly thinks Map.get returns nonnull
+				final boolean absent = file == null;
+				if(absent){
+					file = new FileModel(reportFile.getFile());
+					globalData.put(reportFile.getFile(), file);
+				}
+				file.addAllLines(reportFile);
+			}
+		}
+		
+		for(FileModel file : globalData.values())
+			file.freeze();
+		return(new AnalysisData(localData, utils.NotNull.check(globalData.values().toArray(new FileModel[0])),
+				LineFrequencies.aggregate(loaded), LineIndex.concat(indexes),
+				lazyFiles));
+	}
+}
@@ -0,0 +1,251 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import csi.models.CodeModel;
+import csi.models.FileModel;
+import csi.models.FrameModel;
+import csi.models.ModelException;
+import csi.models.RootModel;
+
+/**
+ * AnalysisBuilder assembles local and global data models from already-split analysis records.  It is
+ * shared by all of the AnalysisReader parsing modes, so every mode builds (and rejects) exactly the
+ * same data.
+ */
+class AnalysisBuilder implements RecordHandler {
+	private static final int[] NO_LINES = new int[0];
+	
+	private final List<FrameModel> frames;
+	// (in order of first appearance, so that merged partial results keep the file order)
+	private final Map<String, FileModel> globalData;
+	// the index of frames added with their records' lines (see addFrame()), if any have been
+	private @Nullable LineIndex.Builder index = null;
+	// the files that those frames are loaded from
+	private final List<LazyAnalysisFile> lazyFiles = new ArrayList<>(1);
+
+	/**
+	 * Construct an empty builder.
+	 */
+	AnalysisBuilder() {
+		this.frames = new ArrayList<>();
+		this.globalData = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Construct an empty builder with room for a known number of frames and global files.
+	 *
+	 * @param frameCount the expected number of local (stack frame) records
+	 * @param fileCount the expected number of distinct files in global records
+	 */
+	AnalysisBuilder(int frameCount, int fileCount) {
+		this.frames = new ArrayList<>(frameCount);
+		this.globalData = new LinkedHashMap<>(Math.max(16, (int)(fileCount / 0.75f) + 1));
+	}
+
+	/**
+	 * Add one analysis record to the models being built.
+	 *
+	 * @throws AnalysisFormatException if any coverage line is negative
+	 */
+	@Override
+	public void addRecord(String funcName, String funcFile, boolean isLocal,
+			int[] yesLines, int[] noLines, int[] maybeLines, int[] pathLines)
+					throws AnalysisFormatException, IllegalArgumentException {
+		// (might be local or global data)
+		CodeModel model;
+		if(isLocal){
+			FrameModel frame = new FrameModel(funcName, funcFile);
+			
+			// handle the traced path data (not applicable for global function models)
+			addPath(frame, funcName, pathLines);
+			frames.add(frame);
+			
+			// the frame model is our model (for the rest of the data)
+			model = frame;
+		}
+		else{
+			// get or create the global model of the file.  (This is how we aggregate multiple entries
+			// for the same source file.)
+			FileModel file = globalData.get(funcFile);
+			@SuppressWarnings("null") // nullness analysis mistakenly thinks Map.get returns nonnull
+			final boolean absent = file == null;
+			if(absent){
+				file = new FileModel(funcFile);
+				globalData.put(funcFile, file);
+			}
+
+			// the lines belong to the function's model (the file's own sets are derived from its functions'
+			// sets when it is frozen)
+			model = file.getFunction(funcName);
+		}
+
+		// --- Execution trace data ---
+		addLines(model, funcName, yesLines, noLines, maybeLines);
+	}
+	
+	/**
+	 * Add a frame whose data is loaded on demand, as if its record had been added at this point.  The
+	 * coverage lines of its record go into a line index that is built along with the models (see
+	 * AnalysisData.getLineIndex()), so that the frame need not be loaded for the index.  Every local record
+	 * of a builder should be added this way, or none.
+	 *
+	 * @param frame the frame to add
+	 * @param source the file that the frame is loaded from (see LazyAnalysisFile.frameFor())
+	 * @param yesLines the "yes" lines of the frame's record
+	 * @param noLines the "no" lines of the frame's record
+	 * @param maybeLines the "maybe" lines of the frame's record
+	 * @throws IllegalArgumentException if there are too many frames to index
+	 */
+	void addFrame(FrameModel frame, LazyAnalysisFile source, int[] yesLines, int[] noLines, int[] maybeLines)
+			throws IllegalArgumentException {
+		LineIndex.Builder builder = index;
+		if(builder == null){
+			builder = new LineIndex.Builder();
+			index = builder;
+		}
+		if(!lazyFiles.contains(source))
+			lazyFiles.add(source);
+		
+		frames.add(frame);
+		if(isValid(yesLines) && isValid(noLines) && isValid(maybeLines))
+			builder.add(frame, frame.getFile(), yesLines, noLines, maybeLines);
+		else{
+			// (the frame will fail to load, so it has no lines to index)
+			builder.add(frame, frame.getFile(), NO_LINES, NO_LINES, NO_LINES);
+		}
+	}
+	
+	private static boolean isValid(int[] lines){
+		for(int line : lines){
+			// (as checked by checkLine() and the models)
+			if(line < 1)
+				return(false);
+		}
+		return(true);
+	}
+	
+	/**
+	 * Add the path trace of a local record to its frame.
+	 *
+	 * @param frame the frame of the record
+	 * @param funcName the function of the record (for the error message)
+	 * @param pathLines the path trace lines, in order
+	 * @throws AnalysisFormatException if a path entry cannot be added to the frame
+	 */
+	static void addPath(FrameModel frame, String funcName, int[] pathLines) throws AnalysisFormatException {
+		for(int entry : pathLines){
+			try {
+				frame.addPathLine(entry);
+			}
+			catch (ModelException e) {
+				throw new AnalysisFormatException("Internal error building models for line numbers for function " +
+						funcName, e);
+			}
+		}
+	}
+	
+	/**
+	 * Add the coverage lines of a record to its model.
+	 *
+	 * @param model the frame or file model of the record
+	 * @param funcName the function of the record (for the error message)
+	 * @throws AnalysisFormatException if any coverage line is negative
+	 * @throws IllegalArgumentException if a coverage line is rejected by the data model
+	 */
+	static void addLines(CodeModel model, String funcName, int[] yesLines, int[] noLines, int[] maybeLines)
+			throws AnalysisFormatException, IllegalArgumentException {
+		for(int entry : yesLines){
+			checkLine(entry, funcName);
+			model.addYesLine(entry);
+		}
+		for(int entry : noLines){
+			checkLine(entry, funcName);
+			model.addNoLine(entry);
+		}
+		for(int entry : maybeLines){
+			checkLine(entry, funcName);
+			model.addMaybeLine(entry);
+		}
+	}
+	
+	/**
+	 * Append all records of another builder, as if they had been added to this builder (in order) after
+	 * all of its own records.  "later" should not be used after this call.
+	 *
+	 * @param later the builder holding the records that follow this builder's records
+	 */
+	void append(AnalysisBuilder later) {
+		frames.addAll(later.frames);
+		
+		for(FileModel laterFile : later.globalData.values()){
+			FileModel file = globalData.get(laterFile.getFile());
+			@SuppressWarnings("null") // nullness analysis mistakenly thinks Map.get returns nonnull
+			final boolean absent = file == null;
+			if(absent)
+				globalData.put(laterFile.getFile(), laterFile);
+			else
+				file.addAllLines(laterFile);
+		}
+	}
+
+	/**
+	 * Finish building, and package all records added so far as analysis data.  All models are frozen
+	 * (see CodeModel.freeze()), so no records should be added afterward.
+	 *
+	 * @param name the name of the analysis result (e.g., its file name)
+	 * @return the local and global analysis data for all added records
+	 * @throws AnalysisFormatException if a frame cannot be attached to the local data tree
+	 */
+	AnalysisData build(String name) throws AnalysisFormatException {
+		RootModel localData = new RootModel(name);
+		for(FrameModel frame : frames){
+			frame.freeze();
+			try{
+				localData.addFrame(frame);
+			}
+			catch (ModelException e) {
+				throw new AnalysisFormatException("Internal error building model for function " + frame.getName(), e);
+			}
+		}
+
+		for(FileModel file : globalData.values())
+			file.freeze();
+		final LineIndex.Builder indexed = index;
+		return(new AnalysisData(localData, utils.NotNull.check(globalData.values().toArray(new FileModel[0])),
+				indexed == null ? null : indexed.build(), lazyFiles));
+	}
+
+	/**
+	 * Check that a coverage line from a record is valid.
+	 *
+	 * @param entry the line
+	 * @param funcName the function of the record (for the error message)
+	 * @throws AnalysisFormatException if the line is negative
+	 */
+	static void checkLine(int entry, String funcName) throws AnalysisFormatException {
+		if(entry < 0)
+			throw new AnalysisFormatException("Invalid line '" + entry + "' for function " + funcName);
+	}
+}
@@ -0,0 +1,383 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.zip.CRC32;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.annotation.Nullable;
+
+import csi.Activator;
+import csi.models.FileModel;
+import csi.models.FrameModel;
+import csi.models.FunctionModel;
+
+/**
+ * AnalysisCache keeps the data of recently-loaded analysis files on disk, in the binary analysis format
+ * (see BinaryAnalysisFormat), so that reloading a large text or compressed file (e.g., in a new Eclipse
+ * session) does not parse it again.  Each entry is keyed by the file's path, size, and modification
+ * time, and holds a checksum of the file's contents, all of which are checked before the entry is used.
+ * Entries are written by a low-priority background job once the file has been loaded, so storing them
+ * never slows a load down.  The total size of the entries is capped; the least-recently-used entries are
+ * evicted first.
+ * Problems with the cache itself are never reported to the user: the file is simply parsed instead.
+ */
+final class AnalysisCache {
+	// the cache directory, under the plug-in's state location
+	private static final String DIRECTORY_NAME = "analysis-cache";
+	private static final String ENTRY_SUFFIX = ".csic";
+	
+	// the default cap on the total size of all entries
+	private static final long DEFAULT_MAX_BYTES = 512L << 20;
+	
+	// the magic bytes at the start of each entry ("CSIC"), and the entry format version
+	private static final int MAGIC = 0x43534943;
+	private static final int VERSION = 2;
+	
+	// the size of the buffer that analysis files are read through for their checksums
+	private static final int CHECKSUM_BUFFER_SIZE = 1 << 20;
+	
+	private static @Nullable AnalysisCache defaultCache = null;
+	
+	private final File directory;
+	private final long maxBytes;
+	
+	// the rule of all store jobs, so that they write one entry at a time
+	private final ISchedulingRule storeRule = new ISchedulingRule() {
+		@Override
+		public boolean contains(@Nullable ISchedulingRule rule) {
+			return(rule == this);
+		}
+		
+		@Override
+		public boolean isConflicting(@Nullable ISchedulingRule rule) {
+			return(rule == this);
+		}
+	};
+	
+	/**
+	 * Key identifies one version of an analysis file (up to its checksum, which is only computed when
+	 * an entry is used or written).
+	 */
+	static final class Key {
+		private final String path;
+		private final long size;
+		private final long modified;
+		
+		private Key(String path, long size, long modified) {
+			this.path = path;
+			this.size = size;
+			this.modified = modified;
+		}
+		
+		private boolean matches(String path, long size, long modified){
+			return(this.path.equals(path) && this.size == size && this.modified == modified);
+		}
+		
+		/**
+		 * Check whether the file still has this key's size and modification time.
+		 */
+		private boolean isCurrent(){
+			final File file = new File(path);
+			return(file.length() == size && file.lastModified() == modified);
+		}
+	}
+	
+	/**
+	 * Construct a cache in a directory.
+	 *
+	 * @param directory the directory to keep the entries in (created if needed)
+	 * @param maxBytes the cap on the total size of all entries
+	 */
+	AnalysisCache(File directory, long maxBytes) {
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+	}
+	
+	/**
+	 * Get the cache under the plug-in's state location.
+	 *
+	 * @return the cache, or null if the plug-in (and thus its state location) is not available
+	 */
+	static synchronized @Nullable AnalysisCache getDefault(){
+		if(defaultCache == null && Activator.isRunning()){
+			try{
+				final File state = Activator.getDefault().getStateLocation().toFile();
+				defaultCache = new AnalysisCache(new File(state, DIRECTORY_NAME), DEFAULT_MAX_BYTES);
+			}
+			catch(IllegalStateException e){
+				// no state location (e.g., no workspace); run without a cache
+				return(null);
+			}
+		}
+		return(defaultCache);
+	}
+	
+	/**
+	 * Get the key of the current version of an analysis file.  This does not read the file.
+	 *
+	 * @param path the path to the analysis data file
+	 * @return the key, or null if the file cannot be read
+	 */
+	@Nullable Key keyFor(String path){
+		final File file = new File(path);
+		try{
+			final String canonical = utils.NotNull.check(file.getCanonicalPath());
+			if(!file.isFile())
+				return(null);
+			return(new Key(canonical, file.length(), file.lastModified()));
+		}
+		catch(IOException e){
+			return(null);
+		}
+	}
+	
+	/**
+	 * Load the cached data of an analysis file.  If there is an entry for the file's path, size, and
+	 * modification time, the file is read for its checksum (reporting progress and checking for
+	 * cancellation), which is still much cheaper than parsing it.
+	 *
+	 * @param key the key of the file's current version
+	 * @param name the name of the analysis result (see AnalysisBuilder.build())
+	 * @param progress the reporter for the analysis file's bytes read, or null to not report progress
+	 * @param symbols the table of canonical function and file names
+	 * @return the cached data, or null if there is no valid entry for this version of the file
+	 * @throws OperationCanceledException if progress is reported and the load has been canceled
+	 */
+	@Nullable AnalysisData lookup(Key key, String name, @Nullable ProgressReporter progress, SymbolTable symbols)
+			throws OperationCanceledException {
+		final File entry = entryFile(key);
+		if(!entry.isFile())
+			return(null);
+		
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(entry)))){
+			if(in.readInt() != MAGIC || in.readInt() != VERSION ||
+					!key.matches(in.readUTF(), in.readLong(), in.readLong()))
+				return(null);
+			final int checksum = in.readInt();
+			
+			try{
+				if(checksum(key, progress) != checksum)
+					return(null);
+			}
+			catch(IOException e){
+				// (the entry is fine; let the parser report the problem with the file)
+				return(null);
+			}
+			
+			final AnalysisData data = BinaryRecordReader.read(in, symbols).build(name);
+			
+			// (mark the entry as recently used)
+			entry.setLastModified(System.currentTimeMillis());
+			return(data);
+		}
+		catch(IOException | AnalysisFormatException | IllegalArgumentException e){
+			// a broken entry is useless; drop it and parse the file instead
+			entry.delete();
+			return(null);
+		}
+	}
+	
+	/**
+	 * Store the data of an analysis file in a low-priority background job (see store()).
+	 *
+	 * @param key the key of the file's version that the data was read from
+	 * @param data the (fully-loaded) data read from the file
+	 */
+	void scheduleStore(Key key, AnalysisData data){
+		Job job = new Job("Caching CSI crash data") {
+			@Override
+			protected IStatus run(@Nullable IProgressMonitor monitor) {
+				try{
+					store(key, data, monitor == null ? new NullProgressMonitor() : monitor);
+					return(utils.NotNull.check(Status.OK_STATUS));
+				}
+				catch(OperationCanceledException e){
+					return(utils.NotNull.check(Status.CANCEL_STATUS));
+				}
+			}
+		};
+		job.setSystem(true);
+		job.setPriority(Job.DECORATE);
+		job.setRule(storeRule);
+		job.schedule();
+	}
+	
+	/**
+	 * Store the data of an analysis file, replacing any older entry for the same path, and evict entries
+	 * until the cache fits in its size cap again.  The file is read for its checksum first; if it has
+	 * changed since the data was read, nothing is stored.  The entry is written straight from the data
+	 * (see BinaryAnalysisWriter), so storing needs little memory beyond the data itself.
+	 *
+	 * @param key the key of the file's version that the data was read from
+	 * @param data the (fully-loaded) data read from the file
+	 * @param monitor the monitor to report progress to and to check for cancellation
+	 * @throws OperationCanceledException if the monitor is canceled before the entry is written
+	 */
+	void store(Key key, AnalysisData data, IProgressMonitor monitor) throws OperationCanceledException {
+		ProgressReporter progress = new ProgressReporter(monitor, "Caching " + key.path, key.size);
+		try{
+			if(!directory.isDirectory() && !directory.mkdirs())
+				return;
+			
+			final int checksum = checksum(key, progress);
+			// (data read from an older version of the file must not be stored for this one)
+			if(!key.isCurrent())
+				return;
+			
+			// (the records are counted first, then written straight to the entry; see BinaryAnalysisWriter)
+			BinaryAnalysisWriter writer = new BinaryAnalysisWriter();
+			addRecords(data, writer);
+			
+			// (write the entry under a temporary name, so that a reader never sees a partial entry)
+			final File temporary = File.createTempFile("entry", ".tmp", directory);
+			try{
+				try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))){
+					out.writeInt(MAGIC);
+					out.writeInt(VERSION);
+					out.writeUTF(key.path);
+					out.writeLong(key.size);
+					out.writeLong(key.modified);
+					out.writeInt(checksum);
+					writer.startRecords(out);
+					addRecords(data, writer);
+					writer.finish();
+				}
+				
+				if(temporary.length() <= maxBytes)
+					Files.move(temporary.toPath(), entryFile(key).toPath(),
+							StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			finally{
+				temporary.delete();
+			}
+			
+			evict();
+		}
+		catch(IOException | UncheckedIOException | AnalysisFormatException | IllegalArgumentException e){
+			// the data is loaded either way; it just won't be cached
+			e.printStackTrace();
+		}
+		finally{
+			progress.done();
+		}
+	}
+	
+	/**
+	 * Compute the checksum of an analysis file's contents, reporting the bytes read.
+	 *
+	 * @param key the key of the file
+	 * @param progress the reporter for the bytes read, or null to not report progress
+	 * @return the checksum
+	 * @throws IOException if the file cannot be read
+	 * @throws OperationCanceledException if progress is reported and has been canceled
+	 */
+	private static int checksum(Key key, @Nullable ProgressReporter progress)
+			throws IOException, OperationCanceledException {
+		CRC32 crc = new CRC32();
+		try(FileChannel channel = FileChannel.open(new File(key.path).toPath(), StandardOpenOption.READ)){
+			ByteBuffer buffer = ByteBuffer.allocateDirect(CHECKSUM_BUFFER_SIZE);
+			int read;
+			while((read = channel.read(buffer)) >= 0){
+				buffer.flip();
+				crc.update(buffer);
+				buffer.clear();
+				if(progress != null)
+					progress.consumed(read);
+			}
+		}
+		return((int)crc.getValue());
+	}
+	
+	/**
+	 * Hand every record of loaded data to a record handler.
+	 */
+	private static void addRecords(AnalysisData data, RecordHandler handler) throws AnalysisFormatException {
+		for(FrameModel frame : data.getFrames()){
+			handler.addRecord(frame.getName(), frame.getFile(), true, frame.getExeYes().toArray(),
+					frame.getExeNo().toArray(), frame.getExeMaybe().toArray(), frame.getPathLines());
+		}
+		for(FileModel file : data.getGlobalData()){
+			// (one record per function rebuilds both the function and the file sets)
+			for(FunctionModel function : file.getFunctions()){
+				handler.addRecord(function.getName(), file.getFile(), false, function.getExeYes().toArray(),
+						function.getExeNo().toArray(), function.getExeMaybe().toArray(), new int[0]);
+			}
+		}
+	}
+	
+	/**
+	 * Delete the least-recently-used entries until all entries fit in the size cap.
+	 */
+	private synchronized void evict(){
+		final File[] entries = directory.listFiles(file -> file.getName().endsWith(ENTRY_SUFFIX));
+		if(entries == null)
+			return;
+		
+		// (most recently used first)
+		Arrays.sort(entries, Comparator.comparingLong(File::lastModified).reversed());
+		long total = 0;
+		for(File entry : entries){
+			total += entry.length();
+			if(total > maxBytes)
+				entry.delete();
+		}
+	}
+	
+	/**
+	 * Get the entry file for a path: its name is a digest of the path, so that each path has at most
+	 * one entry.
+	 */
+	private File entryFile(Key key){
+		try{
+			final byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.path.getBytes(StandardCharsets.UTF_8));
+			StringBuilder name = new StringBuilder();
+			for(byte b : digest)
+				name.append(String.format("%02x", b & 0xff));
+			return(new File(directory, name + ENTRY_SUFFIX));
+		}
+		catch(NoSuchAlgorithmException e){
+			// impossible: every Java platform supports SHA-1
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.swt.widgets.Shell;
+
+import csi.Messages;
+
+/**
+ * AnalysisConverter converts text analysis files to the compact binary analysis format, which
+ * AnalysisReader loads much faster (and which is typically much smaller).
+ */
+public class AnalysisConverter {
+	
+	private final Shell shell;
+	
+	/**
+	 * The constructor requires shell context to print error messages during conversion.
+	 *
+	 * @param shell the shell context to use for creating possible error dialogs
+	 */
+	public AnalysisConverter(Shell shell) {
+		this.shell = shell;
+	}
+	
+	/**
+	 * A wrapper to show error dialogs without specifying the shell context.
+	 *
+	 * @param message the error message to display
+	 */
+	private void showErrorMessage(String message){
+		Messages.showErrorMessage(shell, message);
+	}
+	
+	/**
+	 * Convert a text analysis file to a binary analysis file.  The text file is fully validated first,
+	 * so nothing is written for a malformed file.
+	 *
+	 * @param textPath the path to the text analysis data file
+	 * @param binaryPath the path of the binary analysis file to create (or replace)
+	 * @return true if the conversion succeeded
+	 */
+	public boolean convertToBinary(String textPath, String binaryPath){
+		try{
+			convert(textPath, binaryPath, null);
+			return(true);
+		}
+		catch(AnalysisFormatException e){
+			showErrorMessage(utils.NotNull.check(e.getMessage()));
+			return(false);
+		}
+	}
+	
+	/**
+	 * Convert a text analysis file to a binary analysis file (see convertToBinary(String, String)),
+	 * reporting progress and checking for cancellation as the text file is read.  Unlike the other
+	 * conversion method, this shows no dialogs, so it may be called from any thread (e.g., from a Job).
+	 *
+	 * @param textPath the path to the text analysis data file
+	 * @param binaryPath the path of the binary analysis file to create (or replace)
+	 * @param monitor the monitor to report progress to and to check for cancellation
+	 * @throws AnalysisFormatException if the conversion fails (with a message for the user)
+	 * @throws OperationCanceledException if the monitor is canceled before the conversion completes
+	 */
+	public void convertToBinary(String textPath, String binaryPath, IProgressMonitor monitor)
+			throws AnalysisFormatException, OperationCanceledException {
+		// (the text file is read twice: once to validate and count its records, and once to write them)
+		ProgressReporter progress = new ProgressReporter(monitor, "Converting " + textPath,
+				2 * new File(textPath).length());
+		try{
+			convert(textPath, binaryPath, progress);
+		}
+		finally{
+			progress.done();
+		}
+	}
+	
+	/**
+	 * Convert a text analysis file to a binary analysis file, reporting all problems as exceptions.  The
+	 * records are parsed twice (see BinaryAnalysisWriter): the first pass validates and counts them, and
+	 * the second writes them straight to the binary file.
+	 */
+	private static void convert(String textPath, String binaryPath, @Nullable ProgressReporter progress)
+			throws AnalysisFormatException {
+		BinaryAnalysisWriter writer = new BinaryAnalysisWriter();
+		final Charset charset = utils.NotNull.check(Charset.defaultCharset());
+		final SymbolTable symbols = new SymbolTable();
+		
+		try{
+			MappedTextFile.parse(textPath, (window, position, end) ->
+				new ByteRecordParser(window, charset, progress, symbols).parse(0, end, writer));
+		}
+		catch(NoSuchFileException | AccessDeniedException | IllegalArgumentException e){
+			e.printStackTrace();
+			throw new AnalysisFormatException("Invalid file specified", e);
+		}
+		catch(IOException e){
+			e.printStackTrace();
+			throw new AnalysisFormatException("Broken file read", e);
+		}
+		
+		final File binaryFile = new File(binaryPath);
+		boolean converted = false;
+		try(OutputStream out = new BufferedOutputStream(new FileOutputStream(binaryFile))){
+			writer.startRecords(out);
+			MappedTextFile.parse(textPath, (window, position, end) ->
+				new ByteRecordParser(window, charset, progress, symbols).parse(0, end, writer));
+			writer.finish();
+			converted = true;
+		}
+		catch(UncheckedIOException e){
+			throw cannotWrite(binaryPath, e.getCause());
+		}
+		catch(IOException e){
+			// (the text file was just read in full, so this is almost certainly the binary file)
+			throw cannotWrite(binaryPath, e);
+		}
+		catch(IllegalStateException e){
+			// the text file changed between the two passes
+			e.printStackTrace();
+			throw new AnalysisFormatException("CSI Analysis file changed during conversion", e);
+		}
+		finally{
+			// (a partial binary file is useless)
+			if(!converted)
+				binaryFile.delete();
+		}
+	}
+	
+	private static AnalysisFormatException cannotWrite(String binaryPath, IOException e){
+		e.printStackTrace();
+		return(new AnalysisFormatException("Unable to write binary analysis file " + binaryPath, e));
+	}
+}
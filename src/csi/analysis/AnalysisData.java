@@ -1,61 +1,210 @@
-/**
- * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
- * 
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- * 
- *     http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package csi.analysis;
-
-import csi.models.FileModel;
-import csi.models.RootModel;
-
-/**
- * AnalysisData is a basic pair class that stores local and global analysis data.  Currently,
- * this data is always produced all-at-once by an analysis file read.
- */
-public class AnalysisData {
-
-	private final RootModel localData;
-	private final FileModel[] globalData;
-	
-	/**
-	 * Construct an analysis data object from complete local and global analysis data.  Currently,
-	 * we expect that neither data storage should be updated after object creation.
-	 * 
-	 * @param localData the local analysis results, in the viewer's tree model format
-	 * @param globalData the global analysis results
-	 */
-	public AnalysisData(RootModel localData, FileModel[] globalData) {
-		this.localData = localData;
-		this.globalData = globalData;
-	}
-	
-	/**
-	 * Get the local analysis data.
-	 * 
-	 * @return the local analysis data
-	 */
-	public RootModel getLocalData(){
-		return(localData);
-	}
-	
-	/**
-	 * Get the global analysis data. 
-	 * 
-	 * @return the global analysis data
-	 */
-	public FileModel[] getGlobalData(){
-		return(globalData);
-	}
-
-}
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.jdt.annotation.Nullable;
+
+import csi.models.BatchModel;
+import csi.models.FileModel;
+import csi.models.FrameModel;
+import csi.models.LocalModel;
+import csi.models.RootModel;
+
+/**
+ * AnalysisData is a basic pair class that stores local and global analysis data.  Currently,
+ * this data is always produced all-at-once by an analysis file read (or a read of a directory of
+ * analysis files, in which case the local data of each file stays separate).
+ */
+public class AnalysisData {
+
+	private final LocalModel localData;
+	private final List<RootModel> reports;
+	private final FileModel[] globalData;
+	private final @Nullable LineFrequencies frequencies;
+	// the index of the local data, built while loading or on first use
+	private @Nullable LineIndex lineIndex = null;
+	// the files that stack frames are loaded on demand from
+	private final List<LazyAnalysisFile> lazyFiles;
+	
+	/**
+	 * Construct an analysis data object from complete local and global analysis data.  Currently,
+	 * we expect that neither data storage should be updated after object creation.
+	 *
+	 * @param localData the local analysis results, in the viewer's tree model format
+	 * @param globalData the global analysis results
+	 */
+	public AnalysisData(RootModel localData, FileModel[] globalData) {
+		this(localData, globalData, null, utils.NotNull.check(Collections.emptyList()));
+	}
+	
+	/**
+	 * Construct an analysis data object whose line index may already be built (see getLineIndex()), and
+	 * whose stack frames may be loaded on demand.
+	 *
+	 * @param localData the local analysis results, in the viewer's tree model format
+	 * @param globalData the global analysis results
+	 * @param lineIndex the index of the local data's stack frames, or null to build it on first use
+	 * @param lazyFiles the files that stack frames are loaded on demand from (see loadFrames())
+	 */
+	AnalysisData(RootModel localData, FileModel[] globalData, @Nullable LineIndex lineIndex,
+			List<LazyAnalysisFile> lazyFiles) {
+		this.localData = localData;
+		this.reports = utils.NotNull.check(Collections.singletonList(localData));
+		this.globalData = globalData;
+		this.frequencies = null;
+		this.lineIndex = lineIndex;
+		this.lazyFiles = lazyFiles;
+	}
+	
+	/**
+	 * Construct an analysis data object for several analysis results: the local data of each is kept
+	 * as its own child of "localData", while the global data is combined.
+	 *
+	 * @param localData the local analysis results of all reports, in the viewer's tree model format
+	 * @param globalData the combined global analysis results
+	 * @param frequencies the per-line counts of the reports' global data
+	 */
+	public AnalysisData(BatchModel localData, FileModel[] globalData, LineFrequencies frequencies) {
+		this(localData, globalData, frequencies, null, utils.NotNull.check(Collections.emptyList()));
+	}
+	
+	/**
+	 * Construct an analysis data object for several analysis results whose line index may already be
+	 * built (see getLineIndex()), and whose stack frames may be loaded on demand.
+	 *
+	 * @param localData the local analysis results of all reports, in the viewer's tree model format
+	 * @param globalData the combined global analysis results
+	 * @param frequencies the per-line counts of the reports' global data
+	 * @param lineIndex the index of all reports' stack frames, or null to build it on first use
+	 * @param lazyFiles the files that stack frames are loaded on demand from (see loadFrames())
+	 */
+	AnalysisData(BatchModel localData, FileModel[] globalData, LineFrequencies frequencies,
+			@Nullable LineIndex lineIndex, List<LazyAnalysisFile> lazyFiles) {
+		this.localData = localData;
+		this.reports = utils.NotNull.check(Collections.unmodifiableList(Arrays.asList(localData.getChildren())));
+		this.globalData = globalData;
+		this.frequencies = frequencies;
+		this.lineIndex = lineIndex;
+		this.lazyFiles = lazyFiles;
+	}
+	
+	/**
+	 * Get the local analysis data.
+	 *
+	 * @return the local analysis data: a RootModel for a single report, or a BatchModel for several
+	 */
+	public LocalModel getLocalData(){
+		return(localData);
+	}
+	
+	/**
+	 * Get the local analysis data of each report.
+	 *
+	 * @return the root model of each report, in load order
+	 */
+	public List<RootModel> getReports(){
+		return(reports);
+	}
+	
+	/**
+	 * Get the stack frames of all reports.
+	 *
+	 * @return every stack frame, in report order
+	 */
+	public List<FrameModel> getFrames(){
+		List<FrameModel> frames = new ArrayList<>();
+		for(RootModel report : reports)
+			Collections.addAll(frames, report.getChildren());
+		return(frames);
+	}
+	
+	/**
+	 * Get the global analysis data. 
+	 *
+	 * @return the global analysis data
+	 */
+	public FileModel[] getGlobalData(){
+		return(globalData);
+	}
+	/**
+	 * Get how many reports have each line of each file in their global data.
+	 *
+	 * @return the per-line counts, or null if the data is from a single report
+	 */
+	public @Nullable LineFrequencies getFrequencies(){
+		return(frequencies);
+	}
+	
+	/**
+	 * Get the index from source lines to the stack frames that have them in their "yes", "no", or "maybe"
+	 * sets (see LineIndex).  The index of data whose stack frames are loaded on demand is built while the
+	 * data is loaded, from the records that are scanned anyway, so its frames are never loaded for it.
+	 * Otherwise, the index is built on the first call, which should therefore be made off the UI thread
+	 * (e.g., right after loading).
+	 *
+	 * @return the index of all stack frames
+	 */
+	public synchronized LineIndex getLineIndex(){
+		LineIndex index = lineIndex;
+		if(index == null){
+			index = LineIndex.build(getFrames());
+			lineIndex = index;
+		}
+		return(index);
+	}
+	
+	/**
+	 * Load every stack frame that is loaded on demand and has not been loaded yet, in one pass over each
+	 * file that they are loaded from (see LazyAnalysisFile.loadAll()), e.g., before using every frame's data.
+	 *
+	 * @param monitor the monitor to report progress to and to check for cancellation
+	 * @throws OperationCanceledException if the monitor is canceled before all frames are loaded
+	 */
+	void loadFrames(IProgressMonitor monitor) throws OperationCanceledException {
+		final SubMonitor progress = utils.NotNull.check(SubMonitor.convert(monitor, lazyFiles.size()));
+		for(LazyAnalysisFile file : lazyFiles)
+			file.loadAll(utils.NotNull.check(progress.newChild(1)));
+	}
+	
+	/**
+	 * Get the files that stack frames are loaded on demand from.
+	 *
+	 * @return the files, in report order
+	 */
+	List<LazyAnalysisFile> getLazyFiles(){
+		return(lazyFiles);
+	}
+	
+	/**
+	 * Get the line index only if it has already been built (see getLineIndex()), e.g., for use on the UI
+	 * thread, which must not build it.
+	 *
+	 * @return the index of all stack frames, or null if it has not been built yet
+	 */
+	public synchronized @Nullable LineIndex getBuiltLineIndex(){
+		return(lineIndex);
+	}
+
+}
@@ -0,0 +1,265 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.jdt.annotation.Nullable;
+
+import csi.models.CodeModel;
+import csi.models.FileModel;
+import csi.models.FrameModel;
+import utils.IntervalSet;
+import utils.LineSet;
+
+/**
+ * AnalysisDiff compares two analysis results (e.g., a crash and its reproduction after a fix): for each
+ * global file, and for each stack frame (matched by function and file), the lines that are newly executed,
+ * no longer executed, or resolved from "maybe" to "yes".  Each comparison is one pass over the 64-line
+ * bitmap words of the compared sets (see LineSet.forEachWord()), so even thousands of files are compared
+ * quickly.  A file or frame in only one of the results is compared against empty data.
+ */
+public final class AnalysisDiff {
+	private static final LineSet NO_LINES = new LineSet().freeze();
+	
+	/**
+	 * LineDiff is the comparison of one file or stack frame.  Its three sets of lines are disjoint.
+	 */
+	public static final class LineDiff {
+		private final String file;
+		private final @Nullable String function;
+		private final IntervalSet newlyExecuted;
+		private final IntervalSet noLongerExecuted;
+		private final IntervalSet resolved;
+		
+		private LineDiff(String file, @Nullable String function, IntervalSet.Builder[] builders) {
+			this.file = file;
+			this.function = function;
+			this.newlyExecuted = builders[0].build();
+			this.noLongerExecuted = builders[1].build();
+			this.resolved = builders[2].build();
+		}
+		
+		/**
+		 * Compare the lines of one model in the earlier and later results.
+		 *
+		 * @param before the model in the earlier result, or null if it has none
+		 * @param after the model in the later result, or null if it has none
+		 */
+		private static LineDiff compare(String file, @Nullable String function, @Nullable CodeModel before,
+				@Nullable CodeModel after){
+			final IntervalSet.Builder[] builders = new IntervalSet.Builder[3];
+			for(int i = 0; i < builders.length; ++i)
+				builders[i] = new IntervalSet.Builder();
+			
+			LineSet.forEachWord(before == null ? NO_LINES : before.getExeYes(),
+					before == null ? NO_LINES : before.getExeMaybe(),
+					after == null ? NO_LINES : after.getExeYes(), (base, beforeYes, beforeMaybe, afterYes) -> {
+				builders[0].addBits(base, afterYes & ~beforeYes & ~beforeMaybe);
+				builders[1].addBits(base, beforeYes & ~afterYes);
+				builders[2].addBits(base, afterYes & beforeMaybe & ~beforeYes);
+			});
+			return(new LineDiff(file, function, builders));
+		}
+		
+		/**
+		 * Get the compared file.
+		 *
+		 * @return the file name
+		 */
+		public String getFile(){
+			return(this.file);
+		}
+		
+		/**
+		 * Get the function of the compared stack frame.
+		 *
+		 * @return the function name, or null for the comparison of a file's global data
+		 */
+		public @Nullable String getFunction(){
+			return(this.function);
+		}
+		
+		/**
+		 * Get the lines that are "yes" in the later result, and neither "yes" nor "maybe" in the earlier.
+		 *
+		 * @return the runs of newly executed lines
+		 */
+		public IntervalSet getNewlyExecuted(){
+			return(this.newlyExecuted);
+		}
+		
+		/**
+		 * Get the lines that are "yes" in the earlier result, but not in the later.
+		 *
+		 * @return the runs of lines no longer executed
+		 */
+		public IntervalSet getNoLongerExecuted(){
+			return(this.noLongerExecuted);
+		}
+		
+		/**
+		 * Get the lines that are "maybe" (and not "yes") in the earlier result, and "yes" in the later.
+		 *
+		 * @return the runs of lines resolved from "maybe" to "yes"
+		 */
+		public IntervalSet getResolved(){
+			return(this.resolved);
+		}
+		
+		/**
+		 * Return whether nothing changed.
+		 *
+		 * @return true if all three sets of lines are empty
+		 */
+		public boolean isEmpty(){
+			return(this.newlyExecuted.getRunCount() == 0 && this.noLongerExecuted.getRunCount() == 0 &&
+					this.resolved.getRunCount() == 0);
+		}
+	}
+	
+	private final List<LineDiff> files;
+	private final List<LineDiff> frames;
+	private final int unmatchedFrames;
+	
+	private AnalysisDiff(List<LineDiff> files, List<LineDiff> frames, int unmatchedFrames) {
+		this.files = files;
+		this.frames = frames;
+		this.unmatchedFrames = unmatchedFrames;
+	}
+	
+	/**
+	 * Compare two analysis results.  Stack frames are matched by function and file; several frames of
+	 * the same function (e.g., of a recursive call) are matched in stack order.  This uses every frame's
+	 * data, so frames that are loaded on demand are loaded first, in one pass over each file that they
+	 * are loaded from (see AnalysisData.loadFrames()).
+	 *
+	 * @param before the earlier analysis result
+	 * @param after the later analysis result
+	 * @param monitor the monitor to report progress to and to check for cancellation (once per frame)
+	 * @return the comparison, holding only the files and frames with changes
+	 * @throws OperationCanceledException if the monitor is canceled before the comparison is done
+	 */
+	public static AnalysisDiff compare(AnalysisData before, AnalysisData after, IProgressMonitor monitor)
+			throws OperationCanceledException {
+		final SubMonitor progress = utils.NotNull.check(SubMonitor.convert(monitor, "Comparing CSI crash data", 3));
+		before.loadFrames(utils.NotNull.check(progress.newChild(1)));
+		after.loadFrames(utils.NotNull.check(progress.newChild(1)));
+		
+		// --- global data, per file ---
+		Map<String, FileModel> beforeFiles = new LinkedHashMap<>();
+		for(FileModel file : before.getGlobalData())
+			beforeFiles.put(file.getFile(), file);
+		
+		List<LineDiff> files = new ArrayList<>();
+		for(FileModel file : after.getGlobalData())
+			addIfChanged(files, LineDiff.compare(file.getFile(), null, beforeFiles.remove(file.getFile()), file));
+		for(FileModel file : beforeFiles.values())
+			addIfChanged(files, LineDiff.compare(file.getFile(), null, file, null));
+		
+		// --- local data, per matched frame ---
+		final List<FrameModel> beforeList = before.getFrames();
+		final List<FrameModel> afterList = after.getFrames();
+		final SubMonitor comparing = utils.NotNull.check(SubMonitor.convert(progress.newChild(1),
+				beforeList.size() + afterList.size()));
+		Map<String, ArrayDeque<FrameModel>> beforeFrames = new HashMap<>();
+		for(FrameModel frame : beforeList)
+			framesOf(beforeFrames, frame).add(frame);
+		
+		List<LineDiff> frames = new ArrayList<>();
+		int unmatched = 0;
+		for(FrameModel frame : afterList){
+			step(comparing);
+			final FrameModel match = framesOf(beforeFrames, frame).pollFirst();
+			if(match == null)
+				++unmatched;
+			addIfChanged(frames, LineDiff.compare(frame.getFile(), frame.getName(), match, frame));
+		}
+		for(ArrayDeque<FrameModel> remaining : beforeFrames.values()){
+			for(FrameModel frame : remaining){
+				step(comparing);
+				++unmatched;
+				addIfChanged(frames, LineDiff.compare(frame.getFile(), frame.getName(), frame, null));
+			}
+		}
+		
+		return(new AnalysisDiff(utils.NotNull.check(Collections.unmodifiableList(files)),
+				utils.NotNull.check(Collections.unmodifiableList(frames)), unmatched));
+	}
+	
+	/**
+	 * Count one frame as compared, first checking for cancellation.
+	 */
+	private static void step(SubMonitor progress) throws OperationCanceledException {
+		if(progress.isCanceled())
+			throw new OperationCanceledException();
+		progress.worked(1);
+	}
+	
+	private static void addIfChanged(List<LineDiff> diffs, LineDiff diff){
+		if(!diff.isEmpty())
+			diffs.add(diff);
+	}
+	
+	private static ArrayDeque<FrameModel> framesOf(Map<String, ArrayDeque<FrameModel>> frames, FrameModel frame){
+		final String key = frame.getName() + '\0' + frame.getFile();
+		ArrayDeque<FrameModel> result = frames.get(key);
+		@SuppressWarnings("null") // nullness analysis mistakenly thinks Map.get returns nonnull
+		final boolean absent = result == null;
+		if(absent){
+			result = new ArrayDeque<>();
+			frames.put(key, result);
+		}
+		return(result);
+	}
+	
+	/**
+	 * Get the comparison of each file's global data.
+	 *
+	 * @return the files with changes, later result's files first
+	 */
+	public List<LineDiff> getFileDiffs(){
+		return(this.files);
+	}
+	
+	/**
+	 * Get the comparison of each stack frame.
+	 *
+	 * @return the frames with changes, later result's frames first
+	 */
+	public List<LineDiff> getFrameDiffs(){
+		return(this.frames);
+	}
+	
+	/**
+	 * Get the number of stack frames (of either result) with no matching frame in the other result.
+	 *
+	 * @return the number of unmatched frames
+	 */
+	public int getUnmatchedFrameCount(){
+		return(this.unmatchedFrames);
+	}
+}
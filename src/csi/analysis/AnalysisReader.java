@@ -1,253 +1,499 @@
-/**
- * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
- * 
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- * 
- *     http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package csi.analysis;
-
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.NoSuchElementException;
-import java.util.Scanner;
-
-import org.eclipse.jdt.annotation.NonNull;
-import org.eclipse.jdt.annotation.Nullable;
-import org.eclipse.swt.widgets.Shell;
-
-import utils.ArrayUtils;
-import csi.Messages;
-import csi.models.CodeModel;
-import csi.models.FileModel;
-import csi.models.FrameModel;
-import csi.models.LineModel;
-import csi.models.ModelException;
-import csi.models.RootModel;
-
-/**
- * AnalysisReader reads analysis data (currently only from external files).
- */
-public class AnalysisReader {
-	
-	private final Shell shell;
-	
-	/**
-	 * The constructor requires shell context to print error messages during file reading.
-	 * 
-	 * @param shell the shell context to use for creating possible error dialogs
-	 */
-	public AnalysisReader(Shell shell) {
-		this.shell = shell;
-	}
-	
-	/**
-	 * A wrapper to show error dialogs without specifying the shell context.
-	 * 
-	 * @param message the error message to display
-	 */
-	private void showErrorMessage(String message){
-		Messages.showErrorMessage(shell, message);
-	}
-	
-	/**
-	 * Read analysis data from an external file.
-	 * 
-	 * @param path the path to the analysis data file
-	 * @return an AnalysisData object containing the local and global analysis data from the file at "path"
-	 */
-	public @Nullable AnalysisData readAnalysisFromFile(String path){
-		RootModel localData = new RootModel();
-		HashMap<String, FileModel> globalData = new HashMap<>();
-		
-		final File f = new File(path);
-		try(Scanner s = new Scanner(f)){
-        	while(s.hasNextLine()){
-        		// --- read and split the line ---
-        		String line = s.nextLine();
-        		final String trimmed = utils.NotNull.check(line.trim());
-        		if(trimmed.length() == 0)
-        			continue;
-        		final String[] splitted = trimmed.split(";");
-       			assert !Arrays.asList(splitted).contains(null);
-       			@SuppressWarnings("null")
-				final @NonNull String @NonNull[] lineParts = splitted;
-        		if(lineParts.length != 7){
-        			showErrorMessage("Invalid line detected in CSI Analysis Result File:" + System.lineSeparator() +
-        					line);
-        			return(null);
-        		}
-        		
-        		
-        		// --- parse each line part ---
-        		// function name and file
-        		String funcName = lineParts[0];
-        		String funcFile = lineParts[1];
-        		if(funcName.length() < 1){
-        			showErrorMessage("Empty function name in CSI Analysis Result File!");
-        			return(null);
-        		}
-        		
-        		// local or global
-        		boolean isLocal = false;
-        		switch(lineParts[2]){
-        		case "local":
-        			isLocal = true;
-        			break;
-        		case "global":
-        			isLocal = false;
-        			break;
-        		default:
-        			showErrorMessage("Invalid local/global specifier in CSI Analysis file:" + lineParts[2]);
-        			return(null);
-        		}
-        		
-        		// Java has no "map" function...
-        		//OneArg<String, int> lambda = Integer::parseInt;
-        		//int[] pathLines = ArrayUtils.map(pathString, f);
-        		
-        		// exeYes
-        		int[] yesLines;
-        		try{
-        			yesLines = ArrayUtils.linesArrayForLineString(lineParts[3]);
-        		}
-        		catch(NumberFormatException e){
-        			showErrorMessage("Invalid line number in exeYes for entry:" + System.lineSeparator() +
-        					line);
-        			return(null);
-        		}
-
-        		// exeNo
-        		int[] noLines;
-        		try{
-        			noLines = ArrayUtils.linesArrayForLineString(lineParts[4]);
-        		}
-        		catch(NumberFormatException e){
-        			showErrorMessage("Invalid line number in exeNo for entry:" + System.lineSeparator() +
-        					line);
-        			return(null);
-        		}
-
-        		// exeMaybe
-        		int[] maybeLines;
-        		try{
-        			maybeLines = ArrayUtils.linesArrayForLineString(lineParts[5]);
-        		}
-        		catch(NumberFormatException e){
-        			showErrorMessage("Invalid line number in exeMaybe for entry:" + System.lineSeparator() +
-        					line);
-        			return(null);
-        		}
-        		
-        		// path data
-        		int[] pathLines;
-        		try{
-        			pathLines = ArrayUtils.linesArrayForLineString(lineParts[6]);
-        		}
-        		catch(NumberFormatException e){
-        			showErrorMessage("Invalid line number in path for entry:" + System.lineSeparator() +
-        					line);
-        			return(null);
-        		}
-        		
-        		
-        		// --- build the data model ---
-        		// (might be local or global data)
-        		CodeModel model;
-        		if(isLocal){
-        			FrameModel frame = new FrameModel(funcName, funcFile);
-        			
-        			// handle the traced path data (not applicable for global function models)
-            		for(int entry : pathLines){
-            			LineModel entryModel = new LineModel(entry);
-            			try {
-    						frame.addChild(entryModel);
-    					}
-            			catch (ModelException e) {
-    						showErrorMessage("Internal error building models for line numbers for function " + funcName);
-    						e.printStackTrace();
-    						return(null);
-            			}
-            		}
-            		
-            		try{
-            			localData.addFrame(frame);
-            		}
-            		catch (ModelException e) {
-            			showErrorMessage("Internal error building model for function " + funcName);
-            			e.printStackTrace();
-            			return(null);
-            		}
-            		
-            		// the frame model is our model (for the rest of the data)
-            		model = frame;
-        		}
-        		else{
-        			// we currently use only FileModel for global models.  FunctionModel is not currently used.
-        			// Some day, we will have FunctionModels as children of each FileModel.
-        			// So, for now, get or create the global model. (Since we aren't using FunctionModels,
-        			//this is how we aggregate multiple entries for the same source file.)
-        			FileModel file = globalData.get(funcFile);
-        			@SuppressWarnings("null") // nullness analysis mistakenly thinks HashMap.get returns nonnull
-					final boolean absent = file == null;
-        			if(absent){
-        				file = new FileModel(funcFile);
-        				globalData.put(funcFile, file);
-        			}
-        			
-        			// the file model is our model (for the rest of the data)
-        			model = file;
-        		}
-        		
-        		// --- Execution trace data ---
-        		// exeYes
-        		for(int entry : yesLines){
-        			if(entry < 0){
-        				showErrorMessage("Invalid line '" + entry + "' for function " + funcName);
-        				return(null);
-        			}
-        			model.addYesLine(entry);
-        		}
-        		// exeNo
-        		for(int entry : noLines){
-        			if(entry < 0){
-        				showErrorMessage("Invalid line '" + entry + "' for function " + funcName);
-        				return(null);
-        			}
-        			model.addNoLine(entry);
-        		}
-        		// exeMaybe
-        		for(int entry : maybeLines){
-        			if(entry < 0){
-        				showErrorMessage("Invalid line '" + entry + "' for function " + funcName);
-        				return(null);
-        			}
-        			model.addMaybeLine(entry);
-        		}
-        	}
-        }
-        catch(FileNotFoundException | IllegalArgumentException e){
-        	showErrorMessage("Invalid file specified");
-        	e.printStackTrace();
-        	return(null);
-        }
-        catch(NoSuchElementException | IllegalStateException e){
-        	showErrorMessage("Broken file read");
-        	e.printStackTrace();
-        	return(null);
-        }
-		
-		return(new AnalysisData(localData, utils.NotNull.check(globalData.values().toArray(new FileModel[0]))));
-	}
-}
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.zip.ZipException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.swt.widgets.Shell;
+
+import utils.ArrayUtils;
+import utils.IntList;
+import csi.Messages;
+import csi.models.ModelException;
+
+/**
+ * AnalysisReader reads analysis data (currently only from external files).
+ */
+public class AnalysisReader {
+	
+	/**
+	 * The ways of parsing a text analysis file.
+	 */
+	private enum TextMode { SEQUENTIAL, PARALLEL, LAZY }
+	
+	private final Shell shell;
+	
+	/**
+	 * The constructor requires shell context to print error messages during file reading.
+	 *
+	 * @param shell the shell context to use for creating possible error dialogs
+	 */
+	public AnalysisReader(Shell shell) {
+		this.shell = shell;
+	}
+	
+	/**
+	 * A wrapper to show error dialogs without specifying the shell context.
+	 *
+	 * @param message the error message to display
+	 */
+	private void showErrorMessage(String message){
+		Messages.showErrorMessage(shell, message);
+	}
+	
+	/**
+	 * Show the error dialog for a malformed analysis file.  Internal model-building errors also get
+	 * a stack trace.
+	 *
+	 * @param e the format error to report
+	 */
+	private void showFormatError(AnalysisFormatException e){
+		showErrorMessage(utils.NotNull.check(e.getMessage()));
+		if(e.getCause() instanceof ModelException)
+			e.printStackTrace();
+	}
+	
+	/**
+	 * Read analysis data from an external file.
+	 *
+	 * @param path the path to the analysis data file
+	 * @return an AnalysisData object containing the local and global analysis data from the file at "path"
+	 */
+	public @Nullable AnalysisData readAnalysisFromFile(String path){
+		AnalysisBuilder builder = new AnalysisBuilder();
+		SymbolTable symbols = new SymbolTable();
+		IntList lines = new IntList();
+		
+		final File f = new File(path);
+		try(Scanner s = new Scanner(f)){
+        	while(s.hasNextLine()){
+        		readRecord(s.nextLine(), builder, symbols, lines);
+        	}
+        	return(builder.build(reportName(path)));
+        }
+		catch(AnalysisFormatException e){
+			showFormatError(e);
+			return(null);
+		}
+        catch(FileNotFoundException | IllegalArgumentException e){
+        	showErrorMessage("Invalid file specified");
+        	e.printStackTrace();
+        	return(null);
+        }
+        catch(NoSuchElementException | IllegalStateException e){
+        	showErrorMessage("Broken file read");
+        	e.printStackTrace();
+        	return(null);
+        }
+	}
+	
+	/**
+	 * Read analysis data from an external file by memory-mapping it and scanning the raw bytes.  This
+	 * produces exactly the same data (and errors) as readAnalysisFromFile(), but avoids creating a String for
+	 * each line and field, which dominates load time for very large files.
+	 *
+	 * @param path the path to the analysis data file
+	 * @return an AnalysisData object containing the local and global analysis data from the file at "path"
+	 */
+	public @Nullable AnalysisData readAnalysisFromMappedFile(String path){
+		return(readReportingErrors(() -> loadText(path, TextMode.SEQUENTIAL, null, new SymbolTable())));
+	}
+	
+	/**
+	 * Read analysis data from an external file by memory-mapping it and parsing chunks of it in parallel.
+	 * The file is split at record boundaries, and the chunks' results are merged in file order, so this
+	 * produces exactly the same data (and errors) as readAnalysisFromFile().
+	 *
+	 * @param path the path to the analysis data file
+	 * @return an AnalysisData object containing the local and global analysis data from the file at "path"
+	 */
+	public @Nullable AnalysisData readAnalysisFromFileInParallel(String path){
+		return(readReportingErrors(() -> loadText(path, TextMode.PARALLEL, null, new SymbolTable())));
+	}
+	
+	/**
+	 * Read analysis data from an external file, but only index its local records: each stack frame's
+	 * coverage and path data are parsed when the frame is first used (see FrameModel.materialize()).  Load
+	 * time and memory thus depend on the frames inspected rather than on the size of the file.  Global
+	 * data is read in full, and every record is checked for the right fields, but invalid line numbers in
+	 * a local record are only reported when its frame is loaded.  Binary and compressed analysis files
+	 * are always read in full.
+	 *
+	 * @param path the path to the analysis data file
+	 * @return an AnalysisData object containing the local and global analysis data from the file at "path"
+	 */
+	public @Nullable AnalysisData readAnalysisLazily(String path){
+		return(readReportingErrors(() -> load(path, true, null)));
+	}
+	
+	/**
+	 * Read analysis data from a binary analysis file (as written by AnalysisConverter).
+	 *
+	 * @param path the path to the binary analysis data file
+	 * @return an AnalysisData object containing the local and global analysis data from the file at "path"
+	 */
+	public @Nullable AnalysisData readAnalysisFromBinaryFile(String path){
+		return(readReportingErrors(() -> loadBinary(path, null, new SymbolTable())));
+	}
+	
+	/**
+	 * Read analysis data from an external file in any supported format.  Binary and compressed (gzip or
+	 * xz) analysis files are recognized by their headers; anything else is parsed as text (in parallel).
+	 * The data of text and compressed files is cached on disk (see AnalysisCache), so reloading an
+	 * unchanged file does not parse it again.
+	 *
+	 * @param path the path to the analysis data file
+	 * @return an AnalysisData object containing the local and global analysis data from the file at "path"
+	 */
+	public @Nullable AnalysisData readAnalysis(String path){
+		return(readReportingErrors(() -> load(path, false, null)));
+	}
+	
+	/**
+	 * Read analysis data from an external file in any supported format (see readAnalysis() and
+	 * readAnalysisLazily()), reporting progress and checking for cancellation as bytes of the file are
+	 * consumed.  Unlike the other read methods, this shows no dialogs, so it may be called from any
+	 * thread (e.g., from a Job).
+	 *
+	 * @param path the path to the analysis data file
+	 * @param lazy whether to load the local data of text files on demand (as readAnalysisLazily())
+	 * @param monitor the monitor to report progress to and to check for cancellation
+	 * @return an AnalysisData object containing the local and global analysis data from the file at "path"
+	 * @throws AnalysisFormatException if the file cannot be read or is malformed (with a message for the user)
+	 * @throws OperationCanceledException if the monitor is canceled before the read completes
+	 */
+	public AnalysisData readAnalysis(String path, boolean lazy, IProgressMonitor monitor)
+			throws AnalysisFormatException, OperationCanceledException {
+		ProgressReporter progress = new ProgressReporter(monitor, "Loading " + path, new File(path).length());
+		try{
+			return(load(path, lazy, progress));
+		}
+		finally{
+			progress.done();
+		}
+	}
+	
+	/**
+	 * Loader is an interface for reading analysis data, reporting all problems as exceptions.
+	 */
+	private interface Loader {
+		public AnalysisData load() throws AnalysisFormatException;
+	}
+	
+	private @Nullable AnalysisData readReportingErrors(Loader loader){
+		try{
+			return(loader.load());
+		}
+		catch(AnalysisFormatException e){
+			showFormatError(e);
+			return(null);
+		}
+	}
+	
+	/**
+	 * Read analysis data from an external file in any supported format, reporting all problems as
+	 * exceptions.
+	 *
+	 * @param path the path to the analysis data file
+	 * @param lazy whether to load the local data of text files on demand
+	 * @param progress the reporter for consumed bytes, or null to not report progress
+	 * @return the local and global analysis data from the file at "path"
+	 * @throws AnalysisFormatException if the file cannot be read or is malformed (with a message for the user)
+	 * @throws OperationCanceledException if progress is reported and the load has been canceled
+	 */
+	static AnalysisData load(String path, boolean lazy, @Nullable ProgressReporter progress)
+			throws AnalysisFormatException {
+		return(load(path, lazy, progress, new SymbolTable()));
+	}
+	
+	/**
+	 * Read analysis data from an external file in any supported format (see load(String, boolean,
+	 * ProgressReporter)), canonicalizing its names through a symbol table that may be shared with other
+	 * loads (e.g., of a whole directory), so that equal names of all of them share one String instance.
+	 *
+	 * @param path the path to the analysis data file
+	 * @param lazy whether to load the local data of text files on demand
+	 * @param progress the reporter for consumed bytes, or null to not report progress
+	 * @param symbols the table of canonical function and file names
+	 * @return the local and global analysis data from the file at "path"
+	 * @throws AnalysisFormatException if the file cannot be read or is malformed (with a message for the user)
+	 * @throws OperationCanceledException if progress is reported and the load has been canceled
+	 */
+	static AnalysisData load(String path, boolean lazy, @Nullable ProgressReporter progress, SymbolTable symbols)
+			throws AnalysisFormatException {
+		// binary files are already fast to load, and lazy loads should not parse everything up front
+		final AnalysisCache cache = AnalysisCache.getDefault();
+		if(cache == null || lazy || isBinaryFile(path))
+			return(loadUncached(path, lazy, progress, symbols));
+		
+		final AnalysisCache.Key key = cache.keyFor(path);
+		if(key == null)
+			return(loadUncached(path, lazy, progress, symbols));
+		
+		// (checking an entry reads the file once, reporting its bytes as progress)
+		final AnalysisData cached = cache.lookup(key, reportName(path), progress, symbols);
+		if(cached != null)
+			return(cached);
+		
+		final AnalysisData data = loadUncached(path, lazy, progress, symbols);
+		cache.scheduleStore(key, data);
+		return(data);
+	}
+	
+	private static AnalysisData loadUncached(String path, boolean lazy, @Nullable ProgressReporter progress,
+			SymbolTable symbols) throws AnalysisFormatException {
+		if(isCompressedFile(path))
+			return(loadCompressed(path, progress, symbols));
+		else if(isBinaryFile(path))
+			return(loadBinary(path, progress, symbols));
+		else
+			return(loadText(path, lazy ? TextMode.LAZY : TextMode.PARALLEL, progress, symbols));
+	}
+	
+	/**
+	 * Check whether a file starts with the binary analysis format's magic bytes.
+	 *
+	 * @param path the path to the analysis data file
+	 * @return true if the file is a binary analysis file
+	 */
+	private static boolean isBinaryFile(String path){
+		try(InputStream in = new BufferedInputStream(new FileInputStream(path))){
+			return(isBinaryStream(in));
+		}
+		catch(IOException e){
+			// unreadable; let the text reader report the problem
+			return(false);
+		}
+	}
+	
+	/**
+	 * Check whether a stream starts with the binary analysis format's magic bytes, without consuming them.
+	 *
+	 * @param in the stream, which must support mark() and reset()
+	 * @return true if the stream holds a binary analysis file
+	 * @throws IOException if the stream cannot be read
+	 */
+	private static boolean isBinaryStream(InputStream in) throws IOException {
+		in.mark(Integer.BYTES);
+		try{
+			return(new DataInputStream(in).readInt() == BinaryAnalysisFormat.MAGIC);
+		}
+		catch(EOFException e){
+			// too short to be binary
+			return(false);
+		}
+		finally{
+			in.reset();
+		}
+	}
+	
+	/**
+	 * Check whether a file is compressed (see CompressedAnalysisFile).
+	 *
+	 * @param path the path to the analysis data file
+	 * @return true if the file is compressed
+	 */
+	private static boolean isCompressedFile(String path){
+		try{
+			return(CompressedAnalysisFile.isCompressed(path));
+		}
+		catch(IOException e){
+			// unreadable; let the text reader report the problem
+			return(false);
+		}
+	}
+	
+	/**
+	 * Read analysis data from a compressed file, decompressing it while parsing.  The decompressed data
+	 * may be in either the text or the binary format.
+	 */
+	private static AnalysisData loadCompressed(String path, @Nullable ProgressReporter progress,
+			SymbolTable symbols) throws AnalysisFormatException {
+		final Charset charset = utils.NotNull.check(Charset.defaultCharset());
+		
+		// (progress is counted in compressed bytes, as they are read)
+		try(InputStream in = CompressedAnalysisFile.open(path, progress)){
+			if(isBinaryStream(in))
+				return(BinaryRecordReader.read(new DataInputStream(in), symbols).build(reportName(path)));
+			
+			AnalysisBuilder builder = new AnalysisBuilder();
+			StreamedTextFile.parse(in, (window, position, end) ->
+				new ByteRecordParser(window, charset, null, symbols).parse(0, end, builder));
+			return(builder.build(reportName(path)));
+		}
+		catch(FileNotFoundException | IllegalArgumentException e){
+			throw invalidFile(e);
+		}
+		catch(ZipException e){
+			e.printStackTrace();
+			throw new AnalysisFormatException("Corrupt compressed CSI Analysis file", e);
+		}
+		catch(IOException e){
+			throw brokenRead(e);
+		}
+	}
+	
+	private static AnalysisData loadBinary(String path, @Nullable ProgressReporter progress,
+			SymbolTable symbols) throws AnalysisFormatException {
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(
+				ProgressInputStream.monitor(new FileInputStream(path), progress)))){
+			return(BinaryRecordReader.read(in, symbols).build(reportName(path)));
+		}
+		catch(FileNotFoundException | IllegalArgumentException e){
+			throw invalidFile(e);
+		}
+		catch(IOException e){
+			throw brokenRead(e);
+		}
+	}
+	
+	private static AnalysisData loadText(String path, TextMode mode, @Nullable ProgressReporter progress,
+			SymbolTable symbols) throws AnalysisFormatException {
+		AnalysisBuilder builder = new AnalysisBuilder();
+		final Charset charset = utils.NotNull.check(Charset.defaultCharset());
+		
+		try{
+			final LazyAnalysisFile source = mode == TextMode.LAZY ? new LazyAnalysisFile(path, charset) : null;
+			MappedTextFile.parse(path, (window, position, end) -> {
+				if(source != null)
+					new ByteRecordParser(window, charset, progress, symbols).index(0, end, source, position, builder);
+				else if(mode == TextMode.PARALLEL)
+					ParallelRecordParser.parse(window, 0, end, charset, progress, symbols, builder);
+				else
+					new ByteRecordParser(window, charset, progress, symbols).parse(0, end, builder);
+			});
+			return(builder.build(reportName(path)));
+		}
+		catch(NoSuchFileException | AccessDeniedException | IllegalArgumentException e){
+			throw invalidFile(e);
+		}
+		catch(IOException e){
+			throw brokenRead(e);
+		}
+	}
+	
+	/**
+	 * Get the name that identifies an analysis file among others (e.g., in a directory of reports).
+	 *
+	 * @param path the path to the analysis data file
+	 * @return the file's name
+	 */
+	static String reportName(String path){
+		return(utils.NotNull.check(new File(path).getName()));
+	}
+	
+	private static AnalysisFormatException invalidFile(Exception e){
+		e.printStackTrace();
+		return(new AnalysisFormatException("Invalid file specified", e));
+	}
+	
+	private static AnalysisFormatException brokenRead(IOException e){
+		e.printStackTrace();
+		return(new AnalysisFormatException("Broken file read", e));
+	}
+	
+	/**
+	 * Split and parse one line of a text analysis file, adding its data to "builder".
+	 *
+	 * @param line the line (without line terminator)
+	 * @param builder the builder to receive the parsed record
+	 * @param symbols the table of canonical function and file names
+	 * @param lines scratch space for parsing line number fields
+	 * @throws AnalysisFormatException if the line is not a valid record
+	 */
+	private static void readRecord(String line, AnalysisBuilder builder, SymbolTable symbols, IntList lines)
+			throws AnalysisFormatException {
+		// --- read and split the line ---
+		final String trimmed = utils.NotNull.check(line.trim());
+		if(trimmed.length() == 0)
+			return;
+		final String[] splitted = trimmed.split(";");
+		assert !Arrays.asList(splitted).contains(null);
+		@SuppressWarnings("null")
+		final @NonNull String @NonNull[] lineParts = splitted;
+		if(lineParts.length != 7){
+			throw new AnalysisFormatException("Invalid line detected in CSI Analysis Result File:" +
+					System.lineSeparator() + line);
+		}
+		
+		
+		// --- parse each line part ---
+		// function name and file
+		String funcName = symbols.function(lineParts[0]);
+		String funcFile = symbols.file(lineParts[1]);
+		if(funcName.length() < 1){
+			throw new AnalysisFormatException("Empty function name in CSI Analysis Result File!");
+		}
+		
+		// local or global
+		boolean isLocal = false;
+		switch(lineParts[2]){
+		case "local":
+			isLocal = true;
+			break;
+		case "global":
+			isLocal = false;
+			break;
+		default:
+			throw new AnalysisFormatException("Invalid local/global specifier in CSI Analysis file:" + lineParts[2]);
+		}
+		
+		// Java has no "map" function...
+		//OneArg<String, int> lambda = Integer::parseInt;
+		//int[] pathLines = ArrayUtils.map(pathString, f);
+		
+		int[] yesLines = linesForField(lineParts[3], "exeYes", line, lines);
+		int[] noLines = linesForField(lineParts[4], "exeNo", line, lines);
+		int[] maybeLines = linesForField(lineParts[5], "exeMaybe", line, lines);
+		int[] pathLines = linesForField(lineParts[6], "path", line, lines);
+		
+		
+		// --- build the data model ---
+		builder.addRecord(funcName, funcFile, isLocal, yesLines, noLines, maybeLines, pathLines);
+	}
+	
+	private static int[] linesForField(String field, String fieldName, String line, IntList lines)
+			throws AnalysisFormatException {
+		lines.clear();
+		try{
+			ArrayUtils.parseLines(field, lines);
+			return(lines.toArray());
+		}
+		catch(NumberFormatException e){
+			throw new AnalysisFormatException("Invalid line number in " + fieldName + " for entry:" +
+					System.lineSeparator() + line, e);
+		}
+	}
+}
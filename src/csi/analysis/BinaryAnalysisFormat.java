@@ -0,0 +1,275 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * BinaryAnalysisFormat holds the constants and primitive encodings of the compact binary analysis format.
+ * A binary analysis file is laid out as:
+ * (1) a header: the magic bytes "CSIB", the format version, and the string, record, local record, and
+ *     distinct global file counts (each a 4-byte big-endian int),
+ * (2) the string table: each function and file name once, as a varint byte length and UTF-8 bytes, and
+ * (3) the records: a kind byte (local or global), varint string table indices for the function and file,
+ *     and the exeYes, exeNo, exeMaybe, and path line arrays.
+ * The three coverage arrays are written sorted and without duplicates, as a varint count followed by
+ * varint deltas.  The path keeps its order, so its deltas are zigzag-encoded.
+ */
+final class BinaryAnalysisFormat {
+	/**
+	 * The magic bytes at the start of every binary analysis file ("CSIB").
+	 */
+	static final int MAGIC = 0x43534942;
+
+	/**
+	 * The current (and only) format version.
+	 */
+	static final int VERSION = 1;
+
+	/**
+	 * The record kind byte of global records.
+	 */
+	static final int KIND_GLOBAL = 0;
+
+	/**
+	 * The record kind byte of local records.
+	 */
+	static final int KIND_LOCAL = 1;
+
+	// no sane file has line arrays (or names) longer than this; larger counts mean a corrupt file
+	private static final int MAX_COUNT = 1 << 28;
+	// arrays read from a file start no larger than this, and grow as their entries are actually read (so
+	// a corrupt count runs into the end of the file, rather than allocating a huge array up front)
+	private static final int MAX_INITIAL_CAPACITY = 1 << 10;
+
+	private BinaryAnalysisFormat() {
+		// static class.  can't be instantiated
+	}
+
+	/**
+	 * Write an unsigned varint (7 bits per byte, low bits first).
+	 *
+	 * @param out the output to write to
+	 * @param value the value to write, treated as unsigned
+	 * @throws IOException if the write fails
+	 */
+	static void writeVarInt(DataOutput out, int value) throws IOException {
+		while((value & ~0x7f) != 0){
+			out.writeByte((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 * Write an unsigned variable-length long (7 bits per byte, low bits first).
+	 *
+	 * @param out the output to write to
+	 * @param value the value to write, treated as unsigned
+	 * @throws IOException if the write fails
+	 */
+	static void writeVarLong(DataOutput out, long value) throws IOException {
+		while((value & ~0x7fL) != 0){
+			out.writeByte((int)(value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte((int)value);
+	}
+
+	/**
+	 * Read an unsigned varint.
+	 *
+	 * @param in the input to read from
+	 * @return the value read
+	 * @throws IOException if the read fails
+	 * @throws AnalysisFormatException if the varint is too long
+	 */
+	static int readVarInt(DataInput in) throws IOException, AnalysisFormatException {
+		long value = readVarLong(in);
+		if((value >>> 32) != 0)
+			throw new AnalysisFormatException("Corrupt CSI binary analysis file: integer out of range");
+		return((int)value);
+	}
+
+	/**
+	 * Read an unsigned variable-length long.
+	 *
+	 * @param in the input to read from
+	 * @return the value read
+	 * @throws IOException if the read fails
+	 * @throws AnalysisFormatException if the value is too long
+	 */
+	static long readVarLong(DataInput in) throws IOException, AnalysisFormatException {
+		long value = 0;
+		for(int shift = 0; shift < 64; shift += 7){
+			final int b = in.readUnsignedByte();
+			value |= (long)(b & 0x7f) << shift;
+			if((b & 0x80) == 0)
+				return(value);
+		}
+		throw new AnalysisFormatException("Corrupt CSI binary analysis file: integer too long");
+	}
+
+	/**
+	 * Read a varint count (e.g., an array length), checking that it is plausible.
+	 *
+	 * @param in the input to read from
+	 * @return the count read
+	 * @throws IOException if the read fails
+	 * @throws AnalysisFormatException if the count is implausibly large
+	 */
+	static int readCount(DataInput in) throws IOException, AnalysisFormatException {
+		final int count = readVarInt(in);
+		if(count < 0 || count > MAX_COUNT)
+			throw new AnalysisFormatException("Corrupt CSI binary analysis file: invalid count " + (count & 0xffffffffL));
+		return(count);
+	}
+
+	/**
+	 * Get the capacity to start an array of a count read from a file with (see grow()).
+	 *
+	 * @param count the count read from the file
+	 * @return the initial capacity
+	 */
+	static int initialCapacity(int count) {
+		return(Math.min(count, MAX_INITIAL_CAPACITY));
+	}
+
+	/**
+	 * Grow a full array that is being filled with a count of entries read from a file.
+	 *
+	 * @param array the full array
+	 * @param count the number of entries that the file claims
+	 * @return a copy of the array with room for more entries (but no more than "count")
+	 */
+	static <T> T[] grow(T[] array, int count) {
+		return(utils.NotNull.check(Arrays.copyOf(array, (int)Math.min(count, 2L * array.length))));
+	}
+
+	private static int[] grow(int[] array, int count) {
+		return(utils.NotNull.check(Arrays.copyOf(array, (int)Math.min(count, 2L * array.length))));
+	}
+
+	/**
+	 * Read a varint byte length and that many bytes.
+	 *
+	 * @param in the input to read from
+	 * @return the bytes read
+	 * @throws IOException if the read fails (e.g., if the length runs past the end of the input)
+	 * @throws AnalysisFormatException if the length is implausibly large
+	 */
+	static byte[] readBytes(DataInput in) throws IOException, AnalysisFormatException {
+		final int length = readCount(in);
+		byte[] bytes = new byte[initialCapacity(length)];
+		in.readFully(bytes);
+		for(int read = bytes.length; read < length; read = bytes.length){
+			bytes = utils.NotNull.check(Arrays.copyOf(bytes, (int)Math.min(length, 2L * read)));
+			in.readFully(bytes, read, bytes.length - read);
+		}
+		return(bytes);
+	}
+
+	/**
+	 * Write a set of lines: sorted, without duplicates, as a count and ascending deltas.
+	 *
+	 * @param out the output to write to
+	 * @param lines the (non-negative) lines, in any order; this array is sorted in place
+	 * @throws IOException if the write fails
+	 */
+	static void writeLineSet(DataOutput out, int[] lines) throws IOException {
+		Arrays.sort(lines);
+		int distinct = 0;
+		for(int i = 0; i < lines.length; ++i){
+			if(i == 0 || lines[i] != lines[i - 1])
+				lines[distinct++] = lines[i];
+		}
+
+		writeVarInt(out, distinct);
+		int previous = 0;
+		for(int i = 0; i < distinct; ++i){
+			writeVarInt(out, lines[i] - previous);
+			previous = lines[i];
+		}
+	}
+
+	/**
+	 * Read a set of lines written by writeLineSet().
+	 *
+	 * @param in the input to read from
+	 * @return the lines, in ascending order
+	 * @throws IOException if the read fails
+	 * @throws AnalysisFormatException if the data is corrupt
+	 */
+	static int[] readLineSet(DataInput in) throws IOException, AnalysisFormatException {
+		final int count = readCount(in);
+		int[] lines = new int[initialCapacity(count)];
+		long line = 0;
+		for(int i = 0; i < count; ++i){
+			if(i == lines.length)
+				lines = grow(lines, count);
+			line += readVarInt(in) & 0xffffffffL;
+			if(line > Integer.MAX_VALUE)
+				throw new AnalysisFormatException("Corrupt CSI binary analysis file: line out of range");
+			lines[i] = (int)line;
+		}
+		return(lines);
+	}
+
+	/**
+	 * Write a sequence of lines (in order), as a count and zigzag-encoded deltas.
+	 *
+	 * @param out the output to write to
+	 * @param lines the lines
+	 * @throws IOException if the write fails
+	 */
+	static void writeLineSequence(DataOutput out, int[] lines) throws IOException {
+		writeVarInt(out, lines.length);
+		long previous = 0;
+		for(int line : lines){
+			final long delta = line - previous;
+			writeVarLong(out, (delta << 1) ^ (delta >> 63));
+			previous = line;
+		}
+	}
+
+	/**
+	 * Read a sequence of lines written by writeLineSequence().
+	 *
+	 * @param in the input to read from
+	 * @return the lines, in their original order
+	 * @throws IOException if the read fails
+	 * @throws AnalysisFormatException if the data is corrupt
+	 */
+	static int[] readLineSequence(DataInput in) throws IOException, AnalysisFormatException {
+		final int count = readCount(in);
+		int[] lines = new int[initialCapacity(count)];
+		long line = 0;
+		for(int i = 0; i < count; ++i){
+			if(i == lines.length)
+				lines = grow(lines, count);
+			final long zigzag = readVarLong(in);
+			line += (zigzag >>> 1) ^ -(zigzag & 1);
+			if(line < Integer.MIN_VALUE || line > Integer.MAX_VALUE)
+				throw new AnalysisFormatException("Corrupt CSI binary analysis file: path entry out of range");
+			lines[i] = (int)line;
+		}
+		return(lines);
+	}
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * BinaryAnalysisWriter writes analysis records in the binary analysis format (see BinaryAnalysisFormat).
+ * Since the header and string table precede the records in the file, the records are handed to the
+ * writer twice, in the same order: first to count them and collect their strings, then (after
+ * startRecords()) to write them straight to the output.  Nothing is buffered but the string table, so
+ * files of any size can be written.
+ */
+class BinaryAnalysisWriter implements RecordHandler {
+	private final Map<String, Integer> strings = new LinkedHashMap<>();
+	private final Set<String> globalFiles = new HashSet<>();
+	private int recordCount = 0;
+	private int localCount = 0;
+
+	// the output of the records, or null while still counting them
+	private @Nullable DataOutputStream records = null;
+	private int writtenCount = 0;
+
+	/**
+	 * Count one analysis record or, after startRecords(), write it.  Lines are validated exactly as they
+	 * would be when building data models.
+	 *
+	 * @throws AnalysisFormatException if any coverage line is invalid
+	 * @throws IllegalStateException if a record is written that was not counted
+	 * @throws UncheckedIOException if writing the record fails
+	 */
+	@Override
+	public void addRecord(String funcName, String funcFile, boolean isLocal,
+			int[] yesLines, int[] noLines, int[] maybeLines, int[] pathLines)
+					throws AnalysisFormatException, IllegalArgumentException {
+		checkLines(yesLines, funcName);
+		checkLines(noLines, funcName);
+		checkLines(maybeLines, funcName);
+
+		final DataOutputStream out = records;
+		if(out == null){
+			stringIndex(funcName);
+			stringIndex(funcFile);
+			++recordCount;
+			if(isLocal)
+				++localCount;
+			else
+				globalFiles.add(funcFile);
+			return;
+		}
+
+		if(writtenCount == recordCount)
+			throw new IllegalStateException("More records written than counted");
+		try{
+			out.writeByte(isLocal ? BinaryAnalysisFormat.KIND_LOCAL : BinaryAnalysisFormat.KIND_GLOBAL);
+			BinaryAnalysisFormat.writeVarInt(out, countedIndex(funcName));
+			BinaryAnalysisFormat.writeVarInt(out, countedIndex(funcFile));
+			BinaryAnalysisFormat.writeLineSet(out, yesLines);
+			BinaryAnalysisFormat.writeLineSet(out, noLines);
+			BinaryAnalysisFormat.writeLineSet(out, maybeLines);
+			// (global records never use their path, so don't waste space on it)
+			BinaryAnalysisFormat.writeLineSequence(out, isLocal ? pathLines : new int[0]);
+		}
+		catch(IOException e){
+			throw new UncheckedIOException(e);
+		}
+		++writtenCount;
+	}
+
+	/**
+	 * Finish counting records, and write the header and string table for the counted records.  The same
+	 * records must then be added again, in the same order, to write them.
+	 *
+	 * @param out the stream to write to (which is not closed)
+	 * @throws IOException if the write fails
+	 */
+	void startRecords(OutputStream out) throws IOException {
+		if(records != null)
+			throw new IllegalStateException("Records already started");
+
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(BinaryAnalysisFormat.MAGIC);
+		data.writeInt(BinaryAnalysisFormat.VERSION);
+		data.writeInt(strings.size());
+		data.writeInt(recordCount);
+		data.writeInt(localCount);
+		data.writeInt(globalFiles.size());
+
+		for(String s : strings.keySet()){
+			final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			BinaryAnalysisFormat.writeVarInt(data, bytes.length);
+			data.write(bytes);
+		}
+		records = data;
+	}
+
+	/**
+	 * Finish writing records, checking that all counted records were written.
+	 *
+	 * @throws IOException if the write fails
+	 * @throws IllegalStateException if fewer records were written than counted
+	 */
+	void finish() throws IOException {
+		final DataOutputStream out = records;
+		if(out == null || writtenCount != recordCount)
+			throw new IllegalStateException("Fewer records written than counted");
+		out.flush();
+	}
+
+	private int stringIndex(String s) {
+		Integer index = strings.get(s);
+		if(index == null){
+			index = strings.size();
+			strings.put(s, index);
+		}
+		return(index);
+	}
+
+	@SuppressWarnings("null") // nullness analysis mistakenly thinks Map.get returns nonnull
+	private int countedIndex(String s) {
+		final Integer index = strings.get(s);
+		final boolean absent = index == null;
+		if(absent)
+			throw new IllegalStateException("Record written that was not counted: " + s);
+		return(index);
+	}
+
+	private static void checkLines(int[] lines, String funcName) throws AnalysisFormatException {
+		for(int entry : lines){
+			AnalysisBuilder.checkLine(entry, funcName);
+			// (data models reject line zero as well)
+			if(entry == 0)
+				throw new AnalysisFormatException("Invalid line '" + entry + "' for function " + funcName);
+		}
+	}
+}
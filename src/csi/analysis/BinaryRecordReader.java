@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * BinaryRecordReader reads analysis records in the binary analysis format (see BinaryAnalysisFormat)
+ * straight into an AnalysisBuilder.  Names come from the string table, so each distinct function and
+ * file name is decoded only once (and then canonicalized through a SymbolTable).  Nothing is sized by a
+ * count from the file alone (see BinaryAnalysisFormat.initialCapacity()), so a corrupt count is reported
+ * as a corrupt file once the data runs out, rather than exhausting memory.
+ */
+final class BinaryRecordReader {
+
+	private BinaryRecordReader() {
+		// static class.  can't be instantiated
+	}
+
+	/**
+	 * Read a complete binary analysis file.
+	 *
+	 * @param in the stream to read, positioned at the magic bytes
+	 * @param symbols the table of canonical function and file names
+	 * @return a builder holding every record of the file
+	 * @throws IOException if the read fails
+	 * @throws AnalysisFormatException if the data is not a valid binary analysis file
+	 * @throws IllegalArgumentException if a coverage line is rejected by the data model
+	 */
+	static AnalysisBuilder read(DataInputStream in, SymbolTable symbols) throws IOException, AnalysisFormatException, IllegalArgumentException {
+		try{
+			// --- header ---
+			if(in.readInt() != BinaryAnalysisFormat.MAGIC)
+				throw new AnalysisFormatException("Not a CSI binary analysis file");
+			final int version = in.readInt();
+			if(version != BinaryAnalysisFormat.VERSION)
+				throw new AnalysisFormatException("Unsupported CSI binary analysis file version " + version);
+			final int stringCount = in.readInt();
+			final int recordCount = in.readInt();
+			final int localCount = in.readInt();
+			final int fileCount = in.readInt();
+			if(stringCount < 0 || recordCount < 0 || localCount < 0 || localCount > recordCount ||
+					fileCount < 0 || fileCount > recordCount)
+				throw new AnalysisFormatException("Corrupt CSI binary analysis file: invalid header");
+
+			// --- string table ---
+			String[] strings = new String[BinaryAnalysisFormat.initialCapacity(stringCount)];
+			for(int i = 0; i < stringCount; ++i){
+				if(i == strings.length)
+					strings = BinaryAnalysisFormat.grow(strings, stringCount);
+				strings[i] = new String(BinaryAnalysisFormat.readBytes(in), StandardCharsets.UTF_8);
+			}
+
+			// --- records ---
+			// (the canonical names for each string, as a function and as a file, once used as such)
+			final @Nullable String[] functionNames = new String[stringCount];
+			final @Nullable String[] fileNames = new String[stringCount];
+			AnalysisBuilder builder = new AnalysisBuilder(BinaryAnalysisFormat.initialCapacity(localCount),
+					BinaryAnalysisFormat.initialCapacity(fileCount));
+			for(int i = 0; i < recordCount; ++i){
+				final int kind = in.readUnsignedByte();
+				if(kind != BinaryAnalysisFormat.KIND_LOCAL && kind != BinaryAnalysisFormat.KIND_GLOBAL)
+					throw new AnalysisFormatException("Corrupt CSI binary analysis file: invalid record kind " + kind);
+				final int funcIndex = stringIndex(strings, BinaryAnalysisFormat.readVarInt(in));
+				final int fileIndex = stringIndex(strings, BinaryAnalysisFormat.readVarInt(in));
+				String funcName = functionNames[funcIndex];
+				if(funcName == null){
+					funcName = symbols.function(strings[funcIndex]);
+					functionNames[funcIndex] = funcName;
+				}
+				String funcFile = fileNames[fileIndex];
+				if(funcFile == null){
+					funcFile = symbols.file(strings[fileIndex]);
+					fileNames[fileIndex] = funcFile;
+				}
+				final int[] yesLines = BinaryAnalysisFormat.readLineSet(in);
+				final int[] noLines = BinaryAnalysisFormat.readLineSet(in);
+				final int[] maybeLines = BinaryAnalysisFormat.readLineSet(in);
+				final int[] pathLines = BinaryAnalysisFormat.readLineSequence(in);
+
+				builder.addRecord(funcName, funcFile, kind == BinaryAnalysisFormat.KIND_LOCAL,
+						yesLines, noLines, maybeLines, pathLines);
+			}
+
+			if(in.read() != -1)
+				throw new AnalysisFormatException("Corrupt CSI binary analysis file: unexpected data after last record");
+			return(builder);
+		}
+		catch(EOFException e){
+			throw new AnalysisFormatException("Corrupt CSI binary analysis file: unexpected end of file", e);
+		}
+	}
+
+	private static int stringIndex(String[] strings, int index) throws AnalysisFormatException {
+		if(index < 0 || index >= strings.length)
+			throw new AnalysisFormatException("Corrupt CSI binary analysis file: invalid string index " + index);
+		return(index);
+	}
+}
@@ -0,0 +1,358 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.annotation.Nullable;
+
+import utils.ArrayUtils;
+import utils.IntList;
+import csi.models.FrameModel;
+
+/**
+ * ByteRecordParser parses text analysis records directly from a byte buffer (e.g., a memory-mapped file).
+ * It scans for the ';', ',' and newline separators in place, so no String is created for lines or
+ * numeric fields.  Only the function name and file are decoded, and only when they differ from the
+ * recently-seen names (see SymbolTable).
+ *
+ * The accepted format (and every error message) is exactly that of the Scanner-based reader in
+ * AnalysisReader: lines are trimmed, empty lines are skipped, and trailing empty fields are dropped
+ * just as String.split() drops them.
+ */
+class ByteRecordParser {
+	private static final int FIELD_COUNT = 7;
+	private static final int[] NO_LINES = new int[0];
+
+	// how often (in bytes parsed) to report progress
+	private static final int PROGRESS_INTERVAL = 1 << 16;
+
+	private final ByteBuffer buffer;
+	private final Charset charset;
+	private final @Nullable ProgressReporter progress;
+	private final SymbolTable.Decoder names;
+
+	// scratch space reused across records
+	private final int[] fieldStarts = new int[FIELD_COUNT];
+	private final int[] fieldEnds = new int[FIELD_COUNT];
+	private final IntList lines = new IntList(64);
+
+	/**
+	 * Construct a parser over the specified buffer.  The buffer is only read with absolute gets, so its
+	 * position and limit are never changed.
+	 *
+	 * @param buffer the bytes to parse
+	 * @param charset the character set of function and file names
+	 */
+	ByteRecordParser(ByteBuffer buffer, Charset charset) {
+		this(buffer, charset, null, new SymbolTable());
+	}
+
+	/**
+	 * Construct a parser over the specified buffer that reports the bytes it parses, and that shares
+	 * canonical function and file names with the other parsers of the same load.
+	 *
+	 * @param buffer the bytes to parse
+	 * @param charset the character set of function and file names
+	 * @param progress the reporter for parsed bytes, or null to not report progress
+	 * @param symbols the table of canonical names for the load
+	 */
+	ByteRecordParser(ByteBuffer buffer, Charset charset, @Nullable ProgressReporter progress, SymbolTable symbols) {
+		this.buffer = buffer;
+		this.charset = charset;
+		this.progress = progress;
+		this.names = symbols.newDecoder(charset);
+	}
+
+	/**
+	 * Find the end of the last complete record that starts before "end".
+	 *
+	 * @param buffer the bytes to search
+	 * @param start the first byte that may be searched
+	 * @param end one past the last byte that may be searched
+	 * @return the index just past the last line separator in [start, end), or -1 if there is none
+	 */
+	static int lastRecordEnd(ByteBuffer buffer, int start, int end) {
+		for(int i = end - 1; i >= start; --i){
+			if(isLineSeparator(buffer.get(i)))
+				return(i + 1);
+		}
+		return(-1);
+	}
+
+	/**
+	 * Parse every record in [start, end) of the buffer, passing each to "handler".  "end" should fall on a
+	 * record boundary (or the end of the data).
+	 *
+	 * @param start the first byte to parse
+	 * @param end one past the last byte to parse
+	 * @param handler the handler to receive the parsed records
+	 * @throws AnalysisFormatException if any record is invalid
+	 * @throws IllegalArgumentException if a coverage line is rejected by the data model
+	 * @throws OperationCanceledException if progress is reported and the load has been canceled
+	 */
+	void parse(int start, int end, RecordHandler handler)
+			throws AnalysisFormatException, IllegalArgumentException, OperationCanceledException {
+		int lineStart = start;
+		int reported = start;
+		while(lineStart < end){
+			int lineEnd = lineStart;
+			while(lineEnd < end && !isLineSeparator(buffer.get(lineEnd)))
+				++lineEnd;
+
+			parseRecord(lineStart, lineEnd, handler);
+			lineStart = lineEnd + 1;
+			reported = reportProgress(reported, Math.min(lineStart, end), false);
+		}
+		reportProgress(reported, end, true);
+	}
+
+	/**
+	 * Index every record in [start, end) of the buffer.  Global records are parsed and passed to "builder"
+	 * as usual, but each local record is only checked for the right fields and added to "builder" as a
+	 * frame that parses its record (from "source") when first needed, along with its coverage lines for the
+	 * line index.  Invalid line numbers in local records are thus reported when their frame is loaded.
+	 *
+	 * @param start the first byte to index
+	 * @param end one past the last byte to index
+	 * @param source the file that the buffer was read from
+	 * @param position the offset in "source" of the buffer's first byte
+	 * @param builder the builder to receive the records
+	 * @throws AnalysisFormatException if any record is invalid
+	 * @throws IllegalArgumentException if a coverage line is rejected by the data model
+	 * @throws OperationCanceledException if progress is reported and the load has been canceled
+	 */
+	void index(int start, int end, LazyAnalysisFile source, long position, AnalysisBuilder builder)
+			throws AnalysisFormatException, IllegalArgumentException, OperationCanceledException {
+		int lineStart = start;
+		int reported = start;
+		while(lineStart < end){
+			int lineEnd = lineStart;
+			while(lineEnd < end && !isLineSeparator(buffer.get(lineEnd)))
+				++lineEnd;
+			
+			if(splitRecord(lineStart, lineEnd)){
+				String funcName = functionName();
+				String funcFile = names.file(buffer, fieldStarts[1], fieldEnds[1]);
+				if(isLocal()){
+					Integer firstPathLine = firstLine(6, "path", lineStart, lineEnd);
+					indexFrame(source.frameFor(funcName, funcFile, firstPathLine, position + lineStart, lineEnd - lineStart),
+							source, lineStart, lineEnd, builder);
+				}
+				else{
+					parseLinesAndAdd(funcName, funcFile, false, lineStart, lineEnd, builder);
+				}
+			}
+			lineStart = lineEnd + 1;
+			reported = reportProgress(reported, Math.min(lineStart, end), false);
+		}
+		reportProgress(reported, end, true);
+	}
+
+	/**
+	 * Add the frame of an indexed local record to "builder", along with the record's coverage lines (for
+	 * the line index; the frame itself only parses them when it is loaded).  A record that its frame will
+	 * fail to parse adds no lines.
+	 */
+	private void indexFrame(FrameModel frame, LazyAnalysisFile source, int lineStart, int lineEnd, AnalysisBuilder builder)
+			throws IllegalArgumentException {
+		int[] yesLines, noLines, maybeLines;
+		try{
+			yesLines = parseLines(3, "exeYes", lineStart, lineEnd);
+			noLines = parseLines(4, "exeNo", lineStart, lineEnd);
+			maybeLines = parseLines(5, "exeMaybe", lineStart, lineEnd);
+			// (only checked, as it is when the frame is loaded)
+			parseLines(6, "path", lineStart, lineEnd);
+		}
+		catch(AnalysisFormatException e){
+			yesLines = noLines = maybeLines = NO_LINES;
+		}
+		builder.addFrame(frame, source, yesLines, noLines, maybeLines);
+	}
+
+	/**
+	 * Report the bytes parsed since the last report, if there are enough of them (or if "force" is set).
+	 *
+	 * @return the position up to which progress has now been reported
+	 */
+	private int reportProgress(int reported, int parsed, boolean force) throws OperationCanceledException {
+		final ProgressReporter reporter = progress;
+		if(reporter == null || parsed <= reported || (!force && parsed - reported < PROGRESS_INTERVAL))
+			return(reported);
+		reporter.consumed(parsed - reported);
+		return(parsed);
+	}
+
+	private void parseRecord(int lineStart, int lineEnd, RecordHandler handler)
+			throws AnalysisFormatException, IllegalArgumentException {
+		if(!splitRecord(lineStart, lineEnd))
+			return;
+
+		// --- parse each line part ---
+		// function name and file
+		String funcName = functionName();
+		String funcFile = names.file(buffer, fieldStarts[1], fieldEnds[1]);
+
+		// local or global
+		boolean isLocal = isLocal();
+
+		// coverage and path data
+		parseLinesAndAdd(funcName, funcFile, isLocal, lineStart, lineEnd, handler);
+	}
+
+	private void parseLinesAndAdd(String funcName, String funcFile, boolean isLocal, int lineStart, int lineEnd,
+			RecordHandler handler) throws AnalysisFormatException, IllegalArgumentException {
+		int[] yesLines = parseLines(3, "exeYes", lineStart, lineEnd);
+		int[] noLines = parseLines(4, "exeNo", lineStart, lineEnd);
+		int[] maybeLines = parseLines(5, "exeMaybe", lineStart, lineEnd);
+		int[] pathLines = parseLines(6, "path", lineStart, lineEnd);
+
+		handler.addRecord(funcName, funcFile, isLocal, yesLines, noLines, maybeLines, pathLines);
+	}
+
+	/**
+	 * Trim and split a line into its fields.
+	 *
+	 * @return false if the line is empty, or true if it has exactly the expected fields
+	 * @throws AnalysisFormatException if the line is neither empty nor split into the expected fields
+	 */
+	private boolean splitRecord(int lineStart, int lineEnd) throws AnalysisFormatException {
+		int start = trimStart(lineStart, lineEnd);
+		int end = trimEnd(start, lineEnd);
+		if(start == end)
+			return(false);
+
+		int fields = 0;
+		int nonEmptyFields = 0;
+		int fieldStart = start;
+		for(int i = start; i <= end; ++i){
+			if(i < end && buffer.get(i) != ';')
+				continue;
+
+			if(fields < FIELD_COUNT){
+				fieldStarts[fields] = fieldStart;
+				fieldEnds[fields] = i;
+			}
+			++fields;
+			// (like String.split(), ignore trailing empty fields)
+			if(i > fieldStart)
+				nonEmptyFields = fields;
+			fieldStart = i + 1;
+		}
+		if(nonEmptyFields != FIELD_COUNT)
+			throw new AnalysisFormatException("Invalid line detected in CSI Analysis Result File:" +
+					System.lineSeparator() + decode(lineStart, lineEnd));
+		return(true);
+	}
+
+	private String functionName() throws AnalysisFormatException {
+		if(fieldEnds[0] == fieldStarts[0])
+			throw new AnalysisFormatException("Empty function name in CSI Analysis Result File!");
+		return(names.function(buffer, fieldStarts[0], fieldEnds[0]));
+	}
+
+	private boolean isLocal() throws AnalysisFormatException {
+		if(fieldEquals(2, "local"))
+			return(true);
+		else if(fieldEquals(2, "global"))
+			return(false);
+		else
+			throw new AnalysisFormatException("Invalid local/global specifier in CSI Analysis file:" +
+					decode(fieldStarts[2], fieldEnds[2]));
+	}
+
+	/**
+	 * Parse only the first entry of a comma-separated line number field.
+	 *
+	 * @return the first line, or null if the field has no entries
+	 */
+	private @Nullable Integer firstLine(int field, String fieldName, int lineStart, int lineEnd)
+			throws AnalysisFormatException {
+		int start = trimStart(fieldStarts[field], fieldEnds[field]);
+		int end = trimEnd(start, fieldEnds[field]);
+
+		// (exactly as in parseLines())
+		while(end > start && buffer.get(end - 1) == ',')
+			--end;
+		if(start == end)
+			return(null);
+
+		int entryEnd = start;
+		while(entryEnd < end && buffer.get(entryEnd) != ',')
+			++entryEnd;
+
+		try{
+			return(ArrayUtils.parseInt(buffer, start, entryEnd));
+		}
+		catch(NumberFormatException e){
+			throw new AnalysisFormatException("Invalid line number in " + fieldName + " for entry:" +
+					System.lineSeparator() + decode(lineStart, lineEnd), e);
+		}
+	}
+
+	/**
+	 * Parse a comma-separated line number field, with the same rules as ArrayUtils.linesArrayForLineString().
+	 */
+	private int[] parseLines(int field, String fieldName, int lineStart, int lineEnd) throws AnalysisFormatException {
+		lines.clear();
+		try{
+			ArrayUtils.parseLines(buffer, fieldStarts[field], fieldEnds[field], lines);
+		}
+		catch(NumberFormatException e){
+			throw new AnalysisFormatException("Invalid line number in " + fieldName + " for entry:" +
+					System.lineSeparator() + decode(lineStart, lineEnd), e);
+		}
+		return(lines.isEmpty() ? NO_LINES : lines.toArray());
+	}
+
+	private boolean fieldEquals(int field, String expected) {
+		int length = fieldEnds[field] - fieldStarts[field];
+		if(length != expected.length())
+			return(false);
+		for(int i = 0; i < length; ++i){
+			if(buffer.get(fieldStarts[field] + i) != expected.charAt(i))
+				return(false);
+		}
+		return(true);
+	}
+
+	private String decode(int start, int end) {
+		byte[] bytes = new byte[end - start];
+		for(int i = 0; i < bytes.length; ++i)
+			bytes[i] = buffer.get(start + i);
+		return(new String(bytes, charset));
+	}
+
+	// (String.trim() treats every character up to and including ' ' as whitespace)
+	private int trimStart(int start, int end) {
+		while(start < end && (buffer.get(start) & 0xff) <= ' ')
+			++start;
+		return(start);
+	}
+
+	private int trimEnd(int start, int end) {
+		while(end > start && (buffer.get(end - 1) & 0xff) <= ' ')
+			--end;
+		return(end);
+	}
+
+	static boolean isLineSeparator(byte b) {
+		return(b == '\n' || b == '\r');
+	}
+}
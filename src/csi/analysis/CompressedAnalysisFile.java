@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.zip.GZIPInputStream;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * CompressedAnalysisFile recognizes gzip- and xz-compressed analysis files by their magic bytes and opens
+ * them as decompressing streams, so that they can be parsed without first being decompressed to disk.
+ * gzip support is built in.  xz support uses the XZ for Java library (org.tukaani.xz), which is an
+ * optional dependency of this plug-in; it is only looked up when an xz file is actually opened.
+ */
+final class CompressedAnalysisFile {
+	private static final byte[] GZIP_MAGIC = { (byte)0x1f, (byte)0x8b };
+	private static final byte[] XZ_MAGIC = { (byte)0xfd, '7', 'z', 'X', 'Z', 0 };
+	private static final String XZ_STREAM_CLASS = "org.tukaani.xz.XZInputStream";
+	
+	// buffer size for the compressed and decompressed streams
+	private static final int BUFFER_SIZE = 1 << 16;
+	
+	private CompressedAnalysisFile() {
+		// static class.  can't be instantiated
+	}
+	
+	/**
+	 * Check whether a file is compressed in a supported format.
+	 *
+	 * @param path the path to the analysis data file
+	 * @return true if the file is gzip- or xz-compressed
+	 * @throws IOException if the file cannot be read
+	 */
+	static boolean isCompressed(String path) throws IOException {
+		try(InputStream in = new BufferedInputStream(new FileInputStream(path), XZ_MAGIC.length)){
+			final byte[] header = readHeader(in);
+			return(startsWith(header, GZIP_MAGIC) || startsWith(header, XZ_MAGIC));
+		}
+	}
+	
+	/**
+	 * Open a compressed file as a (buffered) stream of its decompressed contents.
+	 *
+	 * @param path the path to the compressed analysis data file
+	 * @param progress the reporter for the compressed bytes read, or null to not report progress
+	 * @return the decompressed contents, which the caller must close
+	 * @throws IOException if the file cannot be opened or read
+	 * @throws AnalysisFormatException if the file is not compressed in a supported format, or if the
+	 *         library for its format is not available
+	 */
+	static InputStream open(String path, @Nullable ProgressReporter progress) throws IOException, AnalysisFormatException {
+		InputStream in = new BufferedInputStream(ProgressInputStream.monitor(new FileInputStream(path), progress),
+				BUFFER_SIZE);
+		try{
+			final byte[] header = readHeader(in);
+			InputStream decompressed;
+			if(startsWith(header, GZIP_MAGIC))
+				decompressed = new GZIPInputStream(in, BUFFER_SIZE);
+			else if(startsWith(header, XZ_MAGIC))
+				decompressed = openXZ(in);
+			else
+				throw new AnalysisFormatException("Unsupported compression format for CSI Analysis file " + path);
+			return(new BufferedInputStream(decompressed, BUFFER_SIZE));
+		}
+		catch(IOException | AnalysisFormatException | RuntimeException e){
+			in.close();
+			throw e;
+		}
+	}
+	
+	private static InputStream openXZ(InputStream in) throws IOException, AnalysisFormatException {
+		try{
+			final Class<?> streamClass = Class.forName(XZ_STREAM_CLASS, true, CompressedAnalysisFile.class.getClassLoader());
+			return(utils.NotNull.check((InputStream)streamClass.getConstructor(InputStream.class).newInstance(in)));
+		}
+		catch(ClassNotFoundException | LinkageError e){
+			throw new AnalysisFormatException("Reading xz-compressed CSI Analysis files requires the XZ for Java " +
+					"library (org.tukaani.xz), which is not installed", e);
+		}
+		catch(InvocationTargetException e){
+			if(e.getCause() instanceof IOException)
+				throw (IOException)e.getCause();
+			throw new AnalysisFormatException("Unable to read xz-compressed CSI Analysis file", e);
+		}
+		catch(ReflectiveOperationException | ClassCastException e){
+			throw new AnalysisFormatException("Incompatible version of the XZ for Java library (org.tukaani.xz)", e);
+		}
+	}
+	
+	/**
+	 * Read (up to) the longest magic number from the start of a stream, and then rewind the stream.
+	 */
+	private static byte[] readHeader(InputStream in) throws IOException {
+		final byte[] header = new byte[XZ_MAGIC.length];
+		in.mark(header.length);
+		int filled = 0;
+		while(filled < header.length){
+			final int read = in.read(header, filled, header.length - filled);
+			if(read < 0)
+				break;
+			filled += read;
+		}
+		in.reset();
+		
+		final byte[] result = new byte[filled];
+		System.arraycopy(header, 0, result, 0, filled);
+		return(result);
+	}
+	
+	private static boolean startsWith(byte[] header, byte[] magic) {
+		if(header.length < magic.length)
+			return(false);
+		for(int i = 0; i < magic.length; ++i){
+			if(header[i] != magic[i])
+				return(false);
+		}
+		return(true);
+	}
+}
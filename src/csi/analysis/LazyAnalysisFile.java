@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.jdt.annotation.Nullable;
+
+import csi.models.FrameLoader;
+import csi.models.FrameModel;
+import csi.models.ModelException;
+
+/**
+ * LazyAnalysisFile is a text analysis file whose local records are indexed (by byte offset) rather
+ * than parsed up front.  Each indexed frame re-reads and parses just its own record the first time it
+ * is needed (or when all of them are loaded in one pass; see loadAll()).  The file's size and
+ * modification time are remembered, so that a file that has changed since it was indexed is reported
+ * rather than misread.
+ */
+class LazyAnalysisFile {
+	private final Path path;
+	private final Charset charset;
+	private final long size;
+	private final FileTime lastModified;
+	// the frames indexed from this file, in record order
+	private final List<FrameModel> frames = new ArrayList<>();
+	// the channel that loads share while loadAll() runs
+	private @Nullable FileChannel shared = null;
+	
+	/**
+	 * Record the current state of a file to be indexed.
+	 *
+	 * @param path the path to the text analysis file
+	 * @param charset the character set of function and file names
+	 * @throws IOException if the file's attributes cannot be read
+	 */
+	LazyAnalysisFile(String path, Charset charset) throws IOException {
+		this.path = utils.NotNull.check(Paths.get(path));
+		this.charset = charset;
+		this.size = Files.size(this.path);
+		this.lastModified = utils.NotNull.check(Files.getLastModifiedTime(this.path));
+	}
+	
+	/**
+	 * Create the frame of one indexed record, which parses its record when it is first needed.
+	 *
+	 * @param funcName the function of the record
+	 * @param funcFile the file of the record
+	 * @param firstPathLine the first line of the record's path trace, or null if its path trace is empty
+	 * @param offset the offset of the record's first byte in the file
+	 * @param length the length of the record in bytes
+	 * @return the frame, loaded on demand
+	 */
+	FrameModel frameFor(String funcName, String funcFile, @Nullable Integer firstPathLine, long offset, int length) {
+		final FrameLoader loader = frame -> load(frame, offset, length);
+		final FrameModel frame = new FrameModel(funcName, funcFile, firstPathLine, loader);
+		frames.add(frame);
+		return(frame);
+	}
+	
+	/**
+	 * Load every frame of this file that has not been loaded yet, in one pass over the file: in record
+	 * order, through one open channel, checking just once that the file has not changed.  (Frames that are
+	 * loaded on demand meanwhile share the channel.)  A frame that fails to load keeps its error for its
+	 * callers (see FrameModel.materialize()), as does every frame if the file cannot be read at all.
+	 *
+	 * @param monitor the monitor to report progress (in frames) to and to check for cancellation
+	 * @throws OperationCanceledException if the monitor is canceled before all frames are loaded
+	 */
+	void loadAll(IProgressMonitor monitor) throws OperationCanceledException {
+		final SubMonitor progress = utils.NotNull.check(SubMonitor.convert(monitor, frames.size()));
+		final FileChannel channel;
+		try{
+			channel = open();
+		}
+		catch(IOException | AnalysisFormatException e){
+			// (each frame reports the problem once it is used)
+			return;
+		}
+		
+		synchronized(this){
+			shared = channel;
+		}
+		try{
+			for(FrameModel frame : frames){
+				if(progress.isCanceled())
+					throw new OperationCanceledException();
+				if(!frame.isMaterialized()){
+					try{
+						frame.materialize();
+					}
+					catch(ModelException e){
+						// kept by the frame, and reported to its callers
+					}
+				}
+				progress.worked(1);
+			}
+		}
+		finally{
+			synchronized(this){
+				shared = null;
+			}
+			try{
+				channel.close();
+			}
+			catch(IOException e){
+				// (the channel was only read)
+			}
+		}
+	}
+	
+	private void load(FrameModel frame, long offset, int length) throws ModelException {
+		try{
+			final ByteBuffer record = read(offset, length);
+			new ByteRecordParser(record, charset).parse(0, length,
+					(funcName, funcFile, isLocal, yesLines, noLines, maybeLines, pathLines) -> {
+				if(!isLocal || !funcName.equals(frame.getName()) || !funcFile.equals(frame.getFile()))
+					throw new AnalysisFormatException(changedMessage());
+				AnalysisBuilder.addPath(frame, funcName, pathLines);
+				AnalysisBuilder.addLines(frame, funcName, yesLines, noLines, maybeLines);
+			});
+		}
+		catch(AnalysisFormatException e){
+			throw new ModelException(e.getMessage(), e);
+		}
+		catch(IllegalArgumentException e){
+			throw new ModelException("Invalid line for function " + frame.getName() + " in " + path, e);
+		}
+		catch(IOException e){
+			throw new ModelException("Unable to re-read CSI Analysis Result File " + path, e);
+		}
+	}
+	
+	private ByteBuffer read(long offset, int length) throws IOException, AnalysisFormatException {
+		synchronized(this){
+			final FileChannel channel = shared;
+			if(channel != null)
+				return(read(channel, offset, length));
+		}
+		
+		try(FileChannel channel = open()){
+			return(read(channel, offset, length));
+		}
+	}
+	
+	private ByteBuffer read(FileChannel channel, long offset, int length) throws IOException, AnalysisFormatException {
+		ByteBuffer record = utils.NotNull.check(ByteBuffer.allocate(length));
+		while(record.hasRemaining()){
+			if(channel.read(record, offset + record.position()) < 0)
+				throw new AnalysisFormatException(changedMessage());
+		}
+		return(record);
+	}
+	
+	/**
+	 * Open the file for reading, checking that it has not changed since it was indexed.
+	 */
+	private FileChannel open() throws IOException, AnalysisFormatException {
+		final FileChannel channel = utils.NotNull.check(FileChannel.open(path, StandardOpenOption.READ));
+		boolean unchanged = false;
+		try{
+			unchanged = channel.size() == size && lastModified.equals(Files.getLastModifiedTime(path));
+		}
+		finally{
+			if(!unchanged)
+				channel.close();
+		}
+		if(!unchanged)
+			throw new AnalysisFormatException(changedMessage());
+		return(channel);
+	}
+	
+	private String changedMessage() {
+		return("CSI Analysis Result File " + path + " has changed since it was loaded.  Please reload it.");
+	}
+}
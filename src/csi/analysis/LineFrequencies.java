@@ -0,0 +1,328 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import csi.models.FileModel;
+import utils.LineSet;
+
+/**
+ * LineFrequencies counts, for each source file and line, how many of a set of analysis results (e.g., a
+ * batch of crash reports) have the line in their global "yes", "no", and "maybe" sets.  The counts of
+ * each file are kept in plain int arrays of the counted lines and their counts, so thousands of reports
+ * can be aggregated without holding any per-report sets beyond the reports' own data, and the memory
+ * needed depends only on how many distinct lines are counted (not on how large the line numbers are).  The reports are counted in
+ * parallel on a fork-join pool, and the partial counts are then added together.
+ */
+public final class LineFrequencies {
+	// reports counted sequentially by one task
+	private static final int REPORTS_PER_TASK = 8;
+	
+	private static final int[] NO_LINES = new int[0];
+	
+	/**
+	 * Counts holds the (nonzero) count of each counted line, as two parallel arrays sorted by line.
+	 * Counts are never changed; adding to them creates new ones.
+	 */
+	private static final class Counts {
+		private static final Counts EMPTY = new Counts(NO_LINES, NO_LINES);
+		
+		private final int[] lines;
+		private final int[] counts;
+		
+		private Counts(int[] lines, int[] counts) {
+			this.lines = lines;
+			this.counts = counts;
+		}
+		
+		/**
+		 * Get the count of a line.
+		 */
+		private int get(int line){
+			final int index = Arrays.binarySearch(this.lines, line);
+			return(index < 0 ? 0 : this.counts[index]);
+		}
+		
+		/**
+		 * Add one to the count of every line in a set.
+		 */
+		private Counts plus(LineSet added){
+			if(added.isEmpty())
+				return(this);
+			return(merge(this.lines, this.counts, added.toArray(), null));
+		}
+		
+		/**
+		 * Add other counts to these.
+		 */
+		private Counts plus(Counts other){
+			if(other.lines.length == 0)
+				return(this);
+			return(merge(this.lines, this.counts, other.lines, other.counts));
+		}
+		
+		/**
+		 * Merge two sorted sequences of lines, adding the counts of lines in both.
+		 *
+		 * @param otherCounts the counts of "otherLines", or null if each of them counts once
+		 */
+		private static Counts merge(int[] lines, int[] counts, int[] otherLines, int @Nullable[] otherCounts){
+			int[] mergedLines = new int[lines.length + otherLines.length];
+			int[] mergedCounts = new int[mergedLines.length];
+			int i = 0, j = 0, size = 0;
+			while(i < lines.length || j < otherLines.length){
+				final int line = j == otherLines.length || (i < lines.length && lines[i] <= otherLines[j]) ?
+						lines[i] : otherLines[j];
+				int count = 0;
+				if(i < lines.length && lines[i] == line)
+					count += counts[i++];
+				if(j < otherLines.length && otherLines[j] == line){
+					count += otherCounts == null ? 1 : otherCounts[j];
+					++j;
+				}
+				mergedLines[size] = line;
+				mergedCounts[size] = count;
+				++size;
+			}
+			
+			if(size < mergedLines.length){
+				mergedLines = Arrays.copyOf(mergedLines, size);
+				mergedCounts = Arrays.copyOf(mergedCounts, size);
+			}
+			return(new Counts(utils.NotNull.check(mergedLines), utils.NotNull.check(mergedCounts)));
+		}
+	}
+	
+	/**
+	 * FileCounts holds the per-line report counts of one source file.
+	 */
+	public static final class FileCounts {
+		private final String file;
+		private Counts yes = Counts.EMPTY;
+		private Counts no = Counts.EMPTY;
+		private Counts maybe = Counts.EMPTY;
+		// the number of reports with any data for the file, and with any "yes" line in the file
+		private int reports = 0;
+		private int executedReports = 0;
+		// the line with the highest "yes" count, found once all reports are counted
+		private int hottestLine = -1;
+		
+		private FileCounts(String file) {
+			this.file = file;
+		}
+		
+		private void add(FileModel model){
+			++this.reports;
+			if(model.getExeYesSize() > 0)
+				++this.executedReports;
+			this.yes = this.yes.plus(model.getExeYes());
+			this.no = this.no.plus(model.getExeNo());
+			this.maybe = this.maybe.plus(model.getExeMaybe());
+		}
+		
+		private void addAll(FileCounts other){
+			this.reports += other.reports;
+			this.executedReports += other.executedReports;
+			this.yes = this.yes.plus(other.yes);
+			this.no = this.no.plus(other.no);
+			this.maybe = this.maybe.plus(other.maybe);
+		}
+		
+		private void finish(){
+			int hottest = -1;
+			int hottestCount = 0;
+			for(int i = 0; i < this.yes.lines.length; ++i){
+				if(this.yes.counts[i] > hottestCount){
+					hottest = this.yes.lines[i];
+					hottestCount = this.yes.counts[i];
+				}
+			}
+			this.hottestLine = hottest;
+		}
+		
+		/**
+		 * Get the file whose lines are counted.
+		 *
+		 * @return the file name
+		 */
+		public String getFile(){
+			return(this.file);
+		}
+		
+		/**
+		 * Get the number of reports with the line in their "yes" set.
+		 *
+		 * @param line the line
+		 * @return the number of reports that executed the line
+		 */
+		public int getYesCount(int line){
+			return(this.yes.get(line));
+		}
+		
+		/**
+		 * Get the number of reports with the line in their "no" set.
+		 *
+		 * @param line the line
+		 * @return the number of reports that did not execute the line
+		 */
+		public int getNoCount(int line){
+			return(this.no.get(line));
+		}
+		
+		/**
+		 * Get the number of reports with the line in their "maybe" set.
+		 *
+		 * @param line the line
+		 * @return the number of reports that may have executed the line
+		 */
+		public int getMaybeCount(int line){
+			return(this.maybe.get(line));
+		}
+		
+		/**
+		 * Get the number of reports with any global data for the file.
+		 *
+		 * @return the number of reports
+		 */
+		public int getReportCount(){
+			return(this.reports);
+		}
+		
+		/**
+		 * Get the number of reports with at least one "yes" line in the file.
+		 *
+		 * @return the number of reports that executed the file
+		 */
+		public int getExecutedReportCount(){
+			return(this.executedReports);
+		}
+		
+		/**
+		 * Get the line executed by the most reports (the first such line, if there is a tie).
+		 *
+		 * @return the line, or -1 if no report executed any line of the file
+		 */
+		public int getHottestLine(){
+			return(this.hottestLine);
+		}
+	}
+	
+	private static final class CountTask extends RecursiveTask<Map<String, FileCounts>> {
+		private static final long serialVersionUID = 1L;
+		
+		private final List<AnalysisData> reports;
+		private final int start;
+		private final int end;
+		
+		private CountTask(List<AnalysisData> reports, int start, int end) {
+			this.reports = reports;
+			this.start = start;
+			this.end = end;
+		}
+		
+		@Override
+		protected Map<String, FileCounts> compute() {
+			if(end - start <= REPORTS_PER_TASK){
+				Map<String, FileCounts> counts = new LinkedHashMap<>();
+				for(int i = start; i < end; ++i){
+					for(FileModel file : reports.get(i).getGlobalData())
+						countsOf(counts, file.getFile()).add(file);
+				}
+				return(counts);
+			}
+			
+			final int middle = start + (end - start) / 2;
+			CountTask later = new CountTask(reports, middle, end);
+			later.fork();
+			Map<String, FileCounts> counts = new CountTask(reports, start, middle).compute();
+			for(FileCounts laterCounts : later.join().values())
+				countsOf(counts, laterCounts.getFile()).addAll(laterCounts);
+			return(counts);
+		}
+	}
+	
+	private final Map<String, FileCounts> files;
+	private final int reportCount;
+	
+	private LineFrequencies(Map<String, FileCounts> files, int reportCount) {
+		this.files = files;
+		this.reportCount = reportCount;
+	}
+	
+	/**
+	 * Count the global data of several analysis results.
+	 *
+	 * @param reports the analysis results (e.g., one per crash report)
+	 * @return the per-line counts of every file in any of the reports
+	 */
+	public static LineFrequencies aggregate(List<AnalysisData> reports){
+		final Map<String, FileCounts> files = reports.isEmpty() ? new LinkedHashMap<>() :
+			ForkJoinPool.commonPool().invoke(new CountTask(reports, 0, reports.size()));
+		for(FileCounts counts : files.values())
+			counts.finish();
+		return(new LineFrequencies(files, reports.size()));
+	}
+	
+	private static FileCounts countsOf(Map<String, FileCounts> counts, String file){
+		FileCounts result = counts.get(file);
+		@SuppressWarnings("null") // nullness analysis mistakenly thinks Map.get returns nonnull
+		final boolean absent = result == null;
+		if(absent){
+			result = new FileCounts(file);
+			counts.put(file, result);
+		}
+		return(result);
+	}
+	
+	/**
+	 * Get the number of reports that were counted.
+	 *
+	 * @return the number of reports
+	 */
+	public int getReportCount(){
+		return(this.reportCount);
+	}
+	
+	/**
+	 * Get the per-line counts of one file.
+	 *
+	 * @param file the file name (as in the global data)
+	 * @return the file's counts, or null if no report has global data for the file
+	 */
+	public @Nullable FileCounts getCounts(String file){
+		return(this.files.get(file));
+	}
+	
+	/**
+	 * Get the per-line counts of every file.
+	 *
+	 * @return the counts of each file, in order of first appearance
+	 */
+	public Collection<FileCounts> getAllCounts(){
+		return(utils.NotNull.check(Collections.unmodifiableCollection(this.files.values())));
+	}
+}
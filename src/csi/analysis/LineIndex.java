@@ -0,0 +1,334 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import csi.models.FrameModel;
+import utils.LineSet;
+
+/**
+ * LineIndex is an inverted index of the local data: for each source file and line, the stack frames that
+ * have the line in their "yes", "no", or "maybe" set.  Each file's index is kept in primitive arrays (the
+ * sorted distinct lines, and for each line, its packed frame/category entries), so a lookup is a binary
+ * search, independent of the number of frames.
+ */
+public final class LineIndex {
+	/**
+	 * The category of an entry for a "yes" line.
+	 */
+	public static final int YES = 0;
+	
+	/**
+	 * The category of an entry for a "no" line.
+	 */
+	public static final int NO = 1;
+	
+	/**
+	 * The category of an entry for a "maybe" line.
+	 */
+	public static final int MAYBE = 2;
+	
+	private static final int CATEGORY_BITS = 2;
+	private static final int CATEGORY_MASK = (1 << CATEGORY_BITS) - 1;
+	private static final int MAX_FRAMES = Integer.MAX_VALUE >>> CATEGORY_BITS;
+	private static final int[] NO_ENTRIES = new int[0];
+	
+	/**
+	 * The index of one file: entries[starts[i]] through entries[starts[i + 1] - 1] are the entries of
+	 * lines[i], ordered by frame.
+	 */
+	private static final class FileIndex {
+		private final int[] lines;
+		private final int[] starts;
+		private final int[] entries;
+		
+		private FileIndex(long[] pairs, int size) {
+			Arrays.sort(pairs, 0, size);
+			
+			// (a record may list a line more than once, but a frame has each line once per category)
+			int count = 0;
+			for(int i = 0; i < size; ++i){
+				if(count == 0 || pairs[i] != pairs[count - 1])
+					pairs[count++] = pairs[i];
+			}
+			
+			int distinct = 0;
+			for(int i = 0; i < count; ++i){
+				if(i == 0 || (pairs[i] >>> 32) != (pairs[i - 1] >>> 32))
+					++distinct;
+			}
+			this.lines = new int[distinct];
+			this.starts = new int[distinct + 1];
+			this.entries = new int[count];
+			
+			int line = -1;
+			for(int i = 0; i < count; ++i){
+				if(i == 0 || (pairs[i] >>> 32) != (pairs[i - 1] >>> 32)){
+					this.lines[++line] = (int)(pairs[i] >>> 32);
+					this.starts[line] = i;
+				}
+				this.entries[i] = (int)pairs[i];
+			}
+			this.starts[distinct] = count;
+		}
+	}
+	
+	/**
+	 * PairBuffer collects the (line, entry) pairs of one file, packed into longs.
+	 */
+	private static final class PairBuffer {
+		private long[] pairs = new long[16];
+		private int count = 0;
+		
+		private void add(int line, int entry){
+			if(count == pairs.length)
+				pairs = Arrays.copyOf(pairs, count * 2);
+			pairs[count++] = ((long)line << 32) | entry;
+		}
+		
+		private void addAll(LineSet lines, int entry){
+			lines.forEach(line -> add(line, entry));
+		}
+		
+		private void addAll(int[] lines, int entry){
+			for(int line : lines)
+				add(line, entry);
+		}
+	}
+	
+	/**
+	 * Builder collects the lines of stack frames one frame at a time (so a frame's lines need not be kept
+	 * in the frame, e.g., for a frame that is loaded on demand), and then indexes them.  The id of each
+	 * frame is the number of frames added before it.
+	 */
+	static final class Builder {
+		private final List<FrameModel> frames = new ArrayList<>();
+		private final Map<String, PairBuffer> buffers = new HashMap<>();
+		
+		/**
+		 * Add a stack frame with its own lines.
+		 *
+		 * @param frame the frame
+		 * @throws IllegalArgumentException if there are too many frames to index
+		 */
+		void add(FrameModel frame) throws IllegalArgumentException {
+			final PairBuffer buffer = this.next(frame, frame.getFile());
+			final int id = this.frames.size() - 1;
+			buffer.addAll(frame.getExeYes(), (id << CATEGORY_BITS) | YES);
+			buffer.addAll(frame.getExeNo(), (id << CATEGORY_BITS) | NO);
+			buffer.addAll(frame.getExeMaybe(), (id << CATEGORY_BITS) | MAYBE);
+		}
+		
+		/**
+		 * Add a stack frame with the lines of its record, which need not be loaded into the frame yet.
+		 *
+		 * @param frame the frame
+		 * @param file the frame's file name
+		 * @param yesLines the frame's "yes" lines (possibly repeated)
+		 * @param noLines the frame's "no" lines (possibly repeated)
+		 * @param maybeLines the frame's "maybe" lines (possibly repeated)
+		 * @throws IllegalArgumentException if there are too many frames to index
+		 */
+		void add(FrameModel frame, String file, int[] yesLines, int[] noLines, int[] maybeLines)
+				throws IllegalArgumentException {
+			final PairBuffer buffer = this.next(frame, file);
+			final int id = this.frames.size() - 1;
+			buffer.addAll(yesLines, (id << CATEGORY_BITS) | YES);
+			buffer.addAll(noLines, (id << CATEGORY_BITS) | NO);
+			buffer.addAll(maybeLines, (id << CATEGORY_BITS) | MAYBE);
+		}
+		
+		private PairBuffer next(FrameModel frame, String file) throws IllegalArgumentException {
+			if(this.frames.size() == MAX_FRAMES)
+				throw new IllegalArgumentException("Too many stack frames to index: " + (MAX_FRAMES + 1));
+			this.frames.add(frame);
+			
+			PairBuffer buffer = this.buffers.get(file);
+			@SuppressWarnings("null") // nullness analysis mistakenly thinks Map.get returns nonnull
+			final boolean absent = buffer == null;
+			if(absent){
+				buffer = new PairBuffer();
+				this.buffers.put(file, buffer);
+			}
+			return(buffer);
+		}
+		
+		/**
+		 * Index the lines of every frame added so far.
+		 *
+		 * @return the index
+		 */
+		LineIndex build(){
+			return(LineIndex.build(this.frames, this.buffers));
+		}
+	}
+	
+	private final FrameModel[] frames;
+	private final Map<String, FileIndex> files;
+	
+	private LineIndex(FrameModel[] frames, Map<String, FileIndex> files) {
+		this.frames = frames;
+		this.files = files;
+	}
+	
+	/**
+	 * Build the index of a list of stack frames.  Frames that are loaded on demand are loaded for the index
+	 * (so data loaded on demand should come with an index built while it is loaded; see Builder).
+	 *
+	 * @param frames the stack frames; the index of a frame in this list is its id in the index
+	 * @return the index of every line of the frames
+	 * @throws IllegalArgumentException if there are too many frames to index
+	 */
+	public static LineIndex build(List<FrameModel> frames) throws IllegalArgumentException {
+		Builder builder = new Builder();
+		for(FrameModel frame : frames)
+			builder.add(frame);
+		return(builder.build());
+	}
+	
+	/**
+	 * Combine the indexes of several lists of stack frames into the index of all of the frames: the frame
+	 * ids of each index follow those of the indexes before it.
+	 *
+	 * @param indexes the indexes to combine, in order
+	 * @return the index of every frame of the indexes
+	 * @throws IllegalArgumentException if there are too many frames to index
+	 */
+	static LineIndex concat(List<LineIndex> indexes) throws IllegalArgumentException {
+		List<FrameModel> frames = new ArrayList<>();
+		Map<String, PairBuffer> buffers = new HashMap<>();
+		for(LineIndex index : indexes){
+			if(index.frames.length > MAX_FRAMES - frames.size())
+				throw new IllegalArgumentException("Too many stack frames to index: " +
+						((long)frames.size() + index.frames.length));
+			final int offset = frames.size() << CATEGORY_BITS;
+			Collections.addAll(frames, index.frames);
+			
+			for(Map.Entry<String, FileIndex> file : index.files.entrySet()){
+				PairBuffer buffer = buffers.get(file.getKey());
+				@SuppressWarnings("null") // nullness analysis mistakenly thinks Map.get returns nonnull
+				final boolean absent = buffer == null;
+				if(absent){
+					buffer = new PairBuffer();
+					buffers.put(file.getKey(), buffer);
+				}
+				
+				final FileIndex lines = file.getValue();
+				for(int i = 0; i < lines.lines.length; ++i){
+					for(int j = lines.starts[i]; j < lines.starts[i + 1]; ++j)
+						buffer.add(lines.lines[i], offset + lines.entries[j]);
+				}
+			}
+		}
+		return(build(frames, buffers));
+	}
+	
+	private static LineIndex build(List<FrameModel> frames, Map<String, PairBuffer> buffers){
+		Map<String, FileIndex> files = new HashMap<>(Math.max(16, (int)(buffers.size() / 0.75f) + 1));
+		for(Map.Entry<String, PairBuffer> buffer : buffers.entrySet())
+			files.put(buffer.getKey(), new FileIndex(buffer.getValue().pairs, buffer.getValue().count));
+		return(new LineIndex(utils.NotNull.check(frames.toArray(new FrameModel[0])), files));
+	}
+	
+	/**
+	 * Find every entry of a source line: each is a frame id and a category, packed into one int (see
+	 * frameOf() and categoryOf()).
+	 *
+	 * @param file the file name (as in the local data)
+	 * @param line the line
+	 * @return the entries of the line, ordered by frame id (empty if no frame has the line)
+	 */
+	public int[] find(String file, int line){
+		final FileIndex index = this.files.get(file);
+		@SuppressWarnings("null") // nullness analysis mistakenly thinks Map.get returns nonnull
+		final boolean absent = index == null;
+		if(absent)
+			return(NO_ENTRIES);
+		
+		final int position = Arrays.binarySearch(index.lines, line);
+		if(position < 0)
+			return(NO_ENTRIES);
+		return(utils.NotNull.check(Arrays.copyOfRange(index.entries, index.starts[position], index.starts[position + 1])));
+	}
+	
+	/**
+	 * Find the stack frames with a source line in one category.
+	 *
+	 * @param file the file name (as in the local data)
+	 * @param line the line
+	 * @param category YES, NO, or MAYBE
+	 * @return the frames, in frame id order
+	 */
+	public List<FrameModel> findFrames(String file, int line, int category){
+		final int[] entries = this.find(file, line);
+		if(entries.length == 0)
+			return(utils.NotNull.check(Collections.emptyList()));
+		
+		List<FrameModel> result = new ArrayList<>();
+		for(int entry : entries){
+			if(categoryOf(entry) == category)
+				result.add(this.frames[frameOf(entry)]);
+		}
+		return(result);
+	}
+	
+	/**
+	 * Get the frame id of an entry.
+	 *
+	 * @param entry an entry returned by find()
+	 * @return the frame id (see getFrame())
+	 */
+	public static int frameOf(int entry){
+		return(entry >>> CATEGORY_BITS);
+	}
+	
+	/**
+	 * Get the category of an entry.
+	 *
+	 * @param entry an entry returned by find()
+	 * @return YES, NO, or MAYBE
+	 */
+	public static int categoryOf(int entry){
+		return(entry & CATEGORY_MASK);
+	}
+	
+	/**
+	 * Get an indexed stack frame.
+	 *
+	 * @param id the frame id
+	 * @return the frame
+	 * @throws IndexOutOfBoundsException if there is no such frame
+	 */
+	public FrameModel getFrame(int id) throws IndexOutOfBoundsException {
+		return(this.frames[id]);
+	}
+	
+	/**
+	 * Get the number of indexed stack frames.
+	 *
+	 * @return the number of frames
+	 */
+	public int getFrameCount(){
+		return(this.frames.length);
+	}
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * MappedTextFile memory-maps a text analysis file one window at a time, cutting each window at its last
+ * complete record, so that files of any size can be handed to the byte-level record parsers.
+ */
+final class MappedTextFile {
+	// the largest region of a file that is memory-mapped at once
+	private static final long MAX_MAPPED_WINDOW = 1L << 30;
+
+	/**
+	 * WindowHandler is an interface for parsing the complete records of one window of a file (mapped or
+	 * streamed).
+	 */
+	interface WindowHandler {
+		/**
+		 * Parse the records in [0, end) of a mapped window.
+		 *
+		 * @param window the window's bytes
+		 * @param position the offset in the file of the window's first byte
+		 * @param end one past the last byte of the window's last complete record
+		 * @throws AnalysisFormatException if any record is invalid
+		 */
+		public void handle(ByteBuffer window, long position, int end) throws AnalysisFormatException;
+	}
+
+	private MappedTextFile() {
+		// static class.  can't be instantiated
+	}
+
+	/**
+	 * Map the whole file, window by window, passing each window's complete records to "handler".
+	 *
+	 * @param path the path to the text analysis file
+	 * @param handler the parser for each window
+	 * @throws IOException if the file cannot be opened or mapped
+	 * @throws AnalysisFormatException if a record is invalid, or too large to fit in one window
+	 */
+	static void parse(String path, WindowHandler handler) throws IOException, AnalysisFormatException {
+		try(FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)){
+			final long size = channel.size();
+			long position = 0;
+			while(position < size){
+				final long windowSize = Math.min(size - position, MAX_MAPPED_WINDOW);
+				final MappedByteBuffer window = utils.NotNull.check(channel.map(MapMode.READ_ONLY, position, windowSize));
+				int end = (int)windowSize;
+				if(position + windowSize < size){
+					end = ByteRecordParser.lastRecordEnd(window, 0, end);
+					if(end < 0)
+						throw new AnalysisFormatException("Record too large in CSI Analysis Result File");
+				}
+
+				handler.handle(window, position, end);
+				position += end;
+			}
+		}
+	}
+}
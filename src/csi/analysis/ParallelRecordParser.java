@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * ParallelRecordParser parses one large buffer of text analysis records on a fork-join pool.  The buffer
+ * is recursively split at record (line) boundaries, each chunk is parsed by its own ByteRecordParser into
+ * its own AnalysisBuilder, and the partial results are merged strictly in file order.  Thus, the result
+ * (including which error is reported for a broken file) is exactly that of a sequential parse.
+ */
+final class ParallelRecordParser {
+	// chunks smaller than this are not worth splitting further
+	private static final int MIN_CHUNK_SIZE = 1 << 22;
+
+	/**
+	 * The result of parsing one chunk: either the built records or the first error in the chunk.
+	 */
+	private static final class ChunkResult {
+		private final AnalysisBuilder builder;
+		private final @Nullable Exception error;
+
+		private ChunkResult(AnalysisBuilder builder, @Nullable Exception error) {
+			this.builder = builder;
+			this.error = error;
+		}
+	}
+
+	private static final class ChunkTask extends RecursiveTask<ChunkResult> {
+		private static final long serialVersionUID = 1L;
+
+		private final ByteBuffer buffer;
+		private final Charset charset;
+		private final @Nullable ProgressReporter progress;
+		private final SymbolTable symbols;
+		private final int start;
+		private final int end;
+
+		private ChunkTask(ByteBuffer buffer, Charset charset, @Nullable ProgressReporter progress, SymbolTable symbols,
+				int start, int end) {
+			this.buffer = buffer;
+			this.charset = charset;
+			this.progress = progress;
+			this.symbols = symbols;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected ChunkResult compute() {
+			int split = -1;
+			if(end - start >= 2 * MIN_CHUNK_SIZE)
+				split = nextRecordStart(buffer, start + (end - start) / 2, end);
+			if(split < 0 || split >= end)
+				return(parseChunk());
+
+			ChunkTask later = new ChunkTask(buffer, charset, progress, symbols, split, end);
+			later.fork();
+			ChunkResult result = new ChunkTask(buffer, charset, progress, symbols, start, split).compute();
+			ChunkResult laterResult = later.join();
+
+			// an error in the earlier chunk comes first in the file, so it wins
+			if(result.error != null)
+				return(result);
+			else if(laterResult.error != null)
+				return(laterResult);
+
+			result.builder.append(laterResult.builder);
+			return(result);
+		}
+
+		private ChunkResult parseChunk() {
+			AnalysisBuilder builder = new AnalysisBuilder();
+			try{
+				// (each task reads through its own view of the shared buffer)
+				new ByteRecordParser(utils.NotNull.check(buffer.duplicate()), charset, progress, symbols).parse(start, end, builder);
+				return(new ChunkResult(builder, null));
+			}
+			catch(AnalysisFormatException | IllegalArgumentException e){
+				return(new ChunkResult(builder, e));
+			}
+		}
+	}
+
+	private ParallelRecordParser() {
+		// static class.  can't be instantiated
+	}
+
+	/**
+	 * Parse every record in [start, end) of the buffer in parallel, appending all records (in order) to
+	 * "builder".  "end" should fall on a record boundary (or the end of the data).
+	 *
+	 * @param buffer the bytes to parse
+	 * @param start the first byte to parse
+	 * @param end one past the last byte to parse
+	 * @param charset the character set of function and file names
+	 * @param progress the reporter for parsed bytes, or null to not report progress
+	 * @param symbols the table of canonical names for the load
+	 * @param builder the builder to receive the parsed records
+	 * @throws AnalysisFormatException if any record is invalid
+	 * @throws IllegalArgumentException if a coverage line is rejected by the data model
+	 * @throws OperationCanceledException if progress is reported and the load has been canceled
+	 */
+	static void parse(ByteBuffer buffer, int start, int end, Charset charset, @Nullable ProgressReporter progress,
+			SymbolTable symbols, AnalysisBuilder builder)
+					throws AnalysisFormatException, IllegalArgumentException, OperationCanceledException {
+		ChunkResult result = ForkJoinPool.commonPool().invoke(
+				new ChunkTask(buffer, charset, progress, symbols, start, end));
+
+		final Exception error = result.error;
+		if(error instanceof AnalysisFormatException)
+			throw (AnalysisFormatException)error;
+		else if(error instanceof IllegalArgumentException)
+			throw (IllegalArgumentException)error;
+
+		builder.append(result.builder);
+	}
+
+	/**
+	 * Find the start of the first record after "from".
+	 *
+	 * @return the index just past the first line separator in [from, end), or -1 if there is none
+	 */
+	private static int nextRecordStart(ByteBuffer buffer, int from, int end) {
+		for(int i = from; i < end; ++i){
+			if(ByteRecordParser.isLineSeparator(buffer.get(i)))
+				return(i + 1);
+		}
+		return(-1);
+	}
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * ProgressInputStream reports every byte read (or skipped) from an underlying stream to a ProgressReporter.
+ */
+final class ProgressInputStream extends FilterInputStream {
+	private final ProgressReporter progress;
+	
+	private ProgressInputStream(InputStream in, ProgressReporter progress) {
+		super(in);
+		this.progress = progress;
+	}
+	
+	/**
+	 * Wrap a stream so that its reads are reported, if there is anything to report to.
+	 *
+	 * @param in the stream to read
+	 * @param progress the reporter, or null to not report progress
+	 * @return the stream to read from
+	 */
+	static InputStream monitor(InputStream in, @Nullable ProgressReporter progress) {
+		if(progress == null)
+			return(in);
+		return(new ProgressInputStream(in, progress));
+	}
+	
+	@Override
+	public int read() throws IOException, OperationCanceledException {
+		final int b = super.read();
+		if(b >= 0)
+			progress.consumed(1);
+		return(b);
+	}
+	
+	@Override
+	public int read(byte @Nullable[] b, int off, int len) throws IOException, OperationCanceledException {
+		final int read = super.read(b, off, len);
+		if(read > 0)
+			progress.consumed(read);
+		return(read);
+	}
+	
+	@Override
+	public long skip(long n) throws IOException, OperationCanceledException {
+		final long skipped = super.skip(n);
+		if(skipped > 0)
+			progress.consumed(skipped);
+		return(skipped);
+	}
+	
+	@Override
+	public boolean markSupported() {
+		// (re-read bytes would be reported twice)
+		return(false);
+	}
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * ProgressReporter reports the bytes of an analysis file consumed by its parsers to a progress monitor,
+ * and checks the monitor for cancellation.  Parsers running in parallel may share one reporter.
+ */
+final class ProgressReporter {
+	// work is reported in kilobytes, so that files over 2GB still fit in an int amount of work
+	private static final int BYTES_PER_UNIT = 1 << 10;
+	
+	private final SubMonitor monitor;
+	private long consumed = 0;
+	private long reported = 0;
+	
+	/**
+	 * Start reporting the progress of reading a file.
+	 *
+	 * @param monitor the monitor to report to
+	 * @param taskName the name of the task to show
+	 * @param totalBytes the number of bytes that will be consumed in total
+	 */
+	ProgressReporter(IProgressMonitor monitor, String taskName, long totalBytes) {
+		final long units = (totalBytes + BYTES_PER_UNIT - 1) / BYTES_PER_UNIT;
+		this.monitor = utils.NotNull.check(SubMonitor.convert(monitor, taskName, (int)Math.min(units, Integer.MAX_VALUE)));
+	}
+	
+	/**
+	 * Report that more bytes were consumed.
+	 *
+	 * @param bytes the number of bytes consumed since the last report (from this parser)
+	 * @throws OperationCanceledException if the monitor has been canceled
+	 */
+	synchronized void consumed(long bytes) throws OperationCanceledException {
+		if(monitor.isCanceled())
+			throw new OperationCanceledException();
+		
+		consumed += bytes;
+		final long units = consumed / BYTES_PER_UNIT;
+		if(units > reported){
+			monitor.worked((int)(units - reported));
+			reported = units;
+		}
+	}
+	
+	/**
+	 * Finish reporting.
+	 */
+	synchronized void done() {
+		monitor.done();
+	}
+}
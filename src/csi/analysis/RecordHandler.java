@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+/**
+ * RecordHandler is an interface for consumers of already-split analysis records (e.g., model builders
+ * and format converters), so that every record parser can feed any of them.
+ */
+interface RecordHandler {
+	/**
+	 * Handle one analysis record.
+	 *
+	 * @param funcName the (non-empty) function name
+	 * @param funcFile the name of (or path to) the function's file
+	 * @param isLocal true for a local (stack frame) record, false for a global record
+	 * @param yesLines the "yes" lines of the record
+	 * @param noLines the "no" lines of the record
+	 * @param maybeLines the "maybe" lines of the record
+	 * @param pathLines the path trace of the record (ignored for global records)
+	 * @throws AnalysisFormatException if the record's data is invalid
+	 * @throws IllegalArgumentException if a coverage line is rejected by the data model
+	 */
+	public void addRecord(String funcName, String funcFile, boolean isLocal,
+			int[] yesLines, int[] noLines, int[] maybeLines, int[] pathLines)
+					throws AnalysisFormatException, IllegalArgumentException;
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * StreamedTextFile reads a text analysis file from a stream (e.g., while decompressing it) one window at
+ * a time, cutting each window at its last complete record, so that it can be handed to the same
+ * byte-level record parsers as a memory-mapped file (see MappedTextFile).
+ */
+final class StreamedTextFile {
+	// the initial window size; windows only grow to hold a single very long record
+	private static final int WINDOW_SIZE = 1 << 20;
+	
+	private StreamedTextFile() {
+		// static class.  can't be instantiated
+	}
+	
+	/**
+	 * Read the whole stream, window by window, passing each window's complete records to "handler".  The
+	 * window's bytes are reused after the handler returns.
+	 *
+	 * @param in the stream to read
+	 * @param handler the parser for each window
+	 * @throws IOException if the stream cannot be read
+	 * @throws AnalysisFormatException if a record is invalid
+	 */
+	static void parse(InputStream in, MappedTextFile.WindowHandler handler) throws IOException, AnalysisFormatException {
+		byte[] bytes = new byte[WINDOW_SIZE];
+		int filled = 0;
+		long position = 0;
+		boolean done = false;
+		while(!done){
+			final int read = in.read(bytes, filled, bytes.length - filled);
+			if(read < 0)
+				done = true;
+			else
+				filled += read;
+			if(!done && filled < bytes.length)
+				continue;
+			
+			final ByteBuffer window = utils.NotNull.check(ByteBuffer.wrap(bytes));
+			int end = filled;
+			if(!done){
+				end = ByteRecordParser.lastRecordEnd(window, 0, filled);
+				if(end < 0){
+					// (one record fills the whole window; make room for the rest of it)
+					if(bytes.length > Integer.MAX_VALUE / 2)
+						throw new AnalysisFormatException("Record too large in CSI Analysis Result File");
+					byte[] grown = new byte[bytes.length * 2];
+					System.arraycopy(bytes, 0, grown, 0, filled);
+					bytes = grown;
+					continue;
+				}
+			}
+			
+			handler.handle(window, position, end);
+			System.arraycopy(bytes, end, bytes, 0, filled - end);
+			filled -= end;
+			position += end;
+		}
+	}
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.analysis;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * SymbolTable canonicalizes function names and file paths, so that all models for the same function or
+ * file share one String instance.  One table serves a whole load, or every load of a batch (see
+ * AnalysisBatch), so that equal names in different analysis files are shared as well.  A SymbolTable may
+ * be shared by parsers running in parallel.
+ */
+final class SymbolTable {
+	private final ConcurrentHashMap<String, String> functions = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, String> files = new ConcurrentHashMap<>();
+	
+	/**
+	 * Get the canonical instance of a function name.
+	 *
+	 * @param name the function name
+	 * @return the canonical String equal to "name"
+	 */
+	String function(String name) {
+		return(intern(functions, name));
+	}
+	
+	/**
+	 * Get the canonical instance of a file path.
+	 *
+	 * @param path the file path
+	 * @return the canonical String equal to "path"
+	 */
+	String file(String path) {
+		return(intern(files, path));
+	}
+	
+	private static String intern(ConcurrentHashMap<String, String> canonical, String s) {
+		final String existing = canonical.putIfAbsent(s, s);
+		return(existing == null ? s : existing);
+	}
+	
+	/**
+	 * Create a decoder for names stored as bytes.  Each decoder remembers the names it decoded recently,
+	 * so that repeated names are neither decoded nor looked up again.  Decoders must not be shared
+	 * between threads.
+	 *
+	 * @param charset the character set of the names
+	 * @return a new decoder
+	 */
+	Decoder newDecoder(Charset charset) {
+		return(new Decoder(this, charset));
+	}
+	
+	/**
+	 * Decoder decodes and canonicalizes names straight from a byte buffer.
+	 */
+	static final class Decoder {
+		// the number of recent names remembered, for each kind of name (a power of two)
+		private static final int CACHE_SIZE = 256;
+		
+		private final SymbolTable symbols;
+		private final Charset charset;
+		private final byte[] @Nullable[] functionKeys = new byte[CACHE_SIZE][];
+		private final @Nullable String[] functionValues = new String[CACHE_SIZE];
+		private final byte[] @Nullable[] fileKeys = new byte[CACHE_SIZE][];
+		private final @Nullable String[] fileValues = new String[CACHE_SIZE];
+		
+		private Decoder(SymbolTable symbols, Charset charset) {
+			this.symbols = symbols;
+			this.charset = charset;
+		}
+		
+		/**
+		 * Decode the canonical function name stored in [start, end) of a buffer.
+		 */
+		String function(ByteBuffer buffer, int start, int end) {
+			return(decode(buffer, start, end, functionKeys, functionValues, false));
+		}
+		
+		/**
+		 * Decode the canonical file path stored in [start, end) of a buffer.
+		 */
+		String file(ByteBuffer buffer, int start, int end) {
+			return(decode(buffer, start, end, fileKeys, fileValues, true));
+		}
+		
+		private String decode(ByteBuffer buffer, int start, int end, byte[] @Nullable[] keys,
+				@Nullable String[] values, boolean isFile) {
+			int hash = 0;
+			for(int i = start; i < end; ++i)
+				hash = 31 * hash + buffer.get(i);
+			final int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+			
+			final byte[] key = keys[slot];
+			final String value = values[slot];
+			if(key != null && value != null && matches(buffer, start, end, key))
+				return(value);
+			
+			final byte[] bytes = new byte[end - start];
+			for(int i = 0; i < bytes.length; ++i)
+				bytes[i] = buffer.get(start + i);
+			final String decoded = new String(bytes, charset);
+			final String canonical = isFile ? symbols.file(decoded) : symbols.function(decoded);
+			keys[slot] = bytes;
+			values[slot] = canonical;
+			return(canonical);
+		}
+		
+		private static boolean matches(ByteBuffer buffer, int start, int end, byte[] key) {
+			if(key.length != end - start)
+				return(false);
+			for(int i = 0; i < key.length; ++i){
+				if(buffer.get(start + i) != key[i])
+					return(false);
+			}
+			return(true);
+		}
+	}
+}
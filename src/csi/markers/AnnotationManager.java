@@ -0,0 +1,446 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csi.markers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+
+import utils.IntervalSet;
+import utils.LineSet;
+import csi.Messages;
+import csi.analysis.AnalysisDiff;
+import csi.models.CoverageClassification;
+import csi.workspace.MissingFileException;
+import csi.workspace.WorkspaceManager;
+
+/**
+ * AnnotationManager manages the annotations (yes/no/maybe coverage, path trace arrows, and comparison
+ * results) that a CSIclipse instance shows in source files.  It is always in the context of a particular
+ * WorkspaceManager object.  Annotations are identified by the marker types declared in plugin.xml (which
+ * also declares how each type looks); subclasses decide how the annotations are attached to files (see
+ * MarkerManager and EditorAnnotationManager).
+ */
+public abstract class AnnotationManager {
+
+	/**
+	 * The global CSI annotation types (see also plugin.xml)
+	 */
+	public static String[] globalAnnotationTypes = {"csi.global.yesMarker", "csi.global.noMarker",
+		"csi.global.maybeMarker", "csi.global.otherMarker"};
+	/**
+	 * The local CSI annotation types (see also plugin.xml)
+	 */
+	@SuppressWarnings("null") // "@NonNull" below is mistakenly flagged as redundant
+	public static final @NonNull String[] localAnnotationTypes = {"csi.yesMarker", "csi.noMarker",
+		"csi.maybeMarker", "csi.otherMarker", "csi.path.currentMarker", "csi.path.nextMarker"};
+	/**
+	 * The CSI comparison (diff) annotation types (see also plugin.xml)
+	 */
+	@SuppressWarnings("null") // "@NonNull" below is mistakenly flagged as redundant
+	public static final @NonNull String[] diffAnnotationTypes = {"csi.diff.newMarker", "csi.diff.goneMarker",
+		"csi.diff.resolvedMarker"};
+	
+	// the marker type suffixes and messages of the categories of a coverage classification (see categorize())
+	private static final String[] CATEGORY_MARKER_SUFFIXES = {".yesMarker", ".noMarker", ".maybeMarker",
+		".otherMarker", ".otherMarker", ".otherMarker", ".otherMarker"};
+	private static final String[] CATEGORY_MESSAGES = {": Line completely executed", ": Line not executed",
+		": Line may have been executed", ": Line partially executed; remainder of line maybe executed",
+		": Line partially unexecuted; remainder of line maybe executed",
+		": Line partially executed; line partially unexecuted",
+		": Line partially executed, unexecuted, and maybe executed"};
+	
+	/**
+	 * A receiver of the runs of lines that get one annotation each (see forEachAnnotation()).
+	 *
+	 * @param <E> the type of exception thrown when creating an annotation
+	 */
+	protected interface AnnotationRunConsumer<E extends Exception> {
+		/**
+		 * Create one annotation.
+		 *
+		 * @param first the first line of the annotation
+		 * @param last the last line of the annotation (the same as "first" for a single-line annotation)
+		 * @param message the tooltip text of the annotation
+		 * @throws E if the annotation cannot be created
+		 */
+		public void accept(int first, int last, String message) throws E;
+	}
+	
+	private final WorkspaceManager workspaceManager;
+	private volatile boolean rangeMarkers;
+	
+	/**
+	 * Construct a new AnnotationManager object with the specified WorkspaceManager context.
+	 *
+	 * @param workspaceManager the WorkspaceManager context for annotation cleaning and creation
+	 */
+	protected AnnotationManager(WorkspaceManager workspaceManager) {
+		this.workspaceManager = workspaceManager;
+		this.rangeMarkers = false;
+	}
+	
+	/**
+	 * Set whether annotations placed from now on combine runs of consecutive lines (with the same tooltip
+	 * text) into one annotation spanning all of their text.  This greatly reduces the number of annotations
+	 * for large data (e.g., one annotation rather than hundreds for a fully-executed function), at the cost of
+	 * marking text ranges rather than whole lines.  Existing annotations are not changed.
+	 *
+	 * @param rangeMarkers true to combine consecutive lines, or false for one annotation per line
+	 */
+	public void setRangeMarkers(boolean rangeMarkers){
+		this.rangeMarkers = rangeMarkers;
+	}
+	
+	/**
+	 * Check whether annotations combine runs of consecutive lines (see setRangeMarkers()).
+	 *
+	 * @return true if consecutive lines are combined into one annotation
+	 */
+	public boolean isRangeMarkers(){
+		return(rangeMarkers);
+	}
+	
+	/**
+	 * Make a group of annotation changes at once, so that they are reported (e.g., to the editors) together
+	 * at the end, rather than one at a time.  Nested calls simply join the outermost group.
+	 *
+	 * @param changes the annotation changes (e.g., placing or clearing the annotations of many files)
+	 */
+	public abstract void runBatched(Runnable changes);
+	
+	/**
+	 * Release everything held by this manager (e.g., listeners).  Callers should clear all annotations
+	 * first; the manager should not be used afterward.
+	 */
+	public void dispose(){
+		// (nothing to release by default)
+	}
+	
+	/**
+	 * Delete all annotations of the specified types from the specified file.
+	 *
+	 * @param file the file from which to clear annotations
+	 * @param types the types of annotations to clear
+	 */
+	public void clearMarkers(IFile file, @NonNull String[] types){
+		runBatched(() -> {
+			for(String type : types){
+				clearMarkers(file, type);
+			}
+		});
+	}
+	
+	/**
+	 * Delete all annotations of the specified types from the specified file (given as a String path).
+	 *
+	 * @param file the file (as a String) from which to clear annotations
+	 * @param types the types of annotations to clear
+	 * @throws MissingFileException if the file cannot be found as a full path or in the current workspace
+	 */
+	public void clearMarkers(String file, @NonNull String[] types) throws MissingFileException {
+		IFile theFile = workspaceManager.findFileInWorkspace(file);
+		
+		// TODO: update this after further refactoring.  findFileInWorkspace() will eventually be
+		// non-nullable and return all problems as exceptions
+		if(theFile == null){
+			// a serious error occurred while searching for the file.
+			// An error should already be printed in the callee
+			return;
+		}
+		
+		clearMarkers(theFile, types);
+	}
+	
+	/**
+	 * Delete all annotations of the specified types from all files in the specified workspace folder.
+	 *
+	 * @param container the workspace folder object
+	 * @param types the types of annotations to clear
+	 */
+	public void clearMarkers(IContainer container, String[] types){
+		runBatched(() -> clearContainerMarkers(container, types));
+	}
+	
+	private void clearContainerMarkers(IContainer container, String[] types){
+		IResource[] members;
+		try{
+			members = container.members();
+		}
+		catch(CoreException e){
+			showErrorMessage("Unexpected fault searching through project");
+			e.printStackTrace();
+			return;
+		}
+		
+		for(IResource member : members){
+			switch(member.getType()){
+			case IResource.FOLDER:
+				clearContainerMarkers((IContainer)member, types);
+				break;
+			case IResource.FILE:
+				clearMarkers((IFile)member, types);
+				break;
+			default:
+				showErrorMessage("Unexpected resource type while searching project");
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Delete all annotations of the specified type from the specified file.
+	 *
+	 * @param file the file from which to clear annotations
+	 * @param markerType the type of annotations to clear
+	 */
+	public abstract void clearMarkers(IFile file, String markerType);
+	
+	/**
+	 * Delete the annotations of the specified type starting on the specified lines from the specified file.
+	 *
+	 * @param file the file from which to clear annotations
+	 * @param markerType the type of annotations to clear
+	 * @param lines the lines whose annotations to clear
+	 */
+	public abstract void clearMarkers(IFile file, String markerType, IntervalSet lines);
+	
+	/**
+	 * Add annotations to the specified lines in the specified file.  The annotations will be of the
+	 * specified markerType (see plugin.xml for the types we declare), with the specified markerMessage
+	 * (which shows up as a tooltip for the annotation).
+	 *
+	 * @param file the file in which to create annotations
+	 * @param lines the lines of file on which to create annotations
+	 * @param markerType the type of annotation (see plugin.xml)
+	 * @param markerMessage the tooltip text for the annotation
+	 */
+	public void setMarkers(IFile file, LineSet lines, String markerType, String markerMessage){
+		setMarkers(file, IntervalSet.fromLines(lines), markerType, markerMessage);
+	}
+	
+	/**
+	 * Add annotations to every line of the specified runs of lines in the specified file (see
+	 * setMarkers(IFile, LineSet, String, String)).
+	 *
+	 * @param file the file in which to create annotations
+	 * @param ranges the runs of lines of file on which to create annotations
+	 * @param markerType the type of annotation (see plugin.xml)
+	 * @param markerMessage the tooltip text for the annotation
+	 */
+	public void setMarkers(IFile file, IntervalSet ranges, String markerType, String markerMessage){
+		setMarkers(file, ranges, markerType, markerMessage, null);
+	}
+	
+	/**
+	 * Add annotations to every line of the specified runs of lines in the specified file, with extra
+	 * tooltip text for individual lines.  In range mode (see setRangeMarkers()), consecutive lines with
+	 * the same tooltip text share one annotation.
+	 *
+	 * @param file the file in which to create annotations
+	 * @param ranges the runs of lines of file on which to create annotations
+	 * @param markerType the type of annotation (see plugin.xml)
+	 * @param markerMessage the tooltip text for the annotation
+	 * @param lineDetails the extra tooltip text (appended on its own line) for each line, or null for none
+	 */
+	public abstract void setMarkers(IFile file, IntervalSet ranges, String markerType, String markerMessage,
+			@Nullable IntFunction<@Nullable String> lineDetails);
+	
+	/**
+	 * Split runs of lines into the annotations that setMarkers() should create: one per line or, if
+	 * "combineLimit" allows, one per run of consecutive lines with the same tooltip text.
+	 *
+	 * @param ranges the runs of lines to annotate
+	 * @param markerMessage the tooltip text for the annotations
+	 * @param lineDetails the extra tooltip text for each line, or null for none
+	 * @param combineLimit the last line that may be combined with the line before it (e.g., the number of
+	 *                     lines in the file), or 0 for one annotation per line
+	 * @param consumer the receiver of each annotation, in order
+	 * @throws E if the consumer fails
+	 */
+	protected static <E extends Exception> void forEachAnnotation(IntervalSet ranges, String markerMessage,
+			@Nullable IntFunction<@Nullable String> lineDetails, int combineLimit,
+			AnnotationRunConsumer<E> consumer) throws E {
+		for(int run = 0; run < ranges.getRunCount(); ++run){
+			final long end = ranges.getEnd(run);
+			long first = ranges.getStart(run);
+			String message = lineMessage(markerMessage, lineDetails, (int)first);
+			while(first <= end){
+				// extend the annotation over the following lines with the same message (if allowed)
+				long last = first;
+				@Nullable String nextMessage = null;
+				while(first >= 1 && last < end && last < combineLimit){
+					nextMessage = lineMessage(markerMessage, lineDetails, (int)(last + 1));
+					if(!nextMessage.equals(message))
+						break;
+					++last;
+					nextMessage = null;
+				}
+				
+				consumer.accept((int)first, (int)last, message);
+				
+				first = last + 1;
+				if(nextMessage != null)
+					message = nextMessage;
+				else if(first <= end)
+					message = lineMessage(markerMessage, lineDetails, (int)first);
+			}
+		}
+	}
+	
+	private static String lineMessage(String markerMessage, @Nullable IntFunction<@Nullable String> lineDetails,
+			int line){
+		if(lineDetails == null)
+			return(markerMessage);
+		final String details = lineDetails.apply(line);
+		if(details == null)
+			return(markerMessage);
+		return(markerMessage + System.lineSeparator() + details);
+	}
+	
+	/**
+	 * Place appropriate markers/annotations on the file specified based on the classification of its
+	 * exeYes/No/Maybe data.
+	 * As a side note: users of markers through StackBrowserView should NOT call this function directly, and
+	 * instead use doFileMarkers[Local/Global].
+	 *
+	 * @param theFile file in which to create markers
+	 * @param markerPrefix a "local" or "global" prefix. (See plugin.xml; currently,
+	 *                     the local prefix is "csi" and the global prefix is "csi.global".)
+	 * @param labelPrefix a prefix for the marker message (e.g., "Local" or "Global")
+	 * @param lines the classified yes/no/maybe lines from theFile (see CodeModel.getClassification())
+	 */
+	public void doFileMarkers(IFile theFile, String markerPrefix, String labelPrefix, CoverageClassification lines){
+		doFileMarkers(theFile, markerPrefix, labelPrefix, lines, null);
+	}
+	
+	/**
+	 * Place appropriate markers/annotations on the file specified based on the classification of its
+	 * exeYes/No/Maybe data, with extra tooltip text for individual lines (see
+	 * doFileMarkers(IFile, String, String, CoverageClassification)).
+	 *
+	 * @param theFile file in which to create markers
+	 * @param markerPrefix a "local" or "global" prefix
+	 * @param labelPrefix a prefix for the marker message (e.g., "Local" or "Global")
+	 * @param lines the classified yes/no/maybe lines from theFile (see CodeModel.getClassification())
+	 * @param lineDetails the extra tooltip text for each line, or null for none
+	 */
+	public void doFileMarkers(IFile theFile, String markerPrefix, String labelPrefix, CoverageClassification lines,
+			@Nullable IntFunction<@Nullable String> lineDetails){
+		final IntervalSet[] categories = categorize(lines);
+		runBatched(() -> {
+			for(int category = 0; category < categories.length; ++category){
+				setMarkers(theFile, categories[category], markerPrefix + CATEGORY_MARKER_SUFFIXES[category],
+						labelPrefix + CATEGORY_MESSAGES[category], lineDetails);
+			}
+		});
+	}
+	
+	/**
+	 * Change the markers placed on a file by doFileMarkers() for one classification into those for another
+	 * classification, deleting and creating only the markers of lines whose classification changed.  (In
+	 * range mode, see setRangeMarkers(), markers span many lines, so all markers of each changed marker
+	 * type are replaced instead.)  The existing markers must have been placed with the same prefixes, line
+	 * details, and range mode, and the file must not have changed since.
+	 *
+	 * @param theFile file in which to update markers
+	 * @param markerPrefix a "local" or "global" prefix (see doFileMarkers())
+	 * @param labelPrefix a prefix for the marker message (e.g., "Local" or "Global")
+	 * @param before the classification that the file's markers currently show
+	 * @param after the classification that the file's markers should show
+	 * @param lineDetails the extra tooltip text (appended on its own line) for each line, or null for none
+	 */
+	public void updateFileMarkers(IFile theFile, String markerPrefix, String labelPrefix,
+			CoverageClassification before, CoverageClassification after,
+			@Nullable IntFunction<@Nullable String> lineDetails){
+		final IntervalSet[] oldCategories = categorize(before);
+		final IntervalSet[] newCategories = categorize(after);
+		final boolean replaceTypes = rangeMarkers;
+		
+		runBatched(() -> {
+			// first, delete the markers of lines leaving each category (by marker type: the categories
+			// sharing a type never share a line)
+			Map<String, IntervalSet> removedByType = new HashMap<>();
+			for(int category = 0; category < oldCategories.length; ++category){
+				final IntervalSet removed = oldCategories[category].difference(newCategories[category]);
+				final boolean unchanged = removed.isEmpty() &&
+						(!replaceTypes || oldCategories[category].equals(newCategories[category]));
+				if(!unchanged)
+					removedByType.merge(CATEGORY_MARKER_SUFFIXES[category], removed, IntervalSet::union);
+			}
+			for(Map.Entry<String, IntervalSet> entry : removedByType.entrySet()){
+				final String markerType = markerPrefix + entry.getKey();
+				if(replaceTypes)
+					clearMarkers(theFile, markerType);
+				else
+					clearMarkers(theFile, markerType, utils.NotNull.check(entry.getValue()));
+			}
+			
+			// then, create the markers of lines entering each category
+			for(int category = 0; category < newCategories.length; ++category){
+				final IntervalSet added;
+				if(replaceTypes && removedByType.containsKey(CATEGORY_MARKER_SUFFIXES[category]))
+					added = newCategories[category];
+				else
+					added = newCategories[category].difference(oldCategories[category]);
+				setMarkers(theFile, added, markerPrefix + CATEGORY_MARKER_SUFFIXES[category],
+						labelPrefix + CATEGORY_MESSAGES[category], lineDetails);
+			}
+		});
+	}
+	
+	/**
+	 * Split a classification into its categories, in the order of CATEGORY_MARKER_SUFFIXES.
+	 */
+	private static IntervalSet[] categorize(CoverageClassification lines){
+		return(new IntervalSet[] {lines.getYes(), lines.getNo(), lines.getMaybe(), lines.getYesAndMaybe(),
+				lines.getNoAndMaybe(), lines.getYesAndNo(), lines.getAllThree()});
+	}
+	
+	/**
+	 * Place comparison markers/annotations on the file specified: one marker type each for lines newly
+	 * executed, no longer executed, and resolved from "maybe" to "yes" (see AnalysisDiff).
+	 *
+	 * @param theFile file in which to create markers
+	 * @param diff the comparison of theFile's data
+	 */
+	public void doDiffMarkers(IFile theFile, AnalysisDiff.LineDiff diff){
+		runBatched(() -> {
+			setMarkers(theFile, diff.getNewlyExecuted(), "csi.diff.newMarker", "Diff: Line newly executed");
+			setMarkers(theFile, diff.getNoLongerExecuted(), "csi.diff.goneMarker", "Diff: Line no longer executed");
+			setMarkers(theFile, diff.getResolved(), "csi.diff.resolvedMarker", "Diff: Line maybe executed before; now executed");
+		});
+	}
+	
+	/**
+	 * A wrapper to show error dialogs without specifying the shell context.
+	 *
+	 * @param message the error message to display
+	 */
+	protected void showErrorMessage(String message){
+		Messages.showErrorMessage(this.workspaceManager.getShell(), message);
+	}
+
+}
@@ -0,0 +1,456 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csi.markers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.IAnnotationModel;
+import org.eclipse.jface.text.source.IAnnotationModelExtension;
+import org.eclipse.ui.IEditorInput;
+import org.eclipse.ui.IEditorReference;
+import org.eclipse.ui.IPartListener2;
+import org.eclipse.ui.IWindowListener;
+import org.eclipse.ui.IWorkbench;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchPart;
+import org.eclipse.ui.IWorkbenchPartReference;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PartInitException;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.part.FileEditorInput;
+import org.eclipse.ui.texteditor.IDocumentProvider;
+import org.eclipse.ui.texteditor.ITextEditor;
+
+import utils.IntervalSet;
+import csi.workspace.WorkspaceManager;
+
+/**
+ * EditorAnnotationManager shows the annotations of a CSIclipse instance directly in the annotation models
+ * of open text editors, rather than as workspace markers.  They look the same (each marker type in
+ * plugin.xml has an annotation type of the same name, but ending in "Annotation" rather than "Marker"),
+ * but they are never saved, cause no resource change notifications, and cost nothing in files that are not
+ * open.  The annotations of every file are kept here, and attached to an editor's annotation model
+ * whenever an editor on the file is opened (in any workbench window).
+ * All methods must be called from the UI thread.
+ */
+public class EditorAnnotationManager extends AnnotationManager {
+	private static final String MARKER_SUFFIX = "Marker";
+	private static final String ANNOTATION_SUFFIX = "Annotation";
+	
+	/**
+	 * One annotation, with the marker type and lines it stands for.
+	 */
+	private static final class LineAnnotation extends Annotation {
+		private final String markerType;
+		private final int firstLine;
+		private final int lastLine;
+		
+		private LineAnnotation(String markerType, int firstLine, int lastLine, String message) {
+			super(annotationType(markerType), false, message);
+			this.markerType = markerType;
+			this.firstLine = firstLine;
+			this.lastLine = lastLine;
+		}
+	}
+	
+	/**
+	 * The annotations of one file, and those of them currently attached to an editor's annotation model.
+	 */
+	private static final class FileAnnotations {
+		// (in order of creation)
+		private final Set<LineAnnotation> annotations = new LinkedHashSet<>();
+		private final Set<LineAnnotation> attached = new HashSet<>();
+		private @Nullable IAnnotationModel attachedModel;
+	}
+	
+	private final Map<IFile, FileAnnotations> files;
+	// the files whose annotations changed in the current batch (see runBatched())
+	private final Set<IFile> changedFiles;
+	private int batchDepth;
+	private final IWorkbench workbench;
+	// the windows whose editors are listened to (every open window)
+	private final Set<IWorkbenchWindow> windows;
+	private final IPartListener2 editorListener;
+	private final IWindowListener windowListener;
+	
+	/**
+	 * Construct a new EditorAnnotationManager object with the specified WorkspaceManager context.  (This
+	 * listens for editors being opened in every workbench window, including windows opened later, until
+	 * dispose().)
+	 *
+	 * @param workspaceManager the WorkspaceManager context for annotation cleaning and creation
+	 */
+	public EditorAnnotationManager(WorkspaceManager workspaceManager) {
+		super(workspaceManager);
+		this.files = new HashMap<>();
+		this.changedFiles = new LinkedHashSet<>();
+		this.batchDepth = 0;
+		this.workbench = utils.NotNull.check(PlatformUI.getWorkbench());
+		this.windows = new HashSet<>();
+		this.editorListener = new EditorListener();
+		this.windowListener = new WindowListener();
+		
+		for(IWorkbenchWindow window : this.workbench.getWorkbenchWindows())
+			this.listenTo(utils.NotNull.check(window));
+		this.workbench.addWindowListener(this.windowListener);
+	}
+	
+	private void listenTo(IWorkbenchWindow window){
+		if(this.windows.add(window))
+			window.getPartService().addPartListener(this.editorListener);
+	}
+	
+	private void stopListeningTo(IWorkbenchWindow window){
+		if(this.windows.remove(window))
+			window.getPartService().removePartListener(this.editorListener);
+	}
+	
+	/**
+	 * Listens for editors in each workbench window as it opens.
+	 */
+	private class WindowListener implements IWindowListener {
+		@Override
+		public void windowOpened(@Nullable IWorkbenchWindow window){
+			if(window != null)
+				listenTo(window);
+		}
+		
+		@Override
+		public void windowClosed(@Nullable IWorkbenchWindow window){
+			// (the window's editors closed with it; the next update of each file notices)
+			if(window != null)
+				stopListeningTo(window);
+		}
+		
+		@Override
+		public void windowActivated(@Nullable IWorkbenchWindow window){
+		}
+		
+		@Override
+		public void windowDeactivated(@Nullable IWorkbenchWindow window){
+		}
+	}
+	
+	/**
+	 * Attaches the annotations of each file to the editors opened on it.
+	 */
+	private class EditorListener implements IPartListener2 {
+		@Override
+		public void partOpened(@Nullable IWorkbenchPartReference partRef){
+			final IFile file = editorFile(partRef);
+			if(file != null && files.containsKey(file))
+				runBatched(() -> changedFiles.add(file));
+		}
+		
+		@Override
+		public void partInputChanged(@Nullable IWorkbenchPartReference partRef){
+			// (the editor now shows another file: bring every file up to date with its model)
+			runBatched(() -> changedFiles.addAll(files.keySet()));
+		}
+		
+		@Override
+		public void partClosed(@Nullable IWorkbenchPartReference partRef){
+			// (nothing to do: the next update of the file notices that its editor is gone)
+		}
+		
+		@Override
+		public void partActivated(@Nullable IWorkbenchPartReference partRef){
+		}
+		
+		@Override
+		public void partBroughtToTop(@Nullable IWorkbenchPartReference partRef){
+		}
+		
+		@Override
+		public void partDeactivated(@Nullable IWorkbenchPartReference partRef){
+		}
+		
+		@Override
+		public void partHidden(@Nullable IWorkbenchPartReference partRef){
+		}
+		
+		@Override
+		public void partVisible(@Nullable IWorkbenchPartReference partRef){
+		}
+		
+		private @Nullable IFile editorFile(@Nullable IWorkbenchPartReference partRef){
+			if(partRef == null)
+				return(null);
+			final IWorkbenchPart part = partRef.getPart(false);
+			if(!(part instanceof ITextEditor))
+				return(null);
+			final IEditorInput input = ((ITextEditor)part).getEditorInput();
+			if(!(input instanceof FileEditorInput))
+				return(null);
+			return(((FileEditorInput)input).getFile());
+		}
+	}
+	
+	/**
+	 * Make a group of annotation changes at once.  Each editor is updated once, at the end of the
+	 * outermost group.
+	 */
+	@Override
+	public void runBatched(Runnable changes){
+		++batchDepth;
+		try{
+			changes.run();
+		}
+		finally{
+			if(--batchDepth == 0){
+				for(IFile file : changedFiles)
+					updateEditor(file);
+				changedFiles.clear();
+			}
+		}
+	}
+	
+	/**
+	 * Remove all annotations from the editors, and stop listening for editors.
+	 */
+	@Override
+	public void dispose(){
+		runBatched(() -> {
+			for(Map.Entry<IFile, FileAnnotations> entry : files.entrySet()){
+				entry.getValue().annotations.clear();
+				changedFiles.add(utils.NotNull.check(entry.getKey()));
+			}
+		});
+		
+		workbench.removeWindowListener(windowListener);
+		for(IWorkbenchWindow window : new ArrayList<>(windows))
+			stopListeningTo(utils.NotNull.check(window));
+	}
+	
+	@Override
+	public void clearMarkers(IContainer container, String[] types){
+		// (only files with annotations matter, so there is no need to search the container)
+		final List<IFile> contained = new ArrayList<>();
+		for(IFile file : files.keySet()){
+			if(container.getFullPath().isPrefixOf(file.getFullPath()))
+				contained.add(file);
+		}
+		
+		runBatched(() -> {
+			for(IFile file : contained)
+				clearMarkers(utils.NotNull.check(file), types);
+		});
+	}
+	
+	@Override
+	public void clearMarkers(IFile file, String markerType){
+		removeAnnotations(file, annotation -> annotation.markerType.equals(markerType));
+	}
+	
+	@Override
+	public void clearMarkers(IFile file, String markerType, IntervalSet lines){
+		removeAnnotations(file, annotation -> annotation.markerType.equals(markerType) &&
+				lines.contains(annotation.firstLine));
+	}
+	
+	@Override
+	public void setMarkers(IFile file, IntervalSet ranges, String markerType, String markerMessage,
+			@Nullable IntFunction<@Nullable String> lineDetails){
+		if(ranges.isEmpty())
+			return;
+		
+		runBatched(() -> {
+			FileAnnotations fileAnnotations = files.get(file);
+			@SuppressWarnings("null") // nullness analysis mistakenly thinks Map.get returns nonnull
+			final boolean absent = fileAnnotations == null;
+			if(absent){
+				fileAnnotations = new FileAnnotations();
+				files.put(file, fileAnnotations);
+			}
+			
+			// (the annotations are positioned when they are attached, so combined runs of lines are
+			// only limited to the document then)
+			final Set<LineAnnotation> annotations = fileAnnotations.annotations;
+			forEachAnnotation(ranges, markerMessage, lineDetails, isRangeMarkers() ? Integer.MAX_VALUE : 0,
+					(first, last, message) -> annotations.add(new LineAnnotation(markerType, first, last, message)));
+			changedFiles.add(file);
+		});
+	}
+	
+	private void removeAnnotations(IFile file, Predicate<LineAnnotation> filter){
+		final FileAnnotations fileAnnotations = files.get(file);
+		@SuppressWarnings("null") // nullness analysis mistakenly thinks Map.get returns nonnull
+		final boolean absent = fileAnnotations == null;
+		if(absent)
+			return;
+		
+		runBatched(() -> {
+			if(fileAnnotations.annotations.removeIf(filter))
+				changedFiles.add(file);
+		});
+	}
+	
+	/**
+	 * Bring the annotations attached to the editor of a file (if it is open) up to date.
+	 *
+	 * @param file the file whose annotations changed
+	 */
+	private void updateEditor(IFile file){
+		final FileAnnotations fileAnnotations = files.get(file);
+		@SuppressWarnings("null") // nullness analysis mistakenly thinks Map.get returns nonnull
+		final boolean absent = fileAnnotations == null;
+		if(absent)
+			return;
+		
+		// find the annotation model (and document) of an open editor on the file
+		IAnnotationModel model = null;
+		IDocument document = null;
+		final ITextEditor editor = findEditor(file);
+		if(editor != null){
+			final IDocumentProvider provider = editor.getDocumentProvider();
+			if(provider != null){
+				model = provider.getAnnotationModel(editor.getEditorInput());
+				document = provider.getDocument(editor.getEditorInput());
+			}
+		}
+		
+		// if the editor was closed (or replaced), its annotations went with its model
+		final IAnnotationModel previousModel = fileAnnotations.attachedModel;
+		if(previousModel != null && previousModel != model){
+			for(Annotation annotation : fileAnnotations.attached)
+				previousModel.removeAnnotation(annotation);
+		}
+		if(model != previousModel)
+			fileAnnotations.attached.clear();
+		fileAnnotations.attachedModel = model;
+		
+		if(model != null && document != null){
+			final List<Annotation> removed = new ArrayList<>();
+			for(Iterator<LineAnnotation> i = fileAnnotations.attached.iterator(); i.hasNext();){
+				final LineAnnotation annotation = i.next();
+				if(!fileAnnotations.annotations.contains(annotation)){
+					removed.add(annotation);
+					i.remove();
+				}
+			}
+			final Map<Annotation, Position> added = new HashMap<>();
+			for(LineAnnotation annotation : fileAnnotations.annotations){
+				if(fileAnnotations.attached.contains(annotation))
+					continue;
+				final Position position = linePosition(document, annotation.firstLine, annotation.lastLine);
+				if(position != null){
+					added.put(annotation, position);
+					fileAnnotations.attached.add(annotation);
+				}
+			}
+			
+			// (all at once, so the editor repaints once)
+			if(model instanceof IAnnotationModelExtension)
+				((IAnnotationModelExtension)model).replaceAnnotations(removed.toArray(new Annotation[0]), added);
+			else{
+				for(Annotation annotation : removed)
+					model.removeAnnotation(annotation);
+				for(Map.Entry<Annotation, Position> entry : added.entrySet())
+					model.addAnnotation(entry.getKey(), entry.getValue());
+			}
+		}
+		
+		if(fileAnnotations.annotations.isEmpty() && fileAnnotations.attached.isEmpty())
+			files.remove(file);
+	}
+	
+	/**
+	 * Find an open text editor on a file, in any page of any workbench window.  (All text editors on a
+	 * file share its annotation model, so any one of them will do.)
+	 *
+	 * @param file the file
+	 * @return an editor showing the file, or null if there is none
+	 */
+	private @Nullable ITextEditor findEditor(IFile file){
+		for(IWorkbenchWindow window : workbench.getWorkbenchWindows()){
+			for(IWorkbenchPage page : window.getPages()){
+				final ITextEditor editor = findEditor(utils.NotNull.check(page), file);
+				if(editor != null)
+					return(editor);
+			}
+		}
+		return(null);
+	}
+	
+	private static @Nullable ITextEditor findEditor(IWorkbenchPage page, IFile file){
+		for(IEditorReference reference : page.getEditorReferences()){
+			try{
+				final IEditorInput input = reference.getEditorInput();
+				if(!(input instanceof FileEditorInput) || !file.equals(((FileEditorInput)input).getFile()))
+					continue;
+			}
+			catch(PartInitException e){
+				continue;
+			}
+			
+			// (without restoring editors that have not been shown yet: they are handled once opened)
+			final IWorkbenchPart editor = reference.getEditor(false);
+			if(editor instanceof ITextEditor)
+				return((ITextEditor)editor);
+		}
+		return(null);
+	}
+	
+	/**
+	 * Get the position of the text of a run of lines in a document.
+	 *
+	 * @param document the document
+	 * @param firstLine the first line (1-based)
+	 * @param lastLine the last line; lines past the end of the document are ignored
+	 * @return the position covering the lines, or null if the first line is not in the document
+	 */
+	private static @Nullable Position linePosition(IDocument document, int firstLine, int lastLine){
+		try{
+			final int last = Math.min(lastLine, document.getNumberOfLines());
+			final int start = document.getLineOffset(firstLine - 1);
+			final int end = document.getLineOffset(last - 1) + document.getLineInformation(last - 1).getLength();
+			return(new Position(start, end - start));
+		}
+		catch(BadLocationException e){
+			return(null);
+		}
+	}
+	
+	/**
+	 * Get the annotation type that shows a marker type (see plugin.xml).
+	 *
+	 * @param markerType the marker type (e.g., "csi.yesMarker")
+	 * @return the annotation type (e.g., "csi.yesAnnotation")
+	 */
+	private static String annotationType(String markerType){
+		if(!markerType.endsWith(MARKER_SUFFIX))
+			return(markerType);
+		return(markerType.substring(0, markerType.length() - MARKER_SUFFIX.length()) + ANNOTATION_SUFFIX);
+	}
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csi.markers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+
+import utils.IntList;
+
+/**
+ * LineOffsets is a table of the character offsets of the lines of a workspace file, as needed for markers
+ * that span a range of characters (IMarker.CHAR_START and IMarker.CHAR_END) rather than one line.  Lines end
+ * at "\n", "\r", or "\r\n", as in Eclipse text documents, which also leave out a leading byte order mark.
+ * A table is a snapshot of the file as of one modification stamp (see isCurrent()).
+ */
+final class LineOffsets {
+	private static final int BYTE_ORDER_MARK = '\uFEFF';
+	
+	private final long modificationStamp;
+	// (the offsets of the first character of each line, and of the character just after the line's text)
+	private final int[] lineStarts;
+	private final int[] lineEnds;
+	
+	private LineOffsets(long modificationStamp, int[] lineStarts, int[] lineEnds) {
+		this.modificationStamp = modificationStamp;
+		this.lineStarts = lineStarts;
+		this.lineEnds = lineEnds;
+	}
+	
+	/**
+	 * Read the current contents of a file, and build the table of its line offsets.
+	 *
+	 * @param file the file
+	 * @return the line offsets of the file
+	 * @throws CoreException if the file contents or character set cannot be accessed
+	 * @throws IOException if reading the file contents fails
+	 */
+	static LineOffsets read(IFile file) throws CoreException, IOException {
+		// (take the stamp first: if the file changes while we read, the table is simply never current)
+		final long stamp = file.getModificationStamp();
+		IntList starts = new IntList();
+		IntList ends = new IntList();
+		
+		try(InputStream contents = file.getContents();
+				BufferedReader reader = new BufferedReader(new InputStreamReader(contents, file.getCharset()))){
+			// (a byte order mark is not part of the document's text, so it takes up no offset)
+			reader.mark(1);
+			if(reader.read() != BYTE_ORDER_MARK)
+				reader.reset();
+			
+			final char[] buffer = new char[8192];
+			int offset = 0;
+			// (a '\r' ends a line, but whether the next line starts after it depends on the next character)
+			boolean afterCR = false;
+			starts.add(0);
+			for(int count = reader.read(buffer); count >= 0; count = reader.read(buffer)){
+				for(int i = 0; i < count; ++i, ++offset){
+					final char c = buffer[i];
+					if(afterCR){
+						starts.add(c == '\n' ? offset + 1 : offset);
+						afterCR = false;
+						if(c == '\n')
+							continue;
+					}
+					
+					if(c == '\n'){
+						ends.add(offset);
+						starts.add(offset + 1);
+					}
+					else if(c == '\r'){
+						ends.add(offset);
+						afterCR = true;
+					}
+				}
+			}
+			if(afterCR)
+				starts.add(offset);
+			ends.add(offset);
+		}
+		
+		return(new LineOffsets(stamp, starts.toArray(), ends.toArray()));
+	}
+	
+	/**
+	 * Check whether this table still describes a file (i.e., the file has not changed since it was read).
+	 *
+	 * @param file the file this table was read from
+	 * @return true if the table is still accurate for the file
+	 */
+	boolean isCurrent(IFile file){
+		return(file.getModificationStamp() == modificationStamp);
+	}
+	
+	/**
+	 * Get the number of lines in the file.  (A file ending with a line separator has an empty last line.)
+	 *
+	 * @return the number of lines
+	 */
+	int getLineCount(){
+		return(lineStarts.length);
+	}
+	
+	/**
+	 * Get the offset of the first character of a line.
+	 *
+	 * @param line the line (1-based)
+	 * @return the character offset of the start of the line
+	 * @throws IndexOutOfBoundsException if the line does not exist
+	 */
+	int getLineStart(int line) throws IndexOutOfBoundsException {
+		return(lineStarts[line - 1]);
+	}
+	
+	/**
+	 * Get the offset just past the last character of a line (not counting its line separator).
+	 *
+	 * @param line the line (1-based)
+	 * @return the character offset of the end of the line
+	 * @throws IndexOutOfBoundsException if the line does not exist
+	 */
+	int getLineEnd(int line) throws IndexOutOfBoundsException {
+		return(lineEnds[line - 1]);
+	}
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * BatchModel is the tree root model for several analysis results shown together (e.g., a directory of
+ * crash reports).  Each report keeps its own RootModel (with its own stack frames) as a child.
+ */
+public class BatchModel implements LocalModel {
+	private final List<RootModel> reports = new ArrayList<>();
+	
+	/**
+	 * Add the local data of one report to the batch.
+	 * NOTE: order of insertion matters.
+	 *
+	 * @param child the report's local data model
+	 * @throws ModelException if the report is already part of another batch
+	 */
+	public void addReport(RootModel child) throws ModelException {
+		// could re-throw ModelException
+		child.setParent(this);
+		
+		reports.add(child);
+	}
+
+	@Override
+	public @Nullable LocalModel getParent() {
+		return(null);
+	}
+
+	@Override
+	public boolean hasChildren() {
+		return (reports.size() > 0);
+	}
+
+	@Override
+	public RootModel[] getChildren() {
+		return utils.NotNull.check(reports.toArray(new RootModel[0]));
+	}
+}
@@ -1,147 +1,327 @@
-/**
- * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
- * 
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- * 
- *     http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package csi.models;
-
-import java.util.HashSet;
-import java.util.Set;
-
-/**
- * CodeModel is an abstract base class for all local and global data models that represent
- * executed or unexecuted code.  Thus, it provides the normal functionality for creating, storing,
- * and updating yes/no/maybe data at a file level.
- */
-public abstract class CodeModel {
-	private final String file;
-	private final Set<Integer> exeYes = new HashSet<>();
-	private final Set<Integer> exeNo = new HashSet<>();
-	private final Set<Integer> exeMaybe = new HashSet<>();
-	
-	/**
-	 * The constructor only requires the file name for the data model.  (Yes/No/Maybe lines
-	 * are added via the appropriate "add" method.)
-	 * 
-	 * @param file the file represented by the data model
-	 */
-	public CodeModel(String file){
-		this.file = file;
-	}
-	
-	/**
-	 * Add a line to the "yes" set.
-	 * 
-	 * @param line the line to add
-	 * @throws IllegalArgumentException if the line number is less than zero
-	 */
-	public void addYesLine(int line) throws IllegalArgumentException {
-		if(line < 1)
-			throw new IllegalArgumentException("Invalid negative line '" + line + "'");
-		// TODO: also check for conflicts
-		this.exeYes.add(line);
-	}
-	
-	/**
-	 * Add a line to the "no" set.
-	 * 
-	 * @param line the line to add
-	 * @throws IllegalArgumentException if the line number is less than zero
-	 */
-	public void addNoLine(int line) throws IllegalArgumentException {
-		if(line < 1)
-			throw new IllegalArgumentException("Invalid negative line '" + line + "'");
-		// TODO: also check for conflicts
-		this.exeNo.add(line);
-	}
-	
-	/**
-	 * Add a line to the "maybe" set.
-	 * 
-	 * @param line the line to add
-	 * @throws IllegalArgumentException if the line number is less than zero
-	 */
-	public void addMaybeLine(int line) throws IllegalArgumentException {
-		if(line < 1)
-			throw new IllegalArgumentException("Invalid negative line '" + line + "'");
-		// TODO: also check for conflicts
-		this.exeMaybe.add(line);
-	}
-	
-	/**
-	 * Get the file for the model.
-	 * 
-	 * @return the file
-	 */
-	public String getFile(){
-		return(this.file);
-	}
-	
-	/**
-	 * Get the size of the "yes" set.
-	 * 
-	 * @return the size of the set
-	 */
-	public int getExeYesSize(){
-		return(this.exeYes.size());
-	}
-	
-	/**
-	 * Get the size of the "no" set.
-	 * 
-	 * @return the size of the set
-	 */
-	public int getExeNoSize(){
-		return(this.exeNo.size());
-	}
-	
-	/**
-	 * Get the size of the "maybe" set.
-	 * 
-	 * @return the size of the set
-	 */
-	public int getExeMaybeSize(){
-		return(this.exeMaybe.size());
-	}
-	
-	/**
-	 * Get a copy of the "yes" set.  This is not a cheap operation.  If you just need the size
-	 * of the set, use getExeYesSize().
-	 * 
-	 * @return a copy of the set
-	 */
-	public Set<Integer> getExeYes(){
-		return(new HashSet<>(this.exeYes));
-	}
-	
-	/**
-	 * Get a copy of the "no" set.  This is not a cheap operation.  If you just need the size
-	 * of the set, use getExeNoSize().
-	 * 
-	 * @return a copy of the set
-	 */
-	public Set<Integer> getExeNo(){
-		return(new HashSet<>(this.exeNo));
-	}
-	
-	/**
-	 * Get a copy of the "maybe" set.  This is not a cheap operation.  If you just need the size
-	 * of the set, use getExeMaybeSize().
-	 * 
-	 * @return a copy of the set
-	 */
-	public Set<Integer> getExeMaybe(){
-		return(new HashSet<>(this.exeMaybe));
-	}
-}
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.models;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import utils.IntervalSet;
+import utils.LineSet;
+
+/**
+ * CodeModel is an abstract base class for all local and global data models that represent
+ * executed or unexecuted code.  Thus, it provides the normal functionality for creating, storing,
+ * and updating yes/no/maybe data at a file level.  Lines are kept in compressed primitive sets (see
+ * LineSet), since a model may hold a very large number of them.
+ * Once a model is completely built, it should be frozen (see freeze()).  From then on, its line sets can
+ * be handed out without copying, and any attempt to change them throws IllegalStateException.
+ * Each set is also available as runs of consecutive lines (see IntervalSet), which are much more compact
+ * for typical coverage data; for a frozen model, these are computed once and cached.  (The cached forms
+ * are volatile, so a frozen model may be read from any thread.)
+ * Lines may be added to more than one of the sets; such conflicts are found in bulk when the model is
+ * frozen (see getConflicts()), rather than as each line is added.
+ */
+public abstract class CodeModel {
+	private final String file;
+	private final LineSet exeYes = new LineSet();
+	private final LineSet exeNo = new LineSet();
+	private final LineSet exeMaybe = new LineSet();
+	private volatile boolean frozen = false;
+	
+	// the run (interval) forms of the line sets, cached once frozen
+	private volatile @Nullable IntervalSet yesRanges = null;
+	private volatile @Nullable IntervalSet noRanges = null;
+	private volatile @Nullable IntervalSet maybeRanges = null;
+	// the yes/no/maybe classification of all lines, cached once frozen
+	private volatile @Nullable CoverageClassification classification = null;
+	// the lines in more than one set, found once frozen
+	private volatile @Nullable ConflictSummary conflicts = null;
+	
+	/**
+	 * The constructor only requires the file name for the data model.  (Yes/No/Maybe lines
+	 * are added via the appropriate "add" method.)
+	 *
+	 * @param file the file represented by the data model
+	 */
+	public CodeModel(String file){
+		this.file = file;
+	}
+	
+	/**
+	 * Add a line to the "yes" set.
+	 *
+	 * @param line the line to add
+	 * @throws IllegalArgumentException if the line number is less than zero
+	 * @throws IllegalStateException if the model is frozen
+	 */
+	public void addYesLine(int line) throws IllegalArgumentException, IllegalStateException {
+		this.ensureLoaded();
+		this.checkMutable();
+		if(line < 1)
+			throw new IllegalArgumentException("Invalid negative line '" + line + "'");
+		this.exeYes.add(line);
+	}
+	
+	/**
+	 * Add a line to the "no" set.
+	 *
+	 * @param line the line to add
+	 * @throws IllegalArgumentException if the line number is less than zero
+	 * @throws IllegalStateException if the model is frozen
+	 */
+	public void addNoLine(int line) throws IllegalArgumentException, IllegalStateException {
+		this.ensureLoaded();
+		this.checkMutable();
+		if(line < 1)
+			throw new IllegalArgumentException("Invalid negative line '" + line + "'");
+		this.exeNo.add(line);
+	}
+	
+	/**
+	 * Add a line to the "maybe" set.
+	 *
+	 * @param line the line to add
+	 * @throws IllegalArgumentException if the line number is less than zero
+	 * @throws IllegalStateException if the model is frozen
+	 */
+	public void addMaybeLine(int line) throws IllegalArgumentException, IllegalStateException {
+		this.ensureLoaded();
+		this.checkMutable();
+		if(line < 1)
+			throw new IllegalArgumentException("Invalid negative line '" + line + "'");
+		this.exeMaybe.add(line);
+	}
+	
+	/**
+	 * Add all "yes", "no", and "maybe" lines of another model to this model's sets.
+	 *
+	 * @param other the model whose lines to add
+	 * @throws IllegalStateException if this model is frozen
+	 */
+	public void addAllLines(CodeModel other) throws IllegalStateException {
+		this.ensureLoaded();
+		other.ensureLoaded();
+		this.checkMutable();
+		this.exeYes.addAll(other.exeYes);
+		this.exeNo.addAll(other.exeNo);
+		this.exeMaybe.addAll(other.exeMaybe);
+	}
+	
+	/**
+	 * Freeze the model: its line sets become read-only, and are no longer copied by getExeYes(),
+	 * getExeNo(), and getExeMaybe().  A frozen model can never be unfrozen.  The now-complete sets are
+	 * also checked for conflicts (see getConflicts()).
+	 */
+	public void freeze(){
+		this.freeze(true);
+	}
+	
+	/**
+	 * Freeze the model (see freeze()), optionally without checking it for conflicts yet: e.g., for models
+	 * whose conflicts are reported as part of a larger model.  getConflicts() still finds the conflicts of
+	 * such a model the first time they are needed.
+	 *
+	 * @param findConflicts whether to check the now-complete sets for conflicts
+	 */
+	protected void freeze(boolean findConflicts){
+		this.exeYes.freeze();
+		this.exeNo.freeze();
+		this.exeMaybe.freeze();
+		if(findConflicts)
+			this.conflicts = ConflictSummary.analyze(this.exeYes, this.exeNo, this.exeMaybe);
+		// (set last, so that any thread that sees the model frozen also sees its frozen sets)
+		this.frozen = true;
+	}
+	
+	/**
+	 * Return whether the model is frozen.
+	 *
+	 * @return true if the model's line sets are read-only
+	 */
+	public boolean isFrozen(){
+		return(this.frozen);
+	}
+	
+	private void checkMutable() throws IllegalStateException {
+		if(this.frozen)
+			throw new IllegalStateException("Attempt to modify a frozen model for file " + this.file);
+	}
+	
+	/**
+	 * Make sure the yes/no/maybe sets are present before they are used.  Models whose data is loaded
+	 * on demand override this to load it; by default, all data is always present.
+	 */
+	protected void ensureLoaded(){
+		// nothing to load
+	}
+	
+	/**
+	 * Get the file for the model.
+	 *
+	 * @return the file
+	 */
+	public String getFile(){
+		return(this.file);
+	}
+	
+	/**
+	 * Get the size of the "yes" set.
+	 *
+	 * @return the size of the set
+	 */
+	public int getExeYesSize(){
+		this.ensureLoaded();
+		return(this.exeYes.size());
+	}
+	
+	/**
+	 * Get the size of the "no" set.
+	 *
+	 * @return the size of the set
+	 */
+	public int getExeNoSize(){
+		this.ensureLoaded();
+		return(this.exeNo.size());
+	}
+	
+	/**
+	 * Get the size of the "maybe" set.
+	 *
+	 * @return the size of the set
+	 */
+	public int getExeMaybeSize(){
+		this.ensureLoaded();
+		return(this.exeMaybe.size());
+	}
+	
+	/**
+	 * Get the "yes" set.  For a frozen model, this is the model's own (read-only) set.  Otherwise,
+	 * it is a copy, which is not a cheap operation.  If you just need the size of the set, use
+	 * getExeYesSize().
+	 *
+	 * @return the set (or a copy of it)
+	 */
+	public LineSet getExeYes(){
+		this.ensureLoaded();
+		return(this.frozen ? this.exeYes : new LineSet(this.exeYes));
+	}
+	
+	/**
+	 * Get the "no" set.  For a frozen model, this is the model's own (read-only) set.  Otherwise,
+	 * it is a copy, which is not a cheap operation.  If you just need the size of the set, use
+	 * getExeNoSize().
+	 *
+	 * @return the set (or a copy of it)
+	 */
+	public LineSet getExeNo(){
+		this.ensureLoaded();
+		return(this.frozen ? this.exeNo : new LineSet(this.exeNo));
+	}
+	
+	/**
+	 * Get the "maybe" set.  For a frozen model, this is the model's own (read-only) set.  Otherwise,
+	 * it is a copy, which is not a cheap operation.  If you just need the size of the set, use
+	 * getExeMaybeSize().
+	 *
+	 * @return the set (or a copy of it)
+	 */
+	public LineSet getExeMaybe(){
+		this.ensureLoaded();
+		return(this.frozen ? this.exeMaybe : new LineSet(this.exeMaybe));
+	}
+	
+	/**
+	 * Get the "yes" set as runs of consecutive lines.
+	 *
+	 * @return the runs of "yes" lines
+	 */
+	public IntervalSet getExeYesRanges(){
+		this.ensureLoaded();
+		IntervalSet ranges = this.yesRanges;
+		if(ranges == null){
+			ranges = IntervalSet.fromLines(this.exeYes);
+			if(this.frozen)
+				this.yesRanges = ranges;
+		}
+		return(ranges);
+	}
+	
+	/**
+	 * Get the "no" set as runs of consecutive lines.
+	 *
+	 * @return the runs of "no" lines
+	 */
+	public IntervalSet getExeNoRanges(){
+		this.ensureLoaded();
+		IntervalSet ranges = this.noRanges;
+		if(ranges == null){
+			ranges = IntervalSet.fromLines(this.exeNo);
+			if(this.frozen)
+				this.noRanges = ranges;
+		}
+		return(ranges);
+	}
+	
+	/**
+	 * Get the "maybe" set as runs of consecutive lines.
+	 *
+	 * @return the runs of "maybe" lines
+	 */
+	public IntervalSet getExeMaybeRanges(){
+		this.ensureLoaded();
+		IntervalSet ranges = this.maybeRanges;
+		if(ranges == null){
+			ranges = IntervalSet.fromLines(this.exeMaybe);
+			if(this.frozen)
+				this.maybeRanges = ranges;
+		}
+		return(ranges);
+	}
+	
+	/**
+	 * Get the classification of this model's lines into the seven combinations of "yes", "no", and
+	 * "maybe" (see CoverageClassification).  For a frozen model, this is computed once and cached.
+	 *
+	 * @return the classification of all lines of the model
+	 */
+	public CoverageClassification getClassification(){
+		this.ensureLoaded();
+		CoverageClassification result = this.classification;
+		if(result == null){
+			result = CoverageClassification.classify(this.exeYes, this.exeNo, this.exeMaybe);
+			if(this.frozen)
+				this.classification = result;
+		}
+		return(result);
+	}
+	
+	/**
+	 * Get the summary of lines in more than one of this model's "yes", "no", and "maybe" sets.  For a
+	 * frozen model, this was computed when it was frozen.
+	 *
+	 * @return the summary of conflicting lines
+	 */
+	public ConflictSummary getConflicts(){
+		this.ensureLoaded();
+		ConflictSummary result = this.conflicts;
+		if(result == null){
+			result = ConflictSummary.analyze(this.exeYes, this.exeNo, this.exeMaybe);
+			if(this.frozen)
+				this.conflicts = result;
+		}
+		return(result);
+	}
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.models;
+
+import utils.LineSet;
+
+/**
+ * ConflictSummary counts the lines of a model that are in more than one of its "yes", "no", and "maybe"
+ * sets.  Such lines are not rejected as they are added (checking each insert would slow loading down
+ * considerably); instead, the whole model is checked at once, with bitmap intersections of its sets (see
+ * CodeModel.getConflicts()).
+ */
+public final class ConflictSummary {
+	private long yesAndNo = 0;
+	private long yesAndMaybe = 0;
+	private long noAndMaybe = 0;
+	private long allThree = 0;
+	private int firstConflict = -1;
+	
+	private ConflictSummary() {
+		// (only built by analyze())
+	}
+	
+	/**
+	 * Find the conflicting lines of three line sets, in a single pass over their 64-line bitmap words.
+	 *
+	 * @param exeYes the "yes" lines
+	 * @param exeNo the "no" lines
+	 * @param exeMaybe the "maybe" lines
+	 * @return the summary of lines in more than one of the sets
+	 */
+	public static ConflictSummary analyze(LineSet exeYes, LineSet exeNo, LineSet exeMaybe){
+		final ConflictSummary summary = new ConflictSummary();
+		LineSet.forEachWord(exeYes, exeNo, exeMaybe, summary::count);
+		return(summary);
+	}
+	
+	private void count(int base, long y, long n, long m){
+		final long conflicts = (y & n) | (y & m) | (n & m);
+		if(conflicts == 0)
+			return;
+		
+		this.yesAndNo += Long.bitCount(y & n & ~m);
+		this.yesAndMaybe += Long.bitCount(y & m & ~n);
+		this.noAndMaybe += Long.bitCount(n & m & ~y);
+		this.allThree += Long.bitCount(y & n & m);
+		// (words arrive in ascending order, so the first conflicting word holds the first conflict)
+		if(this.firstConflict < 0)
+			this.firstConflict = base + Long.numberOfTrailingZeros(conflicts);
+	}
+	
+	/**
+	 * Return whether any line is in more than one set.
+	 *
+	 * @return true if there is at least one conflicting line
+	 */
+	public boolean hasConflicts(){
+		return(this.firstConflict >= 0);
+	}
+	
+	/**
+	 * Get the number of lines in more than one set.
+	 *
+	 * @return the number of conflicting lines
+	 */
+	public long getConflictCount(){
+		return(this.yesAndNo + this.yesAndMaybe + this.noAndMaybe + this.allThree);
+	}
+	
+	/**
+	 * Get the number of lines that are "yes" and "no", but not "maybe".
+	 *
+	 * @return the number of such lines
+	 */
+	public long getYesAndNoCount(){
+		return(this.yesAndNo);
+	}
+	
+	/**
+	 * Get the number of lines that are "yes" and "maybe", but not "no".
+	 *
+	 * @return the number of such lines
+	 */
+	public long getYesAndMaybeCount(){
+		return(this.yesAndMaybe);
+	}
+	
+	/**
+	 * Get the number of lines that are "no" and "maybe", but not "yes".
+	 *
+	 * @return the number of such lines
+	 */
+	public long getNoAndMaybeCount(){
+		return(this.noAndMaybe);
+	}
+	
+	/**
+	 * Get the number of lines that are "yes", "no", and "maybe".
+	 *
+	 * @return the number of such lines
+	 */
+	public long getAllThreeCount(){
+		return(this.allThree);
+	}
+	
+	/**
+	 * Get the first line in more than one set.
+	 *
+	 * @return the smallest conflicting line, or -1 if there are no conflicts
+	 */
+	public int getFirstConflictLine(){
+		return(this.firstConflict);
+	}
+	
+	@Override
+	public String toString(){
+		if(!this.hasConflicts())
+			return("no conflicts");
+		return(this.getConflictCount() + " conflicting lines, starting at line " + this.firstConflict +
+				" (yes/no: " + this.yesAndNo + ", yes/maybe: " + this.yesAndMaybe + ", no/maybe: " + this.noAndMaybe +
+				", all three: " + this.allThree + ")");
+	}
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.models;
+
+import utils.IntervalSet;
+import utils.LineSet;
+
+/**
+ * CoverageClassification splits the lines of a model into the seven disjoint combinations of its "yes",
+ * "no", and "maybe" sets (e.g., lines that are only "yes", or lines that are both "yes" and "maybe"), as
+ * runs of lines.  Markers are placed per combination (see MarkerManager.doFileMarkers()).
+ */
+public final class CoverageClassification {
+	private final IntervalSet yes;
+	private final IntervalSet no;
+	private final IntervalSet maybe;
+	private final IntervalSet yesAndMaybe;
+	private final IntervalSet noAndMaybe;
+	private final IntervalSet yesAndNo;
+	private final IntervalSet allThree;
+	
+	private CoverageClassification(IntervalSet.Builder[] builders) {
+		this.yes = builders[0].build();
+		this.no = builders[1].build();
+		this.maybe = builders[2].build();
+		this.yesAndMaybe = builders[3].build();
+		this.noAndMaybe = builders[4].build();
+		this.yesAndNo = builders[5].build();
+		this.allThree = builders[6].build();
+	}
+	
+	/**
+	 * Classify the lines of three line sets, in a single pass over their 64-line bitmap words.
+	 *
+	 * @param exeYes the "yes" lines
+	 * @param exeNo the "no" lines
+	 * @param exeMaybe the "maybe" lines
+	 * @return the classification of every line in any of the sets
+	 */
+	public static CoverageClassification classify(LineSet exeYes, LineSet exeNo, LineSet exeMaybe){
+		final IntervalSet.Builder[] builders = new IntervalSet.Builder[7];
+		for(int i = 0; i < builders.length; ++i)
+			builders[i] = new IntervalSet.Builder();
+		
+		LineSet.forEachWord(exeYes, exeNo, exeMaybe, (base, y, n, m) -> {
+			builders[0].addBits(base, y & ~n & ~m);
+			builders[1].addBits(base, n & ~y & ~m);
+			builders[2].addBits(base, m & ~y & ~n);
+			builders[3].addBits(base, y & m & ~n);
+			builders[4].addBits(base, n & m & ~y);
+			builders[5].addBits(base, y & n & ~m);
+			builders[6].addBits(base, y & n & m);
+		});
+		return(new CoverageClassification(builders));
+	}
+	
+	/**
+	 * Get the lines that are only "yes".
+	 *
+	 * @return the runs of lines completely executed
+	 */
+	public IntervalSet getYes(){
+		return(yes);
+	}
+	
+	/**
+	 * Get the lines that are only "no".
+	 *
+	 * @return the runs of lines not executed
+	 */
+	public IntervalSet getNo(){
+		return(no);
+	}
+	
+	/**
+	 * Get the lines that are only "maybe".
+	 *
+	 * @return the runs of lines that may have been executed
+	 */
+	public IntervalSet getMaybe(){
+		return(maybe);
+	}
+	
+	/**
+	 * Get the lines that are "yes" and "maybe", but not "no".
+	 *
+	 * @return the runs of lines partially executed and partially maybe executed
+	 */
+	public IntervalSet getYesAndMaybe(){
+		return(yesAndMaybe);
+	}
+	
+	/**
+	 * Get the lines that are "no" and "maybe", but not "yes".
+	 *
+	 * @return the runs of lines partially unexecuted and partially maybe executed
+	 */
+	public IntervalSet getNoAndMaybe(){
+		return(noAndMaybe);
+	}
+	
+	/**
+	 * Get the lines that are "yes" and "no", but not "maybe".
+	 *
+	 * @return the runs of lines partially executed and partially unexecuted
+	 */
+	public IntervalSet getYesAndNo(){
+		return(yesAndNo);
+	}
+	
+	/**
+	 * Get the lines that are "yes", "no", and "maybe".
+	 *
+	 * @return the runs of lines partially executed, unexecuted, and maybe executed
+	 */
+	public IntervalSet getAllThree(){
+		return(allThree);
+	}
+}
@@ -1,38 +1,153 @@
-/**
- * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
- * 
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- * 
- *     http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package csi.models;
-
-/**
- * FileModel is a CodeModel for global analysis data at the file level.
- */
-public class FileModel extends CodeModel {
-	
-	/**
-	 * The constructor only requires the file name for the data model.  (Yes/No/Maybe lines
-	 * are added via the appropriate "add" method.)
-	 * 
-	 * @param file the file represented by the data model
-	 */
-	public FileModel(String file){
-		super(file);
-	}
-	
-	@Override
-	public String toString(){
-		return(this.getFile());
-	}
-}
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.models;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * FileModel is a CodeModel for global analysis data at the file level.  Its children are the
+ * FunctionModels of the functions in the file, each with its own coverage sets.  The file's own sets
+ * are the union of its functions' sets.  They are derived once, when the file is frozen (see freeze()),
+ * so that each line is only stored once while the data is being built; until then, they are incomplete.
+ */
+public class FileModel extends CodeModel {
+	// (in order of first appearance)
+	private final Map<String, FunctionModel> functions = new LinkedHashMap<>();
+	
+	// the number of functions with any "yes" line, cached once frozen
+	private int executedFunctions = -1;
+	
+	/**
+	 * The constructor only requires the file name for the data model.  (Yes/No/Maybe lines
+	 * are added via the appropriate "add" method.)
+	 *
+	 * @param file the file represented by the data model
+	 */
+	public FileModel(String file){
+		super(file);
+	}
+	
+	/**
+	 * Get the model of a function in the file, adding an empty one if the function is not yet present.
+	 *
+	 * @param name the name of the function
+	 * @return the function's model
+	 * @throws IllegalStateException if the function is not present and the model is frozen
+	 */
+	public FunctionModel getFunction(String name) throws IllegalStateException {
+		FunctionModel function = this.functions.get(name);
+		@SuppressWarnings("null") // nullness analysis mistakenly thinks Map.get returns nonnull
+		final boolean absent = function == null;
+		if(absent){
+			if(this.isFrozen())
+				throw new IllegalStateException("Attempt to modify a frozen model for file " + this.getFile());
+			function = new FunctionModel(name, this.getFile());
+			this.functions.put(name, function);
+		}
+		return(function);
+	}
+	
+	/**
+	 * Get the models of all functions in the file.
+	 *
+	 * @return the function models, in order of first appearance
+	 */
+	public FunctionModel[] getFunctions(){
+		return(utils.NotNull.check(this.functions.values().toArray(new FunctionModel[0])));
+	}
+	
+	/**
+	 * Return whether the file has any function models.
+	 *
+	 * @return true if the file has at least one function
+	 */
+	public boolean hasFunctions(){
+		return(!this.functions.isEmpty());
+	}
+	
+	/**
+	 * Get the number of functions in the file.
+	 *
+	 * @return the number of function models
+	 */
+	public int getFunctionCount(){
+		return(this.functions.size());
+	}
+	
+	/**
+	 * Get the number of functions in the file with at least one "yes" line.
+	 *
+	 * @return the number of executed functions
+	 */
+	public int getExecutedFunctionCount(){
+		if(this.executedFunctions >= 0)
+			return(this.executedFunctions);
+		
+		int count = 0;
+		for(FunctionModel function : this.functions.values()){
+			if(function.getExeYesSize() > 0)
+				++count;
+		}
+		if(this.isFrozen())
+			this.executedFunctions = count;
+		return(count);
+	}
+	
+	/**
+	 * Add all "yes", "no", and "maybe" lines of another model to this model's sets.  If the other model
+	 * is also a FileModel, its functions' lines are merged into this file's functions instead (from which
+	 * this file's own sets are derived when it is frozen).
+	 *
+	 * @param other the model whose lines to add
+	 * @throws IllegalStateException if this model is frozen
+	 */
+	@Override
+	public void addAllLines(CodeModel other) throws IllegalStateException {
+		if(!(other instanceof FileModel)){
+			super.addAllLines(other);
+			return;
+		}
+		
+		if(this.isFrozen())
+			throw new IllegalStateException("Attempt to modify a frozen model for file " + this.getFile());
+		for(FunctionModel otherFunction : ((FileModel)other).functions.values())
+			this.getFunction(otherFunction.getName()).addAllLines(otherFunction);
+	}
+	
+	/**
+	 * Freeze the model and all of its functions, deriving the file's own sets (and counts) from its
+	 * functions' sets.  Conflicts are only checked for the file as a whole.
+	 */
+	@Override
+	public void freeze(){
+		if(this.isFrozen())
+			return;
+		
+		for(FunctionModel function : this.functions.values()){
+			super.addAllLines(function);
+			function.freeze(false);
+		}
+		super.freeze();
+		this.executedFunctions = this.getExecutedFunctionCount();
+	}
+	
+	@Override
+	public String toString(){
+		return(this.getFile());
+	}
+}
@@ -0,0 +1,31 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.models;
+
+/**
+ * FrameLoader is an interface for loading the coverage and path data of a FrameModel on demand
+ * (see FrameModel.materialize()).
+ */
+public interface FrameLoader {
+	/**
+	 * Load all coverage and path data for a frame, using the frame's normal "add" methods.
+	 *
+	 * @param frame the frame to fill in
+	 * @throws ModelException if the data cannot be loaded
+	 */
+	public void load(FrameModel frame) throws ModelException;
+}
@@ -1,92 +1,324 @@
-/**
- * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
- * 
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- * 
- *     http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package csi.models;
-
-import java.util.ArrayList;
-import java.util.List;
-
-import org.eclipse.jdt.annotation.Nullable;
-
-/**
- * FrameModel is the local-data variant of the FunctionModel data model.  The key differences are
- * that FrameModels:
- * (1) have a root tree model as a parent, and
- * (2) have path trace data.
- */
-public class FrameModel extends FunctionModel implements LocalModel {
-	private @Nullable RootModel parent = null;
-	private final List<LineModel> path = new ArrayList<>();
-	
-	/**
-	 * Construct a FrameModel from function and file names.
-	 * 
-	 * @param name the name of the frame's function
-	 * @param file the name of (or path to) the containing file
-	 */
-	public FrameModel(String name, String file){
-		super(name, file);
-	}
-	
-	/**
-	 * Add a line to the frame's path trace.
-	 * 
-	 * @param child the data model for the added line entry
-	 * @throws ModelException if the child is already part of another frame's path trace
-	 */
-	public void addChild(LineModel child) throws ModelException {
-		// could re-throw ModelException
-		child.setFrame(this);
-		
-		path.add(child);
-	}
-	
-	/**
-	 * Set the parent (RootModel) of this stack frame.
-	 * NOTE: Users should *not* call this function directly.  It will cause problems.
-	 *       Use RootModel.addFrame() instead.
-	 * 
-	 * @param parent the tree root parent model
-	 * @throws ModelException if this frame is already part of another root model's tree
-	 * @throws IllegalArgumentException if parent is null
-	 */
-	void setParent(RootModel parent) throws ModelException, IllegalArgumentException {
-		if(this.parent != null)
-			throw new ModelException("Attempt to add frame to multiple root models");
-		
-		this.parent = parent;
-	}
-
-	@Override
-	public boolean hasChildren() {
-		return(this.path.size() > 0);
-	}
-
-	@Override
-	public LineModel[] getChildren() {
-		return utils.NotNull.check(this.path.toArray(new LineModel[0]));
-	}
-	
-	@Override
-	public String toString(){
-		return(super.toString() + (this.hasChildren() ? " : " + this.path.get(0) : ""));
-	}
-
-	@Override
-	public @Nullable LocalModel getParent() {
-		return(this.parent);
-	}
-}
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.models;
+
+import java.util.Arrays;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * FrameModel is the local-data variant of the FunctionModel data model.  The key differences are
+ * that FrameModels:
+ * (1) have a root tree model as a parent, and
+ * (2) have path trace data.
+ * The path trace is stored as an array of line numbers.  The LineModel of each entry (which knows its
+ * own position in the path) is only created once that entry is first requested, and is then reused.
+ */
+public class FrameModel extends FunctionModel implements LocalModel {
+	private @Nullable RootModel parent = null;
+	private int[] path = new int[0];
+	private int pathLength = 0;
+	// the LineModel of each path entry that has been requested (see getPathEntry()), once any have been
+	private @Nullable LineModel @Nullable[] entries = null;
+	// the models of all path entries, once they are requested together from a frozen frame
+	private LineModel @Nullable[] children = null;
+	
+	// for frames loaded on demand: the pending loader, and what is known of the path before loading
+	private @Nullable FrameLoader loader = null;
+	private @Nullable ModelException loadError = null;
+	private boolean freezeWhenLoaded = false;
+	private final @Nullable Integer firstPathLine;
+	
+	/**
+	 * Construct a FrameModel from function and file names.
+	 *
+	 * @param name the name of the frame's function
+	 * @param file the name of (or path to) the containing file
+	 */
+	public FrameModel(String name, String file){
+		super(name, file);
+		this.firstPathLine = null;
+	}
+	
+	/**
+	 * Construct a FrameModel whose coverage and path data are loaded on demand, the first time any of
+	 * them is needed (or when materialize() is called).  Until then, only the first path entry is known.
+	 *
+	 * @param name the name of the frame's function
+	 * @param file the name of (or path to) the containing file
+	 * @param firstPathLine the first line of the path trace, or null if the path trace is empty
+	 * @param loader the loader for the rest of the frame's data
+	 */
+	public FrameModel(String name, String file, @Nullable Integer firstPathLine, FrameLoader loader){
+		super(name, file);
+		this.firstPathLine = firstPathLine;
+		this.loader = loader;
+	}
+	
+	/**
+	 * Load this frame's coverage and path data if it is loaded on demand and has not been loaded yet.
+	 * Callers that can report errors should call this before using a frame.  (Other uses of a frame
+	 * that fails to load just see it without any coverage or path data.)
+	 *
+	 * @throws ModelException if the frame's data could not be loaded (on this or any earlier attempt)
+	 */
+	public synchronized void materialize() throws ModelException {
+		final FrameLoader pending = this.loader;
+		if(pending != null){
+			// (cleared first: the loader fills in this frame through methods that load on demand)
+			this.loader = null;
+			try{
+				pending.load(this);
+			}
+			catch(ModelException e){
+				this.loadError = e;
+			}
+			catch(RuntimeException e){
+				// (e.g., a bug in the loader: the frame still fails like any other that cannot be loaded)
+				this.loadError = new ModelException("Unable to load stack frame " + this.getName() + ": " + e, e);
+			}
+			finally{
+				// (whatever was loaded is frozen as promised, even if the load failed)
+				if(this.freezeWhenLoaded)
+					this.freezeLoaded();
+			}
+		}
+		
+		final ModelException error = this.loadError;
+		if(error != null)
+			throw error;
+	}
+	
+	/**
+	 * Return whether this frame's data has been loaded (or was never loaded on demand).
+	 *
+	 * @return true if the frame's data is present
+	 */
+	public synchronized boolean isMaterialized(){
+		return(this.loader == null);
+	}
+	
+	/**
+	 * Freeze the frame (see CodeModel.freeze()), including its path trace.  A frame whose data has not
+	 * been loaded yet is frozen as soon as its data is loaded.
+	 */
+	@Override
+	public synchronized void freeze(){
+		if(!this.isMaterialized())
+			this.freezeWhenLoaded = true;
+		else
+			this.freezeLoaded();
+	}
+	
+	private void freezeLoaded(){
+		// (the path can no longer grow, so drop its spare capacity)
+		this.path = utils.NotNull.check(Arrays.copyOf(this.path, this.pathLength));
+		final @Nullable LineModel[] built = this.entries;
+		if(built != null)
+			this.entries = Arrays.copyOf(built, this.pathLength);
+		super.freeze();
+	}
+	
+	@Override
+	protected void ensureLoaded(){
+		try{
+			this.materialize();
+		}
+		catch(ModelException e){
+			// reported to callers of materialize(); the frame just stays empty
+		}
+	}
+	
+	/**
+	 * Add a line to the frame's path trace.
+	 *
+	 * @param child the data model for the added line entry
+	 * @throws ModelException if the child is already part of another frame's path trace, or if this
+	 *                        frame is frozen
+	 */
+	public synchronized void addChild(LineModel child) throws ModelException {
+		this.ensureLoaded();
+		if(this.isFrozen())
+			throw new ModelException("Attempt to add path entry to frozen frame " + this.getName());
+		
+		// could re-throw ModelException
+		child.setFrame(this, this.pathLength);
+		
+		this.appendLine(child.getLine());
+		this.getEntries()[this.pathLength - 1] = child;
+	}
+	
+	/**
+	 * Add a line to the frame's path trace, without creating a LineModel for it.
+	 *
+	 * @param line the line of the added entry
+	 * @throws ModelException if this frame is frozen
+	 */
+	public synchronized void addPathLine(int line) throws ModelException {
+		this.ensureLoaded();
+		if(this.isFrozen())
+			throw new ModelException("Attempt to add path entry to frozen frame " + this.getName());
+		
+		this.appendLine(line);
+	}
+	
+	private void appendLine(int line){
+		if(this.pathLength == this.path.length){
+			final int capacity = Math.max(4, this.pathLength * 2);
+			this.path = utils.NotNull.check(Arrays.copyOf(this.path, capacity));
+			final @Nullable LineModel[] built = this.entries;
+			if(built != null)
+				this.entries = Arrays.copyOf(built, capacity);
+		}
+		
+		// (the new entry's model is only created once it is requested)
+		this.path[this.pathLength] = line;
+		++this.pathLength;
+	}
+	
+	/**
+	 * Get the array of path entry models (as long as the path array), in which entries that have not been
+	 * requested yet are null.
+	 */
+	private @Nullable LineModel[] getEntries(){
+		@Nullable LineModel[] built = this.entries;
+		if(built == null){
+			built = new LineModel[this.path.length];
+			this.entries = built;
+		}
+		return(built);
+	}
+	
+	/**
+	 * Get the model of one path entry, creating it the first time it is requested.
+	 */
+	private LineModel getEntry(int index){
+		final @Nullable LineModel[] built = this.getEntries();
+		LineModel entry = built[index];
+		if(entry == null){
+			entry = new LineModel(this, index, this.path[index]);
+			built[index] = entry;
+		}
+		return(entry);
+	}
+	
+	/**
+	 * Get the number of entries in the frame's path trace.
+	 *
+	 * @return the length of the path trace
+	 */
+	public synchronized int getPathLength(){
+		this.ensureLoaded();
+		return(this.pathLength);
+	}
+	
+	/**
+	 * Get the line of one path trace entry.
+	 *
+	 * @param index the position of the entry in the path trace
+	 * @return the entry's line
+	 * @throws IndexOutOfBoundsException if the index is not in [0, getPathLength())
+	 */
+	public synchronized int getPathLine(int index) throws IndexOutOfBoundsException {
+		this.ensureLoaded();
+		if(index < 0 || index >= this.pathLength)
+			throw new IndexOutOfBoundsException("Path entry " + index + " out of bounds for length " + this.pathLength);
+		return(this.path[index]);
+	}
+	
+	/**
+	 * Get the data model of one path trace entry.  The same model is returned for each call.
+	 *
+	 * @param index the position of the entry in the path trace
+	 * @return the entry's model
+	 * @throws IndexOutOfBoundsException if the index is not in [0, getPathLength())
+	 */
+	public synchronized LineModel getPathEntry(int index) throws IndexOutOfBoundsException {
+		this.ensureLoaded();
+		if(index < 0 || index >= this.pathLength)
+			throw new IndexOutOfBoundsException("Path entry " + index + " out of bounds for length " + this.pathLength);
+		return(this.getEntry(index));
+	}
+	
+	/**
+	 * Get a copy of the lines of the path trace.
+	 *
+	 * @return the lines, in path order
+	 */
+	public synchronized int[] getPathLines(){
+		this.ensureLoaded();
+		return(utils.NotNull.check(Arrays.copyOf(this.path, this.pathLength)));
+	}
+	
+	/**
+	 * Set the parent (RootModel) of this stack frame.
+	 * NOTE: Users should *not* call this function directly.  It will cause problems.
+	 *       Use RootModel.addFrame() instead.
+	 *
+	 * @param parent the tree root parent model
+	 * @throws ModelException if this frame is already part of another root model's tree
+	 * @throws IllegalArgumentException if parent is null
+	 */
+	void setParent(RootModel parent) throws ModelException, IllegalArgumentException {
+		if(this.parent != null)
+			throw new ModelException("Attempt to add frame to multiple root models");
+		
+		this.parent = parent;
+	}
+
+	@Override
+	public synchronized boolean hasChildren() {
+		// (known without loading, so that listing frames never loads them)
+		if(!this.isMaterialized())
+			return(this.firstPathLine != null);
+		return(this.pathLength > 0);
+	}
+
+	/**
+	 * Get the models of the path trace entries.  Once the frame is frozen, the array is built on the first
+	 * call and the same array is returned for each later call, so callers must not modify it.  (The models
+	 * themselves are always the same for each call.)
+	 */
+	@Override
+	public synchronized LineModel[] getChildren() {
+		this.ensureLoaded();
+		final LineModel[] cached = this.children;
+		if(cached != null)
+			return(cached);
+		
+		LineModel[] built = new LineModel[this.pathLength];
+		for(int i = 0; i < built.length; ++i)
+			built[i] = this.getEntry(i);
+		// (a frozen path can no longer change)
+		if(this.isFrozen())
+			this.children = built;
+		return(built);
+	}
+	
+	@Override
+	public String toString(){
+		final Integer first = this.firstPathLine;
+		if(!this.isMaterialized())
+			return(super.toString() + (first != null ? " : " + new LineModel(first) : ""));
+		return(super.toString() + (this.hasChildren() ? " : " + new LineModel(this.path[0]) : ""));
+	}
+
+	@Override
+	public @Nullable LocalModel getParent() {
+		return(this.parent);
+	}
+}
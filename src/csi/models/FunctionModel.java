@@ -1,52 +1,52 @@
-/**
- * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
- * 
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- * 
- *     http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package csi.models;
-
-/**
- * FunctionModel is the global version of a function analysis data model.  It is currently
- * uninstantiated (though it is used as a superclass for FrameModel).
- * TODO: more detailed global data view should make use of this class
- */
-public class FunctionModel extends CodeModel {
-	private final String name;
-
-	/**
-	 * Construct a FunctionModel from function and file names.
-	 * 
-	 * @param name the name of the function
-	 * @param file the name of (or path to) the containing file
-	 */
-	public FunctionModel(String name, String file) {
-		super(file);
-		
-		this.name = name;
-	}
-
-	/**
-	 * Get the function's name.
-	 * 
-	 * @return the function's name
-	 */
-	public String getName(){
-		return(this.name);
-	}
-	
-	@Override
-	public String toString(){
-		return(this.name);
-	}
-}
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.models;
+
+/**
+ * FunctionModel is the global version of a function analysis data model.  Global function models are
+ * the children of their file's FileModel (see FileModel.getFunction()).  It is also used as a superclass
+ * for FrameModel.
+ */
+public class FunctionModel extends CodeModel {
+	private final String name;
+
+	/**
+	 * Construct a FunctionModel from function and file names.
+	 *
+	 * @param name the name of the function
+	 * @param file the name of (or path to) the containing file
+	 */
+	public FunctionModel(String name, String file) {
+		super(file);
+		
+		this.name = name;
+	}
+
+	/**
+	 * Get the function's name.
+	 *
+	 * @return the function's name
+	 */
+	public String getName(){
+		return(this.name);
+	}
+	
+	@Override
+	public String toString(){
+		return(this.name);
+	}
+}
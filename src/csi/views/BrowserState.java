@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.views;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import csi.analysis.AnalysisData;
+import csi.analysis.AnalysisDiff;
+import csi.models.FrameModel;
+
+/**
+ * BrowserState is an immutable snapshot of what the StackBrowserView is showing: the loaded analysis
+ * data, the current stack frame and path trace entry, and the comparison whose markers are shown.  The
+ * view keeps its state in an AtomicReference and replaces the whole snapshot on every change, so any
+ * thread (e.g., a background load or marker job) can read a consistent state without locking, while the
+ * UI keeps browsing.  (The models in the data are safe to share, too: loaded models are frozen, and a
+ * frame that is loaded on demand is filled in under its own lock, then frozen, when it is first used.)
+ */
+final class BrowserState {
+	/**
+	 * The state before any data is loaded.
+	 */
+	static final BrowserState EMPTY = new BrowserState(null, null, -1, null);
+	
+	private final @Nullable AnalysisData data;
+	private final @Nullable FrameModel frame;
+	private final int pathEntry;
+	private final @Nullable AnalysisDiff diff;
+	
+	private BrowserState(@Nullable AnalysisData data, @Nullable FrameModel frame, int pathEntry,
+			@Nullable AnalysisDiff diff) {
+		this.data = data;
+		this.frame = frame;
+		this.pathEntry = pathEntry;
+		this.diff = diff;
+	}
+	
+	/**
+	 * Return whether analysis data is loaded.
+	 *
+	 * @return true if there is loaded data
+	 */
+	boolean isLoaded(){
+		return(data != null);
+	}
+	
+	/**
+	 * Get the loaded analysis data.
+	 *
+	 * @return the data, or null if none is loaded
+	 */
+	@Nullable AnalysisData getData(){
+		return(data);
+	}
+	
+	/**
+	 * Get the current stack frame.
+	 *
+	 * @return the frame, or null if no frame is current
+	 */
+	@Nullable FrameModel getFrame(){
+		return(frame);
+	}
+	
+	/**
+	 * Get the current path trace entry of the current frame.
+	 *
+	 * @return the entry index, or -1 if no frame is current
+	 */
+	int getPathEntry(){
+		return(pathEntry);
+	}
+	
+	/**
+	 * Get the comparison whose markers are shown.
+	 *
+	 * @return the comparison, or null if none is shown
+	 */
+	@Nullable AnalysisDiff getDiff(){
+		return(diff);
+	}
+	
+	/**
+	 * Get the state with newly-loaded data, and no current frame or comparison.
+	 *
+	 * @param newData the loaded data
+	 * @return the new state
+	 */
+	BrowserState withData(AnalysisData newData){
+		return(new BrowserState(newData, null, -1, null));
+	}
+	
+	/**
+	 * Get the state with a new current frame and path trace entry.
+	 *
+	 * @param newFrame the frame, or null for none
+	 * @param newPathEntry the entry index (-1 for no frame)
+	 * @return the new state
+	 */
+	BrowserState withFrame(@Nullable FrameModel newFrame, int newPathEntry){
+		return(new BrowserState(data, newFrame, newPathEntry, diff));
+	}
+	
+	/**
+	 * Get the state with a new shown comparison.
+	 *
+	 * @param newDiff the comparison, or null for none
+	 * @return the new state
+	 */
+	BrowserState withDiff(@Nullable AnalysisDiff newDiff){
+		return(new BrowserState(data, frame, pathEntry, newDiff));
+	}
+}
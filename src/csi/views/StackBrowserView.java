@@ -1,978 +1,1695 @@
-/**
- * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
- * 
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- * 
- *     http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package csi.views;
-
-import java.nio.file.Paths;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
-
-import org.eclipse.jface.action.Action;
-import org.eclipse.jface.action.ContributionItem;
-import org.eclipse.jface.action.IMenuManager;
-import org.eclipse.jface.action.IToolBarManager;
-import org.eclipse.jface.action.MenuManager;
-import org.eclipse.jface.action.Separator;
-import org.eclipse.jface.viewers.ArrayContentProvider;
-import org.eclipse.jface.viewers.ISelection;
-import org.eclipse.jface.viewers.IStructuredSelection;
-import org.eclipse.jface.viewers.StructuredSelection;
-import org.eclipse.jface.viewers.TableViewer;
-import org.eclipse.jface.viewers.TreeViewer;
-import org.eclipse.swt.SWT;
-import org.eclipse.swt.custom.BusyIndicator;
-import org.eclipse.swt.graphics.Point;
-import org.eclipse.swt.layout.GridData;
-import org.eclipse.swt.layout.GridLayout;
-import org.eclipse.swt.widgets.Composite;
-import org.eclipse.swt.widgets.Control;
-import org.eclipse.swt.widgets.Display;
-import org.eclipse.swt.widgets.FileDialog;
-import org.eclipse.swt.widgets.Group;
-import org.eclipse.swt.widgets.Menu;
-import org.eclipse.swt.widgets.Shell;
-import org.eclipse.swt.widgets.Table;
-import org.eclipse.swt.widgets.TableColumn;
-import org.eclipse.swt.widgets.TableItem;
-import org.eclipse.ui.IActionBars;
-import org.eclipse.ui.IEditorDescriptor;
-import org.eclipse.ui.IEditorPart;
-import org.eclipse.ui.IEditorReference;
-import org.eclipse.ui.ISharedImages;
-import org.eclipse.ui.IWorkbenchActionConstants;
-import org.eclipse.ui.IWorkbenchWindow;
-import org.eclipse.ui.PartInitException;
-import org.eclipse.ui.PlatformUI;
-import org.eclipse.ui.IWorkbenchPage;
-import org.eclipse.ui.commands.ActionHandler;
-import org.eclipse.ui.handlers.IHandlerActivation;
-import org.eclipse.ui.handlers.IHandlerService;
-import org.eclipse.ui.part.ViewPart;
-import org.eclipse.core.resources.ResourcesPlugin;
-import org.eclipse.core.resources.IWorkspaceRoot;
-import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.IFile;
-import org.eclipse.jdt.annotation.NonNull;
-import org.eclipse.jdt.annotation.Nullable;
-import org.eclipse.ui.part.FileEditorInput;
-import org.eclipse.ui.texteditor.IDocumentProvider;
-import org.eclipse.ui.texteditor.ITextEditor;
-import org.eclipse.jface.resource.ImageDescriptor;
-import org.eclipse.jface.text.BadLocationException;
-import org.eclipse.jface.text.IDocument;
-
-import csi.Activator;
-import csi.Messages;
-import csi.analysis.AnalysisData;
-import csi.analysis.AnalysisReader;
-import csi.markers.MarkerManager;
-import csi.models.FileModel;
-import csi.models.FrameModel;
-import csi.models.LineModel;
-import csi.models.LocalModel;
-import csi.workspace.MissingFileException;
-import csi.workspace.WorkspaceManager;
-import providers.GlobalLabelProvider;
-import providers.LocalLabelProvider;
-import providers.LocalContentProvider;
-
-/**
- * StackBrowserView is the primary "CSI Analysis Data" view for CSIclipse.
- */
-@SuppressWarnings("deprecation")
-public class StackBrowserView extends ViewPart {
-
-	private class ViewComponents {
-		private class RefreshGlobalAction implements Runnable {
-			@Override
-			public void run() {
-				if(!StackBrowserView.this.loadedData){
-					showMessage("CSI data not loaded.  Cannot refresh annotations");
-					return;
-				}
-				
-				for(FileModel fData : utils.NotNull.check(StackBrowserView.this.exeData).getGlobalData()){
-					IFile theFile;
-					try {
-						theFile = utils.NotNull.check(workspaceManager).findFileInWorkspace(fData.getFile());
-					}
-					catch (MissingFileException e) {
-						showErrorMessage(utils.NotNull.check(e.getMessage()));
-						continue;
-					}
-					
-					// TODO: update this after further refactoring.  findFileInWorkspace() will eventually be
-					// non-nullable and return all problems as exceptions
-					if(theFile == null){
-						// a serious error occurred while searching for the file.
-						// An error should already be printed in the callee
-						continue;
-					}
-					
-					doFileMarkersGlobal(theFile, fData.getExeYes(), fData.getExeNo(), fData.getExeMaybe());
-				}
-				
-				globalAction.setChecked(true);
-			}
-		}
-
-		private class ClearGlobalAction implements Runnable {
-			@Override
-			public void run() {
-				clearWorkspaceAnnotations(MarkerManager.globalAnnotationTypes);
-				globalAction.setChecked(false);
-			}
-		}
-
-		private class RefreshLocalAction implements Runnable {
-			@Override
-			public void run() {
-				// refresh local annotations based on previously-selected frame
-				FrameModel prevFrame = StackBrowserView.this.currentFrame;
-				if(prevFrame != null){
-					int prevLine = prevFrame.getChildren()[StackBrowserView.this.currentPathEntry].getLine();
-					if(prevLine >= 0){
-						IFile openedFile = StackBrowserView.this.openFileAndGotoLine(prevFrame.getFile(), prevLine);
-						if(openedFile != null)
-							StackBrowserView.this.doFileMarkersLocal(openedFile,
-									prevFrame.getExeYes(), prevFrame.getExeNo(), prevFrame.getExeMaybe());
-					}
-				}
-				
-				localAction.setChecked(true);
-				
-				// refresh current path trace entry annotations based on previously-selected entry
-				revealCurrentPathEntry();
-				updateFwdBackButtons(StackBrowserView.this);
-			}
-		}
-
-		private class ClearLocalAction implements Runnable {
-			@Override
-			public void run() {
-				clearWorkspaceAnnotations(MarkerManager.localAnnotationTypes);
-				localAction.setChecked(false);
-				updateFwdBackButtons(StackBrowserView.this);
-			}
-		}
-
-		// the top-level container for trace data and the viewers for the CSI data view
-		private final Composite traceContainer;
-		private final TreeViewer stackTreeViewer;
-		private final TableViewer globalTableViewer;
-
-		// actions for showing CSI copyright, loading trace data, and double-clicking (i.e. going to) a particular trace element
-		private final Action infoAction;
-		private final Action loadDataAction;
-		private final Action localClickAction;
-		private final Action globalClickAction;
-
-		// showing or hiding global or local trace data
-		private final Action globalAction;
-		private final Action localAction;
-
-		// keep status of current frame for stepping through traced path
-		private final Action forwardAction;
-		private final Action backwardAction;
-		private final IHandlerActivation forwardActivation;
-		private final IHandlerActivation backwardActivation;
-
-		private ViewComponents(StackBrowserView stackBrowserView, @Nullable Composite parent) {
-			Composite top = new Composite(parent, SWT.NONE);
-			top.setLayoutData(new GridData(GridData.HORIZONTAL_ALIGN_BEGINNING, GridData.VERTICAL_ALIGN_BEGINNING, true, true));
-			GridLayout topLayout = new GridLayout();
-			topLayout.marginHeight = 0;
-			topLayout.marginWidth = 0;
-			topLayout.numColumns = 1;
-			topLayout.verticalSpacing = 5;
-			top.setLayout(topLayout);
-			
-			// note that this whole control is invisible until we load trace data
-			traceContainer = top;
-			top.setVisible(false);
-			
-			Group globalGroup = new Group(top, SWT.NONE);
-			globalGroup.setText("Global Data");
-			globalGroup.setLayout(new GridLayout());
-			GridData globalGridData = new GridData(GridData.FILL, GridData.FILL, true, false);
-			globalGridData.verticalSpan = 1;
-			globalGroup.setLayoutData(globalGridData);
-			
-			final TableViewer tableViewer = new TableViewer(globalGroup, SWT.V_SCROLL | SWT.FULL_SELECTION);
-			globalTableViewer = tableViewer;
-			tableViewer.setContentProvider(new ArrayContentProvider());
-			tableViewer.setLabelProvider(new GlobalLabelProvider());
-			tableViewer.setInput(null);
-			tableViewer.getTable().setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
-			tableViewer.getTable().setLinesVisible(true);
-			tableViewer.getTable().setHeaderVisible(true);
-			TableColumn column = new TableColumn(tableViewer.getTable(), SWT.CENTER);
-			column.setText("");
-			column.setToolTipText("File execution status");
-			column = new TableColumn(tableViewer.getTable(), SWT.LEFT);
-			column.setText("File");
-			column.setToolTipText("File name");
-			column = new TableColumn(tableViewer.getTable(), SWT.RIGHT);
-			column.setText("Yes");
-			column.setToolTipText("Number of lines executed");
-			column = new TableColumn(tableViewer.getTable(), SWT.RIGHT);
-			column.setText("No");
-			column.setToolTipText("Number of lines unexecuted");
-			column = new TableColumn(tableViewer.getTable(), SWT.RIGHT);
-			column.setText("Maybe");
-			column.setToolTipText("Number of lines maybe executed");
-			
-			Group stackGroup = new Group(top, SWT.NONE);
-			stackGroup.setText("Stack Data");
-			stackGroup.setLayout(new GridLayout());
-			GridData stackGridData = new GridData(GridData.FILL, GridData.FILL, true, true);
-			stackGridData.verticalSpan = 4;
-			stackGroup.setLayoutData(stackGridData);
-			
-			stackTreeViewer = new TreeViewer(stackGroup, SWT.NONE);
-			final Shell shell = getShell();
-			stackTreeViewer.setContentProvider(new LocalContentProvider(shell));
-			stackTreeViewer.setLabelProvider(new LocalLabelProvider());
-			stackTreeViewer.setInput(null);
-			stackTreeViewer.getTree().setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
-		
-			// get the control from the viewer we just set up
-			Control myControl = stackTreeViewer.getControl();
-			
-			// Create the help context id for the viewer's control
-			PlatformUI.getWorkbench().getHelpSystem().setHelp(myControl, "HighlightTest.treeViewer");
-
-			// make actions
-			loadDataAction = new Action() {
-				@Override
-				public void run() {
-					FileDialog d = new FileDialog(shell);
-					d.setText("CSI Analysis File Selection");
-					d.setFilterPath(null);
-					String[] filterExt = { "*.csi", "*.*" };
-					d.setFilterExtensions(filterExt);
-	
-					String filePath = d.open();
-					if (filePath == null)
-						return;
-	
-					boolean previouslyLoaded = stackBrowserView.loadedData;
-	
-					// load execution data from the file
-					AnalysisData data = stackBrowserView.readAnalysisDataFromFile(filePath);
-					if(data == null)
-						return;
-					
-					// assign loaded data to the various viewers / fields
-					stackTreeViewer.setInput(data.getLocalData());
-					globalTableViewer.setInput(data.getGlobalData());
-					stackBrowserView.exeData = data;
-					stackBrowserView.loadedData = true;
-	
-					// massage the global view (color and resize columns)
-					Table globalTable = tableViewer.getTable();
-					Display tableDisplay = tableViewer.getControl().getDisplay();
-					for (TableItem rowItem : globalTable.getItems()) {
-						rowItem.setForeground(2, tableDisplay.getSystemColor(SWT.COLOR_GREEN));
-						rowItem.setForeground(3, tableDisplay.getSystemColor(SWT.COLOR_RED));
-						rowItem.setForeground(4, tableDisplay.getSystemColor(SWT.COLOR_DARK_YELLOW));
-					}
-					//globalTable.pack();
-					for (int i = 0; i < globalTable.getColumnCount(); ++i)
-						globalTable.getColumn(i).pack();
-					//globalTable.pack();
-					
-					// utterly silly way to get the table (and surrounding composite) to resize and
-					// layout nicely...but it seems to work
-					traceContainer.layout(true, true);
-					Point viewSize = traceContainer.getSize();
-					viewSize.x += 1;
-					traceContainer.setSize(viewSize);
-					traceContainer.layout(true, true);
-					viewSize.x -= 1;
-					traceContainer.setSize(viewSize);
-					traceContainer.layout(true, true);
-	
-					// make sure to clear old markers whenever new data is loaded
-					// (and toggle the global button appropriately--start by not showing it, unless requested)
-					stackBrowserView.clearGlobalAndLocalAnnotations();
-					globalAction.setChecked(false);
-	
-					stackBrowserView.clearFrame();
-					if (stackBrowserView.loadedData) {
-						traceContainer.setVisible(true);
-						if (!previouslyLoaded)
-							updateActionBarsForLoadedData(stackBrowserView);
-					}
-				}
-			};
-			loadDataAction.setText("Load Crash Data");
-			loadDataAction.setToolTipText("Load CSI Crash Data");
-			loadDataAction.setImageDescriptor(
-					PlatformUI.getWorkbench().getSharedImages().getImageDescriptor(ISharedImages.IMG_OBJ_FOLDER));
-		
-			localAction = new Action() {
-				@Override
-				public void run() {
-					if (localAction.isChecked()) {
-						// if the button is turning off, consider refreshing local annotations based on previous selection
-						// right now, this function does almost nothing...
-						BusyIndicator.showWhile(null, new RefreshLocalAction());
-					} else {
-						// otherwise, clear local annotations
-						BusyIndicator.showWhile(null, new ClearLocalAction());
-					}
-				}
-			};
-			localAction.setText("Display local data");
-			localAction.setToolTipText("Display local data");
-			localAction.setImageDescriptor(Activator.getImageDescriptor("icons/local_small.png"));
-			localAction.setChecked(true);
-
-			globalAction = new Action() {
-				@Override
-				public void run() {
-					if (globalAction.isChecked()) {
-						// if we are "activating" the button, turn annotations "on"
-						BusyIndicator.showWhile(null, new RefreshGlobalAction());
-					} else {
-						// otherwise, clear global annotations
-						BusyIndicator.showWhile(null, new ClearGlobalAction());
-					}
-				}
-			};
-			globalAction.setText("Display global data");
-			globalAction.setToolTipText("Display global data");
-			globalAction.setImageDescriptor(Activator.getImageDescriptor("icons/global_small.png"));
-			globalAction.setChecked(false);
-
-			// NOTE: steps go in the opposite direction one might expect
-			// (because the line number array is from crash->entry)
-			backwardAction = new Action() {
-				@Override
-				public void run() {
-					stackBrowserView.pathStep(1);
-				}
-			};
-			backwardAction.setText("Step backward in path trace");
-			backwardAction.setToolTipText("Step backward in path trace");
-			backwardAction.setImageDescriptor(PlatformUI.getWorkbench().getSharedImages()
-					.getImageDescriptor(ISharedImages.IMG_TOOL_BACK_DISABLED));
-			backwardAction.setActionDefinitionId("csi.trace.next");
-			backwardAction.setEnabled(false);
-
-			forwardAction = new Action() {
-				@Override
-				public void run() {
-					stackBrowserView.pathStep(-1);
-				}
-			};
-			forwardAction.setText("Step forward in path trace");
-			forwardAction.setToolTipText("Step forward in path trace");
-			forwardAction.setImageDescriptor(PlatformUI.getWorkbench().getSharedImages()
-					.getImageDescriptor(ISharedImages.IMG_TOOL_FORWARD_DISABLED));
-			forwardAction.setActionDefinitionId("csi.trace.next");
-			forwardAction.setEnabled(false);
-
-			// fix up shortcut keys for "step back/forward in trace" actions
-			// props to: http://udig.refractions.net/files/docs/latest/1.3.2-SNAPSHOT/developer/keyboard_shortcut_example.html
-			// for helping me figure out how to do this!
-			IWorkbenchWindow window = stackBrowserView.getViewSite().getWorkbenchWindow();
-			IHandlerService handlerService = window.getService(IHandlerService.class);
-			forwardActivation = utils.NotNull.check(
-					handlerService.activateHandler("csi.trace.next", new ActionHandler(forwardAction)));
-			backwardActivation = utils.NotNull.check(
-					handlerService.activateHandler("csi.trace.prev", new ActionHandler(backwardAction)));
-			
-			localClickAction = new Action() {
-				@Override
-				public void run() {
-					ISelection selection = stackTreeViewer.getSelection();
-					//ISelection selection = viewer.getSelection();
-					Object selectedObj = ((IStructuredSelection)selection).getFirstElement();
-					if(selectedObj == null || !(selectedObj instanceof LocalModel)){
-						stackBrowserView.showErrorMessage("Internal error.  Unexpected double-click event type for local click");
-						return;
-					}
-					
-					if(selectedObj instanceof FrameModel){
-						FrameModel thisObj = (FrameModel)selectedObj;
-						String fileName = Paths.get(thisObj.getFile()).getFileName().toString();
-						assert fileName != null;
-						int line = 0;
-						if(thisObj.hasChildren())
-							line = (thisObj.getChildren()[0]).getLine();
-						
-						IFile openedFile = stackBrowserView.openFileAndGotoLine(fileName, line);
-						if(openedFile != null && localAction.isChecked())
-							stackBrowserView.doFileMarkersLocal(openedFile, thisObj.getExeYes(), thisObj.getExeNo(), thisObj.getExeMaybe());
-						stackBrowserView.updateFrameAndPathEntry(thisObj, 0);
-					}
-					else if(selectedObj instanceof LineModel){
-						LineModel thisObj = (LineModel)selectedObj;
-						FrameModel parentObj = thisObj.getParent();
-						assert parentObj != null;
-						String fileName = Paths.get(parentObj.getFile()).getFileName().toString();
-						assert fileName != null;
-						int line = thisObj.getLine();
-		
-						IFile openedFile = stackBrowserView.openFileAndGotoLine(fileName, line);
-						if(openedFile != null){
-							if(parentObj != stackBrowserView.currentFrame && localAction.isChecked())
-								stackBrowserView.doFileMarkersLocal(openedFile,
-										parentObj.getExeYes(), parentObj.getExeNo(), parentObj.getExeMaybe());
-							
-							int entryInParent = Arrays.asList(parentObj.getChildren()).indexOf(thisObj);
-							if(entryInParent < 0){
-								stackBrowserView.showErrorMessage("Internal error determining path entry location");
-								stackBrowserView.updateFrameAndPathEntry(null, -1);
-							}
-							else{
-								stackBrowserView.updateFrameAndPathEntry(parentObj, entryInParent);
-							}
-						}
-					}
-					
-					// if showing local annotations, set the previously-selected path trace entry
-					if(localAction.isChecked())
-						revealCurrentPathEntry();
-				}
-			};
-			
-			globalClickAction = new Action() {
-				@Override
-				public void run() {
-					ISelection selection = globalTableViewer.getSelection();
-					Object selectedObj = ((IStructuredSelection)selection).getFirstElement();
-					if(selectedObj == null || !(selectedObj instanceof FileModel)){
-						stackBrowserView.showErrorMessage("Internal error.  Unexpected double-click event type for global click");
-						return;
-					}
-					
-					FileModel thisObj = (FileModel)selectedObj;
-					stackBrowserView.clearFrame();
-					IFile openedFile = stackBrowserView.openFileAndGotoLine(thisObj.getFile(), 1);
-					if(openedFile != null) {
-						utils.NotNull.check(stackBrowserView.markerManager).clearMarkers(openedFile, MarkerManager.localAnnotationTypes);
-					}
-				}
-			};
-
-			infoAction = new Action(){
-				@Override
-				public void run(){
-					showMessage("CSI Analysis Integration / Data Explorer" + System.lineSeparator() +
-							"Copyright \u00a9 Peter Ohmann and Ben Liblit" + System.lineSeparator() +
-							System.lineSeparator() +
-							"For more information, see the website:" + System.lineSeparator() +
-							"https://github.com/liblit/csi-cc");
-				}
-			};
-			infoAction.setText("Information");
-			infoAction.setToolTipText("CSI Analysis Information");
-			infoAction.setImageDescriptor(PlatformUI.getWorkbench().getSharedImages()
-					.getImageDescriptor(ISharedImages.IMG_OBJS_INFO_TSK));
-
-			hookContextMenu(stackBrowserView);
-			hookDoubleClickAction();
-			contributeToActionBars(stackBrowserView);
-			
-			// set up the workspace/marker manager, and clear all local and global data in starting workspace
-			stackBrowserView.workspaceManager = new WorkspaceManager(shell);
-			stackBrowserView.markerManager = new MarkerManager(stackBrowserView.workspaceManager);
-			stackBrowserView.clearGlobalAndLocalAnnotations();
-		}
-
-		private void addLocalToolBar(IToolBarManager manager, ContributionItem item){
-			manager.add(item);
-		}
-
-		private void addLocalToolBar(IToolBarManager manager, Action action){
-			manager.add(action);
-		}
-
-		private void contributeToActionBars(StackBrowserView stackBrowserView) {
-			IActionBars bars = stackBrowserView.getViewSite().getActionBars();
-			fillLocalPullDown(utils.NotNull.check(bars.getMenuManager()));
-			fillLocalToolBar(utils.NotNull.check(bars.getToolBarManager()));
-		}
-
-		private void fillLocalPullDown(IMenuManager manager) {
-			manager.add(new Separator());
-			manager.add(infoAction);
-		}
-
-		private void fillLocalToolBar(IToolBarManager manager) {
-			addLocalToolBar(manager, loadDataAction);
-		}
-
-		private Shell getShell() {
-			return utils.NotNull.check(traceContainer.getShell());
-		}
-
-		private void hookContextMenu(StackBrowserView stackBrowserView) {
-			MenuManager menuMgr = new MenuManager("#PopupMenu");
-			menuMgr.setRemoveAllWhenShown(true);
-			menuMgr.addMenuListener(StackBrowserView::fillContextMenu);
-			final TreeViewer treeViewer = utils.NotNull.check(stackTreeViewer);
-			Menu menu = menuMgr.createContextMenu(treeViewer.getControl());
-			treeViewer.getControl().setMenu(menu);
-			stackBrowserView.getSite().registerContextMenu(menuMgr, treeViewer);
-		}
-
-		private void hookDoubleClickAction() {
-			stackTreeViewer.addDoubleClickListener(event -> {
-				localClickAction.run();
-			});
-			
-			globalTableViewer.addDoubleClickListener(event -> {
-				globalClickAction.run();
-			});
-		}
-
-		private void setFocus() {
-			stackTreeViewer.getControl().setFocus();
-		}
-
-		private void showMessage(String message) {
-			Messages.showMessage(getShell(), message);
-		}
-
-		private void updateActionBarsForLoadedData(StackBrowserView stackBrowserView){
-			IActionBars bars = stackBrowserView.getViewSite().getActionBars();
-			IToolBarManager manager = bars.getToolBarManager();
-			assert manager != null;
-			addLocalToolBar(manager, new Separator());
-			addLocalToolBar(manager, localAction);
-			addLocalToolBar(manager, globalAction);
-			addLocalToolBar(manager, new Separator());
-			addLocalToolBar(manager, backwardAction);
-			addLocalToolBar(manager, forwardAction);
-			bars.updateActionBars();
-		}
-
-		/**
-		 * Reveal the current path trace entry.  This method is specifically intended for cases where
-		 * the path trace markers were previously hidden, and you want to reveal them without changing
-		 * anything about the current entry.
-		 * 
-		 * If you are changing path entries (i.e., stepping through the path trace), you should instead
-		 * use StackBrowserView.pathStep().
-		 */
-		private void revealCurrentPathEntry() {
-			// a bit tricky: do this by stepping 0 path trace entries from current
-			pathStep(0);
-		}
-		
-		/**
-		 * updateFwdBackButtons() will grey-out or make visible the step forward/backward buttons based
-		 * on the current frame + entry context.
-		 * @param stackBrowserView the view object (for context)
-		 */
-		private void updateFwdBackButtons(StackBrowserView stackBrowserView){
-			// Eclipse's shared images
-			ISharedImages images = PlatformUI.getWorkbench().getSharedImages();
-			
-			// determine which of the fwd/bwd buttons should be enabled
-			ImageDescriptor fwd;
-			boolean fwdEnabled;
-			ImageDescriptor bwd;
-			boolean bwdEnabled;
-			final FrameModel frame = stackBrowserView.currentFrame;
-			if(!localAction.isChecked() || frame == null || stackBrowserView.currentPathEntry < 1){
-				fwd = images.getImageDescriptor(ISharedImages.IMG_TOOL_FORWARD_DISABLED);
-				fwdEnabled = false;
-			}
-			else{
-				fwd = images.getImageDescriptor(ISharedImages.IMG_TOOL_FORWARD);
-				fwdEnabled = true;
-			}
-			if(!localAction.isChecked() || frame == null || !frame.hasChildren() ||
-					stackBrowserView.currentPathEntry > frame.getChildren().length-2){
-				bwd = images.getImageDescriptor(ISharedImages.IMG_TOOL_BACK_DISABLED);
-				bwdEnabled = false;
-			}
-			else{
-				bwd = images.getImageDescriptor(ISharedImages.IMG_TOOL_BACK);
-				bwdEnabled = true;
-			}
-			
-			forwardAction.setImageDescriptor(fwd);
-			forwardAction.setEnabled(fwdEnabled);
-			backwardAction.setImageDescriptor(bwd);
-			backwardAction.setEnabled(bwdEnabled);
-		}
-		
-		/**
-		 * Clean up components, and deactivate shortcut keys for actions.
-		 */
-		private void dispose() {
-			backwardActivation.getHandlerService().deactivateHandler(this.backwardActivation);
-			forwardActivation.getHandlerService().deactivateHandler(forwardActivation);
-		}
-	}
-
-	/**
-	 * The ID of the view as specified by the extension.
-	 */
-	public static final String ID = "csi.views.StackBrowserView";
-
-	private boolean loadedData;
-	private @Nullable AnalysisData exeData;
-	
-	private @Nullable ViewComponents viewComponents;
-
-	// keep status of current frame for stepping through traced path
-	private @Nullable FrameModel currentFrame;
-	private int currentPathEntry = -1;
-	
-	// handling workspace file management and management of markers/annotations
-	private @Nullable WorkspaceManager workspaceManager;
-	private @Nullable MarkerManager markerManager;
-	
-	private @Nullable AnalysisData readAnalysisDataFromFile(String path){
-		final ViewComponents components = utils.NotNull.check(viewComponents);
-		AnalysisReader reader = new AnalysisReader(components.getShell());
-		return(reader.readAnalysisFromFile(path));
-	}
-	
-	/**
-	 * createPartControl() is a callback function from the Eclipse UI that does necessary setup to create the viewer
-	 * and initialize it.
-	 * @param parent the parent container for this viewer
-	 */
-	@Override
-	public void createPartControl(@Nullable Composite parent) {
-		viewComponents = new ViewComponents(this, parent);
-	}
-	
-	/**
-	 * fillContextMenu() sets up actions for the right-click drop-down menu inside the viewer.  (Currently none.)
-	 * NOTE: It seems to support allowing further additions by other add-ons?  I don't know anything about this...it
-	 * was here in the sample that I started with.
-	 * @param manager the manager for the drop-down menu
-	 */
-	private static void fillContextMenu(@Nullable IMenuManager manager) {
-		// for now, we contribute nothing to the right-click drop-down menu
-		assert manager != null;
-		manager.add(new Separator(IWorkbenchActionConstants.MB_ADDITIONS));
-	}
-	
-	private void clearGlobalAndLocalAnnotations(){
-		clearWorkspaceAnnotations(MarkerManager.globalAnnotationTypes);
-		clearWorkspaceAnnotations(MarkerManager.localAnnotationTypes);
-	}
-	
-	private void doFileMarkersGlobal(IFile theFile, Set<Integer> exeYes, Set<Integer> exeNo, Set<Integer> exeMaybe){
-		assert markerManager != null;
-		markerManager.doFileMarkers(theFile, "csi.global", "Global", exeYes, exeNo, exeMaybe);
-	}
-	
-	private void doFileMarkersLocal(IFile theFile, Set<Integer> exeYes, Set<Integer> exeNo, Set<Integer> exeMaybe){
-		// clear previous stack-frame-local markers
-		// (Note that this must be done in the view, rather than in MarkerManager, because it iterates
-		// through loaded data)
-		clearWorkspaceAnnotations(MarkerManager.localAnnotationTypes);
-		
-		assert markerManager != null;
-		markerManager.doFileMarkers(theFile, "csi", "Local", exeYes, exeNo, exeMaybe);
-	}
-	
-	private void clearFrame(){
-		updateFrameAndPathEntry(null, -1);
-	}
-	
-	/**
-	 * updateFrameAndPathEntry() updates the current frame and the current active path entry for that frame.
-	 * Note that both inputs are validated: the only valid entry for a null frame is -1, and entries for non-null
-	 * frames are valid if they are within the number of path entries for that frame.
-	 * 
-	 * @param frame the newly current stack frame model
-	 * @param entry the newly current path trace entry index
-	 */
-	private void updateFrameAndPathEntry(@Nullable FrameModel frame, int entry){
-		final ViewComponents components = viewComponents;
-		assert components != null;
-
-		// check input validity
-		if(frame == null && entry != -1){
-			showErrorMessage("Internal error: attempt to set index for no local frame");
-			clearFrame();
-			return;
-		}
-		else if(frame != null && (entry < 0 || !frame.hasChildren() || entry > frame.getChildren().length - 1)){
-			showErrorMessage("Internal error: attempt to set invalid path index for frame");
-			clearFrame();
-			return;
-		}
-		
-		// update the values
-		boolean updatedFrame = false;
-		int prevEntry = this.currentPathEntry;
-		if(frame != this.currentFrame){
-			this.currentFrame = frame;
-			updatedFrame = true;
-		}
-		this.currentPathEntry = entry;
-		
-		// grey-out or make-visible the forward/backward buttons, if appropriate
-		boolean movedToOrFromEnd = prevEntry != entry &&
-				(frame == null || entry == 0 || entry == frame.getChildren().length-1 ||
-				 prevEntry <= 0 || prevEntry == frame.getChildren().length-1);
-		if(updatedFrame || movedToOrFromEnd)
-			components.updateFwdBackButtons(this);
-	}
-	
-	/**
-	 * updatePathEntry() updates the current active path entry for the current active frame.
-	 * Note that both input is validated as: the only valid entry for a null frame is -1, and entries for non-null
-	 * frames are valid if they are within the number of path entries for that frame.  Thus, the caller should be
-	 * aware of the current frame, or call updateFrameAndPathEntry() instead.
-	 * 
-	 * @param entry the newly current path trace entry index
-	 */
-	private void updatePathEntry(int entry){
-		updateFrameAndPathEntry(this.currentFrame, entry);
-	}
-	
-	private void pathStep(int amount){
-		if(!this.loadedData || this.currentFrame == null || this.currentPathEntry < 0)
-			return;
-		
-		// get the lines (steps / children) in the current frame
-		assert currentFrame != null;
-		LocalModel[] children = currentFrame.getChildren();
-		
-		// fix up in case errors have occurred setting the path value to something invalid
-		this.currentPathEntry = Math.min(this.currentPathEntry, children.length - 1);
-		
-		int newValue = this.currentPathEntry + amount;
-		if(newValue < 0 || newValue > children.length - 1)
-			return;
-		updatePathEntry(newValue);
-		
-		LineModel theLine;
-		if(!(children[this.currentPathEntry] instanceof LineModel)){
-			showErrorMessage("Internal error: Unexpected structure relating lines to frames");
-			return;
-		}
-		theLine = (LineModel)children[this.currentPathEntry];
-		utils.NotNull.check(viewComponents).stackTreeViewer.setSelection(new StructuredSelection(theLine), true);
-		
-		// TODO: clean this up.  (It sets the "current" and "prev/next" arrows for path entries.)
-		IFile theFile = openFileAndGotoLine(utils.NotNull.check(theLine.getParent()).getFile(), theLine.getLine());
-		if(theFile == null){
-			showErrorMessage("Internal error: could not open path entry file");
-			return;
-		}
-		final MarkerManager manager = markerManager;
-		assert manager != null;
-		manager.clearMarkers(theFile, "csi.path.currentMarker");
-		manager.clearMarkers(theFile, "csi.path.nextMarker");
-		Set<Integer> currentLines = new HashSet<>();
-		currentLines.add(theLine.getLine());
-		manager.setMarkers(theFile, currentLines, "csi.path.currentMarker", "Current path entry");
-		Set<Integer> nextLines = new HashSet<>();
-		if(this.currentPathEntry > 0)
-			nextLines.add(((LineModel)children[this.currentPathEntry-1]).getLine());
-		if(this.currentPathEntry < children.length-1)
-			nextLines.add(((LineModel)children[this.currentPathEntry+1]).getLine());
-		manager.setMarkers(theFile, nextLines, "csi.path.nextMarker", "Adjacent path entry");
-	}
-	
-	/*
-	private IFile createTempCopyOfFile(IFile file){
-		if(file == null)
-			return(null);
-		
-		String tempDir = System.getProperty("java.io.tmpdir");
-		System.out.println("temp dir is: " + tempDir);
-		
-		IFile newFile = file.getProject().getFile(tempDir + file.getName());
-		//theFile.getResourceAttributes().setReadOnly(true);
-		//theFile.setResourceAttributes(theFile.getResourceAttributes());
-		theFile.setReadOnly(true);
-		return(newFile);
-	}
-	*/
-	
-	/**
-	 * openFileAndGotoLine() opens the specified file in its default editor, then seeks to the specified line in
-	 * that file.
-	 * 
-	 * @param fileName the file to open (as a path or filename)
-	 * @param gotoLine the line to seek to
-	 * @return the file reference, if successfully opened and focused.  Otherwise, null.
-	 */
-	private @Nullable IFile openFileAndGotoLine(String fileName, int gotoLine){
-		assert workspaceManager != null;
-		IFile theFile;
-		try {
-			theFile = utils.NotNull.check(workspaceManager).findFileInWorkspace(fileName);
-		}
-		catch (MissingFileException e) {
-			showErrorMessage(utils.NotNull.check(e.getMessage()));
-			return(null);
-		}
-		
-		// TODO: update this after further refactoring.  findFileInWorkspace() will eventually be
-		// non-nullable and return all problems as exceptions
-		if(theFile == null){
-			// a serious error occurred while searching for the file.
-			// An error should already be printed in the callee
-			return(null);
-		}
-
-		// get the current workbench and page from the Eclipse UI
-		IWorkbenchWindow eclipseWindow = PlatformUI.getWorkbench().getActiveWorkbenchWindow();
-		if(eclipseWindow == null){
-			showErrorMessage("Internal error.  Unexpected file search from non-UI thread");
-			return(null);
-		}
-		IWorkbenchPage eclipsePage = eclipseWindow.getActivePage();
-		if(eclipsePage == null){
-			showErrorMessage("Internal error.  No eclipse page due to call from non-UI thread");
-			return(null);
-		}
-		
-		// find the appropriate editor for the file
-		IEditorDescriptor defaultEditor =
-				PlatformUI.getWorkbench().getEditorRegistry().getDefaultEditor(theFile.getName());
-		if(defaultEditor == null){
-			// fall back on default text editor -- this is an unfortunate thing to do
-			defaultEditor = PlatformUI.getWorkbench().getEditorRegistry().getDefaultEditor("test.txt");
-		}
-		
-		// open the editor and get document parts and things
-		IEditorPart openedEditor;
-		try{
-			openedEditor = eclipsePage.openEditor(new FileEditorInput(theFile), defaultEditor.getId());
-		}
-		catch(PartInitException e){
-			showErrorMessage("Some crazy exception initializing parts");
-			e.printStackTrace();
-			return(null);
-		}
-		if(openedEditor == null || !(openedEditor instanceof ITextEditor)){
-			showErrorMessage("Internal error: Text editor properties unexpected.");
-			return(null);
-		}
-		ITextEditor editor = (ITextEditor)openedEditor;
-		IDocumentProvider provider = editor.getDocumentProvider();
-		IDocument document = provider.getDocument(editor.getEditorInput());
-		
-		// go to the appropriate line (if it exists)
-		try {
-			// a hack to get it to center the line in the editor (there seems to be no simple way to do this)
-			editor.selectAndReveal(0, 0);
-			
-			// seems to go one line too far (0-indexed array?)
-			int start = document.getLineOffset(gotoLine-1) +
-					document.getLineInformation(gotoLine-1).getLength();
-			editor.selectAndReveal(start, 0);
-		}
-		catch (BadLocationException e) {
-			showErrorMessage("Provided line number '" + gotoLine + "' does not exist in file");
-			return(null);
-		}
-		
-		return(theFile);
-	}
-	
-	private void clearAnnotationsIgnoringExceptions(String file, @NonNull String[] annotationTypes){
-		if(markerManager == null)
-			return;
-		
-		try{
-			// TODO: I get an error without this non-null assertion here.  Why?
-			utils.NotNull.check(markerManager).clearMarkers(file, utils.NotNull.check(annotationTypes));
-		}
-		catch(MissingFileException e){
-			// ignore this Exception: we should not show huge numbers of error boxes
-			// just to try to clear annotations for analysis data
-		}
-	}
-	
-	private void clearWorkspaceAnnotations(String[] types){
-		// clear all annotations from all files in the current workspace
-		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
-		final MarkerManager manager = utils.NotNull.check(markerManager);
-		for (IProject project : root.getProjects()) {
-			// clear annotations from open projects
-			if(!project.exists()){
-				showErrorMessage("Plugin returned non-existant project while clearing annotations");
-				return;
-			}
-			else if(project.isOpen()){
-				manager.clearMarkers(project, types);
-			}
-		}
-		
-		// clear all annotations from all files currently open in editors
-		IEditorReference[] editors =
-				PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage().getEditorReferences();
-		try{
-			for(IEditorReference editor : editors){
-				if(editor.getEditorInput() instanceof FileEditorInput){
-					FileEditorInput fileEditor = (FileEditorInput)editor.getEditorInput();
-					final IFile file = fileEditor.getFile();
-					assert file != null;
-					manager.clearMarkers(file, types);
-				}
-			}
-		}
-		catch(PartInitException e){
-			showErrorMessage("Error accessing open editors");
-			e.printStackTrace();
-		}
-		
-		// clear all annotations from all files in loaded CSI execution data
-		if(loadedData){
-			final AnalysisData data = utils.NotNull.check(exeData);
-			for(FrameModel fData : data.getLocalData().getChildren())
-				clearAnnotationsIgnoringExceptions(fData.getFile(), types);
-			for(FileModel fData : data.getGlobalData()){
-				clearAnnotationsIgnoringExceptions(fData.getFile(), types);
-			}
-		}
-	}
-	
-	/**
-	 * Necessary clean-up for the view.  Specifically, we need to remove all annotations, and
-	 * clean up the view components (i.e., disable all actions and keyboard shortcuts).
-	 */
-	@Override
-	public void dispose() {
-		clearGlobalAndLocalAnnotations();
-		
-		// dispose the view components (disables all keyboard shortcuts)
-		utils.NotNull.check(this.viewComponents).dispose();
-	}
-
-	private void showErrorMessage(String message){
-		final ViewComponents components = utils.NotNull.check(viewComponents);
-		Messages.showErrorMessage(components.getShell(), message);
-	}
-	
-	/**
-	 * Passing the focus request to the viewer's control.
-	 */
-	@Override
-	public void setFocus() {
-		utils.NotNull.check(viewComponents).setFocus();
-	}
-}
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csi.views;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.ContributionItem;
+import org.eclipse.jface.action.IAction;
+import org.eclipse.jface.action.IMenuManager;
+import org.eclipse.jface.action.IToolBarManager;
+import org.eclipse.jface.action.MenuManager;
+import org.eclipse.jface.action.Separator;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.jface.viewers.StructuredSelection;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.BusyIndicator;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.DirectoryDialog;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Group;
+import org.eclipse.swt.widgets.Menu;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Tree;
+import org.eclipse.swt.widgets.TreeColumn;
+import org.eclipse.ui.IActionBars;
+import org.eclipse.ui.IEditorDescriptor;
+import org.eclipse.ui.IEditorPart;
+import org.eclipse.ui.IEditorReference;
+import org.eclipse.ui.ISharedImages;
+import org.eclipse.ui.IWorkbenchActionConstants;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PartInitException;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.commands.ActionHandler;
+import org.eclipse.ui.handlers.IHandlerActivation;
+import org.eclipse.ui.handlers.IHandlerService;
+import org.eclipse.ui.part.ViewPart;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.ui.part.FileEditorInput;
+import org.eclipse.ui.texteditor.IDocumentProvider;
+import org.eclipse.ui.texteditor.ITextEditor;
+import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+
+import utils.IntervalSet;
+import utils.LineSet;
+import csi.Activator;
+import csi.Messages;
+import csi.analysis.AnalysisBatch;
+import csi.analysis.AnalysisConverter;
+import csi.analysis.AnalysisDiff;
+import csi.analysis.AnalysisData;
+import csi.analysis.AnalysisFormatException;
+import csi.analysis.AnalysisReader;
+import csi.analysis.LineIndex;
+import csi.markers.AnnotationManager;
+import csi.markers.EditorAnnotationManager;
+import csi.markers.MarkerManager;
+import csi.models.CodeModel;
+import csi.models.ConflictSummary;
+import csi.models.CoverageClassification;
+import csi.models.FileModel;
+import csi.models.FunctionModel;
+import csi.models.FrameModel;
+import csi.models.LineModel;
+import csi.models.LocalModel;
+import csi.models.ModelException;
+import csi.workspace.MissingFileException;
+import csi.workspace.WorkspaceManager;
+import providers.GlobalContentProvider;
+import providers.GlobalLabelProvider;
+import providers.LocalLabelProvider;
+import providers.LocalContentProvider;
+
+/**
+ * StackBrowserView is the primary "CSI Analysis Data" view for CSIclipse.
+ */
+@SuppressWarnings("deprecation")
+public class StackBrowserView extends ViewPart {
+	// the most models listed by name in one conflict report
+	private static final int MAX_LISTED_CONFLICTS = 50;
+	// the most changed stack frames listed in one comparison report
+	private static final int MAX_LISTED_DIFFS = 50;
+	// the most stack frames listed by name per category in one marker tooltip
+	private static final int MAX_FRAMES_PER_LINE = 5;
+
+	private class ViewComponents {
+		private class RefreshGlobalAction implements Runnable {
+			@Override
+			public void run() {
+				final AnalysisData data = StackBrowserView.this.state.get().getData();
+				if(data == null){
+					showMessage("CSI data not loaded.  Cannot refresh annotations");
+					return;
+				}
+				
+				// (all files' annotations change in one batch)
+				utils.NotNull.check(annotationManager).runBatched(() -> {
+					for(FileModel fData : data.getGlobalData()){
+						IFile theFile;
+						try {
+							theFile = utils.NotNull.check(workspaceManager).findFileInWorkspace(fData.getFile());
+						}
+						catch (MissingFileException e) {
+							showErrorMessage(utils.NotNull.check(e.getMessage()));
+							continue;
+						}
+					
+						// TODO: update this after further refactoring.  findFileInWorkspace() will eventually be
+						// non-nullable and return all problems as exceptions
+						if(theFile == null){
+							// a serious error occurred while searching for the file.
+							// An error should already be printed in the callee
+							continue;
+						}
+					
+						doFileMarkersGlobal(theFile, fData);
+					}
+				});
+				
+				globalAction.setChecked(true);
+			}
+		}
+
+		private class ClearGlobalAction implements Runnable {
+			@Override
+			public void run() {
+				clearWorkspaceAnnotations(AnnotationManager.globalAnnotationTypes);
+				globalAction.setChecked(false);
+			}
+		}
+
+		private class RefreshLocalAction implements Runnable {
+			@Override
+			public void run() {
+				// refresh local annotations based on previously-selected frame
+				final BrowserState current = StackBrowserView.this.state.get();
+				FrameModel prevFrame = current.getFrame();
+				if(prevFrame != null){
+					int prevLine = prevFrame.getPathLine(current.getPathEntry());
+					if(prevLine >= 0){
+						IFile openedFile = StackBrowserView.this.openFileAndGotoLine(prevFrame.getFile(), prevLine);
+						if(openedFile != null)
+							StackBrowserView.this.doFileMarkersLocal(openedFile, prevFrame);
+					}
+				}
+				
+				localAction.setChecked(true);
+				
+				// refresh current path trace entry annotations based on previously-selected entry
+				revealCurrentPathEntry();
+				updateFwdBackButtons(StackBrowserView.this);
+			}
+		}
+
+		private class ClearLocalAction implements Runnable {
+			@Override
+			public void run() {
+				clearWorkspaceAnnotations(AnnotationManager.localAnnotationTypes);
+				localAction.setChecked(false);
+				updateFwdBackButtons(StackBrowserView.this);
+			}
+		}
+
+		// the top-level container for trace data and the viewers for the CSI data view
+		private final Composite traceContainer;
+		private final TreeViewer stackTreeViewer;
+		private final TreeViewer globalTreeViewer;
+		private final GlobalLabelProvider globalLabelProvider;
+
+		// actions for showing CSI copyright, loading trace data, and double-clicking (i.e. going to) a particular trace element
+		private final Action infoAction;
+		private final Action loadDataAction;
+		private final Action loadDirectoryAction;
+		private final Action convertDataAction;
+		private final Action lazyLoadAction;
+		private final Action rangeMarkersAction;
+		private final Action editorAnnotationsAction;
+		private final Action checkConflictsAction;
+		private final Action compareDataAction;
+		private final Action localClickAction;
+		private final Action globalClickAction;
+
+		// showing or hiding global or local trace data
+		private final Action globalAction;
+		private final Action localAction;
+
+		// keep status of current frame for stepping through traced path
+		private final Action forwardAction;
+		private final Action backwardAction;
+		private final IHandlerActivation forwardActivation;
+		private final IHandlerActivation backwardActivation;
+
+		private ViewComponents(StackBrowserView stackBrowserView, @Nullable Composite parent) {
+			Composite top = new Composite(parent, SWT.NONE);
+			top.setLayoutData(new GridData(GridData.HORIZONTAL_ALIGN_BEGINNING, GridData.VERTICAL_ALIGN_BEGINNING, true, true));
+			GridLayout topLayout = new GridLayout();
+			topLayout.marginHeight = 0;
+			topLayout.marginWidth = 0;
+			topLayout.numColumns = 1;
+			topLayout.verticalSpacing = 5;
+			top.setLayout(topLayout);
+			
+			// note that this whole control is invisible until we load trace data
+			traceContainer = top;
+			top.setVisible(false);
+			
+			Group globalGroup = new Group(top, SWT.NONE);
+			globalGroup.setText("Global Data");
+			globalGroup.setLayout(new GridLayout());
+			GridData globalGridData = new GridData(GridData.FILL, GridData.FILL, true, false);
+			globalGridData.verticalSpan = 1;
+			globalGroup.setLayoutData(globalGridData);
+			
+			// (files, each of which can be expanded to show its functions)
+			final TreeViewer globalViewer = new TreeViewer(globalGroup, SWT.V_SCROLL | SWT.FULL_SELECTION);
+			globalTreeViewer = globalViewer;
+			final Tree globalTree = globalViewer.getTree();
+			globalViewer.setContentProvider(new GlobalContentProvider());
+			globalLabelProvider = new GlobalLabelProvider(utils.NotNull.check(globalTree.getDisplay()));
+			globalViewer.setLabelProvider(globalLabelProvider);
+			globalViewer.setInput(null);
+			globalTree.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+			globalTree.setLinesVisible(true);
+			globalTree.setHeaderVisible(true);
+			TreeColumn column = new TreeColumn(globalTree, SWT.CENTER);
+			column.setText("");
+			column.setToolTipText("File or function execution status");
+			column = new TreeColumn(globalTree, SWT.LEFT);
+			column.setText("File");
+			column.setToolTipText("File name (expand for its functions)");
+			column = new TreeColumn(globalTree, SWT.RIGHT);
+			column.setText("Yes");
+			column.setToolTipText("Number of lines executed");
+			column = new TreeColumn(globalTree, SWT.RIGHT);
+			column.setText("No");
+			column.setToolTipText("Number of lines unexecuted");
+			column = new TreeColumn(globalTree, SWT.RIGHT);
+			column.setText("Maybe");
+			column.setToolTipText("Number of lines maybe executed");
+			column = new TreeColumn(globalTree, SWT.RIGHT);
+			column.setText("Functions");
+			column.setToolTipText("Number of functions executed / total");
+			column = new TreeColumn(globalTree, SWT.RIGHT);
+			column.setText("Crashes");
+			column.setToolTipText("Number of loaded crash reports that executed the file / total");
+			column = new TreeColumn(globalTree, SWT.RIGHT);
+			column.setText("Hottest Line");
+			column.setToolTipText("Line executed by the most loaded crash reports (and their number)");
+			
+			Group stackGroup = new Group(top, SWT.NONE);
+			stackGroup.setText("Stack Data");
+			stackGroup.setLayout(new GridLayout());
+			GridData stackGridData = new GridData(GridData.FILL, GridData.FILL, true, true);
+			stackGridData.verticalSpan = 4;
+			stackGroup.setLayoutData(stackGridData);
+			
+			stackTreeViewer = new TreeViewer(stackGroup, SWT.NONE);
+			final Shell shell = getShell();
+			stackTreeViewer.setContentProvider(new LocalContentProvider(shell));
+			stackTreeViewer.setLabelProvider(new LocalLabelProvider());
+			stackTreeViewer.setInput(null);
+			stackTreeViewer.getTree().setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+		
+			// get the control from the viewer we just set up
+			Control myControl = stackTreeViewer.getControl();
+			
+			// Create the help context id for the viewer's control
+			PlatformUI.getWorkbench().getHelpSystem().setHelp(myControl, "HighlightTest.treeViewer");
+
+			// make actions
+			loadDataAction = new Action() {
+				@Override
+				public void run() {
+					FileDialog d = new FileDialog(shell);
+					d.setText("CSI Analysis File Selection");
+					d.setFilterPath(null);
+					String[] filterExt = { "*.csi;*.csib;*.gz;*.xz", "*.*" };
+					d.setFilterExtensions(filterExt);
+	
+					String filePath = d.open();
+					if (filePath == null)
+						return;
+	
+					// load execution data from the file (in the background)
+					stackBrowserView.loadAnalysisData(filePath);
+				}
+			};
+			loadDataAction.setText("Load Crash Data");
+			loadDataAction.setToolTipText("Load CSI Crash Data");
+			loadDataAction.setImageDescriptor(
+					PlatformUI.getWorkbench().getSharedImages().getImageDescriptor(ISharedImages.IMG_OBJ_FOLDER));
+		
+			loadDirectoryAction = new Action() {
+				@Override
+				public void run() {
+					DirectoryDialog d = new DirectoryDialog(shell);
+					d.setText("CSI Analysis Directory Selection");
+					d.setMessage("Load all CSI analysis files (*.csi, *.csib, *.gz, *.xz) in the directory");
+	
+					String directoryPath = d.open();
+					if (directoryPath == null)
+						return;
+	
+					// load execution data from all files in the directory (in the background)
+					stackBrowserView.loadAnalysisDirectory(directoryPath);
+				}
+			};
+			loadDirectoryAction.setText("Load Crash Directory...");
+			loadDirectoryAction.setToolTipText("Load all CSI Crash Data files in a directory, and combine their global data");
+		
+			convertDataAction = new Action() {
+				@Override
+				public void run() {
+					FileDialog source = new FileDialog(shell);
+					source.setText("CSI Analysis File to Convert");
+					source.setFilterPath(null);
+					String[] sourceExt = { "*.csi", "*.*" };
+					source.setFilterExtensions(sourceExt);
+					String sourcePath = source.open();
+					if (sourcePath == null)
+						return;
+					
+					FileDialog destination = new FileDialog(shell, SWT.SAVE);
+					destination.setText("Binary CSI Analysis File");
+					String[] destinationExt = { "*.csib", "*.*" };
+					destination.setFilterExtensions(destinationExt);
+					destination.setFileName(new File(sourcePath).getName() + "b");
+					destination.setOverwrite(true);
+					String destinationPath = destination.open();
+					if (destinationPath == null)
+						return;
+					
+					// convert (in the background)
+					stackBrowserView.convertAnalysisData(sourcePath, destinationPath);
+				}
+			};
+			convertDataAction.setText("Convert Crash Data to Binary...");
+			convertDataAction.setToolTipText("Convert a CSI Crash Data file to the faster-loading binary format");
+			
+			lazyLoadAction = new Action("Load Stack Frames on Demand", IAction.AS_CHECK_BOX) {
+				// (just a setting: checked when loading new crash data)
+			};
+			lazyLoadAction.setToolTipText("Only parse each stack frame's data when it is first shown");
+			lazyLoadAction.setChecked(false);
+			
+			rangeMarkersAction = new Action("Combine Annotations of Consecutive Lines", IAction.AS_CHECK_BOX) {
+				@Override
+				public void run() {
+					utils.NotNull.check(annotationManager).setRangeMarkers(rangeMarkersAction.isChecked());
+					
+					// re-place the annotations currently shown, in the new mode
+					BusyIndicator.showWhile(null, () -> {
+						if(globalAction.isChecked() && StackBrowserView.this.state.get().isLoaded()){
+							new ClearGlobalAction().run();
+							new RefreshGlobalAction().run();
+						}
+						if(localAction.isChecked())
+							new RefreshLocalAction().run();
+					});
+				}
+			};
+			rangeMarkersAction.setToolTipText("Use one annotation for each run of consecutive lines with the same data, " +
+					"rather than one per line");
+			rangeMarkersAction.setChecked(false);
+			
+			editorAnnotationsAction = new Action("Annotate Open Editors Only (No Workspace Markers)", IAction.AS_CHECK_BOX) {
+				@Override
+				public void run() {
+					BusyIndicator.showWhile(null, () -> {
+						// take all annotations down with the old manager, and put them back up with the new one
+						final AnnotationManager previous = utils.NotNull.check(annotationManager);
+						clearGlobalAndLocalAnnotations();
+						previous.dispose();
+						
+						final WorkspaceManager workspace = utils.NotNull.check(workspaceManager);
+						final AnnotationManager manager = editorAnnotationsAction.isChecked() ?
+								new EditorAnnotationManager(workspace) : new MarkerManager(workspace);
+						manager.setRangeMarkers(previous.isRangeMarkers());
+						annotationManager = manager;
+						
+						if(globalAction.isChecked() && StackBrowserView.this.state.get().isLoaded())
+							new RefreshGlobalAction().run();
+						if(localAction.isChecked())
+							new RefreshLocalAction().run();
+					});
+				}
+			};
+			editorAnnotationsAction.setToolTipText("Attach annotations directly to open editors, rather than " +
+					"creating workspace markers");
+			editorAnnotationsAction.setChecked(false);
+			
+			checkConflictsAction = new Action() {
+				@Override
+				public void run() {
+					showConflictSummary(stackBrowserView);
+				}
+			};
+			compareDataAction = new Action() {
+				@Override
+				public void run() {
+					if(!stackBrowserView.state.get().isLoaded()){
+						showMessage("CSI data not loaded.  Cannot compare");
+						return;
+					}
+					
+					FileDialog d = new FileDialog(shell);
+					d.setText("Earlier CSI Analysis File to Compare With");
+					d.setFilterPath(null);
+					String[] ext = { "*.csi", "*.csib", "*.gz", "*.xz", "*.*" };
+					d.setFilterExtensions(ext);
+					String path = d.open();
+					if (path == null)
+						return;
+					
+					// load and compare in the background
+					stackBrowserView.compareAnalysisData(path);
+				}
+			};
+			compareDataAction.setText("Compare With Earlier Crash Data...");
+			compareDataAction.setToolTipText("Mark the lines whose execution changed since an earlier CSI Crash Data file");
+			
+			checkConflictsAction.setText("Check Data for Conflicts");
+			checkConflictsAction.setToolTipText("List the loaded models with lines in more than one of the yes/no/maybe sets");
+		
+			localAction = new Action() {
+				@Override
+				public void run() {
+					if (localAction.isChecked()) {
+						// if the button is turning off, consider refreshing local annotations based on previous selection
+						// right now, this function does almost nothing...
+						BusyIndicator.showWhile(null, new RefreshLocalAction());
+					} else {
+						// otherwise, clear local annotations
+						BusyIndicator.showWhile(null, new ClearLocalAction());
+					}
+				}
+			};
+			localAction.setText("Display local data");
+			localAction.setToolTipText("Display local data");
+			localAction.setImageDescriptor(Activator.getImageDescriptor("icons/local_small.png"));
+			localAction.setChecked(true);
+
+			globalAction = new Action() {
+				@Override
+				public void run() {
+					if (globalAction.isChecked()) {
+						// if we are "activating" the button, turn annotations "on"
+						BusyIndicator.showWhile(null, new RefreshGlobalAction());
+					} else {
+						// otherwise, clear global annotations
+						BusyIndicator.showWhile(null, new ClearGlobalAction());
+					}
+				}
+			};
+			globalAction.setText("Display global data");
+			globalAction.setToolTipText("Display global data");
+			globalAction.setImageDescriptor(Activator.getImageDescriptor("icons/global_small.png"));
+			globalAction.setChecked(false);
+
+			// NOTE: steps go in the opposite direction one might expect
+			// (because the line number array is from crash->entry)
+			backwardAction = new Action() {
+				@Override
+				public void run() {
+					stackBrowserView.pathStep(1);
+				}
+			};
+			backwardAction.setText("Step backward in path trace");
+			backwardAction.setToolTipText("Step backward in path trace");
+			backwardAction.setImageDescriptor(PlatformUI.getWorkbench().getSharedImages()
+					.getImageDescriptor(ISharedImages.IMG_TOOL_BACK_DISABLED));
+			backwardAction.setActionDefinitionId("csi.trace.next");
+			backwardAction.setEnabled(false);
+
+			forwardAction = new Action() {
+				@Override
+				public void run() {
+					stackBrowserView.pathStep(-1);
+				}
+			};
+			forwardAction.setText("Step forward in path trace");
+			forwardAction.setToolTipText("Step forward in path trace");
+			forwardAction.setImageDescriptor(PlatformUI.getWorkbench().getSharedImages()
+					.getImageDescriptor(ISharedImages.IMG_TOOL_FORWARD_DISABLED));
+			forwardAction.setActionDefinitionId("csi.trace.next");
+			forwardAction.setEnabled(false);
+
+			// fix up shortcut keys for "step back/forward in trace" actions
+			// props to: http://udig.refractions.net/files/docs/latest/1.3.2-SNAPSHOT/developer/keyboard_shortcut_example.html
+			// for helping me figure out how to do this!
+			IWorkbenchWindow window = stackBrowserView.getViewSite().getWorkbenchWindow();
+			IHandlerService handlerService = window.getService(IHandlerService.class);
+			forwardActivation = utils.NotNull.check(
+					handlerService.activateHandler("csi.trace.next", new ActionHandler(forwardAction)));
+			backwardActivation = utils.NotNull.check(
+					handlerService.activateHandler("csi.trace.prev", new ActionHandler(backwardAction)));
+			
+			localClickAction = new Action() {
+				@Override
+				public void run() {
+					ISelection selection = stackTreeViewer.getSelection();
+					//ISelection selection = viewer.getSelection();
+					Object selectedObj = ((IStructuredSelection)selection).getFirstElement();
+					if(selectedObj == null || !(selectedObj instanceof LocalModel)){
+						stackBrowserView.showErrorMessage("Internal error.  Unexpected double-click event type for local click");
+						return;
+					}
+					
+					if(selectedObj instanceof FrameModel){
+						FrameModel thisObj = (FrameModel)selectedObj;
+						try{
+							thisObj.materialize();
+						}
+						catch(ModelException e){
+							stackBrowserView.showErrorMessage("Unable to load stack frame data: " + e.getMessage());
+							return;
+						}
+						String fileName = Paths.get(thisObj.getFile()).getFileName().toString();
+						assert fileName != null;
+						int line = 0;
+						if(thisObj.hasChildren())
+							line = thisObj.getPathLine(0);
+						
+						IFile openedFile = stackBrowserView.openFileAndGotoLine(fileName, line);
+						if(openedFile != null && localAction.isChecked())
+							stackBrowserView.doFileMarkersLocal(openedFile, thisObj);
+						stackBrowserView.updateFrameAndPathEntry(thisObj, 0);
+					}
+					else if(selectedObj instanceof LineModel){
+						LineModel thisObj = (LineModel)selectedObj;
+						FrameModel parentObj = thisObj.getParent();
+						assert parentObj != null;
+						String fileName = Paths.get(parentObj.getFile()).getFileName().toString();
+						assert fileName != null;
+						int line = thisObj.getLine();
+		
+						IFile openedFile = stackBrowserView.openFileAndGotoLine(fileName, line);
+						if(openedFile != null){
+							if(parentObj != stackBrowserView.state.get().getFrame() && localAction.isChecked())
+								stackBrowserView.doFileMarkersLocal(openedFile, parentObj);
+							
+							int entryInParent = thisObj.getIndex();
+							if(entryInParent < 0){
+								stackBrowserView.showErrorMessage("Internal error determining path entry location");
+								stackBrowserView.updateFrameAndPathEntry(null, -1);
+							}
+							else{
+								stackBrowserView.updateFrameAndPathEntry(parentObj, entryInParent);
+							}
+						}
+					}
+					
+					// if showing local annotations, set the previously-selected path trace entry
+					if(localAction.isChecked())
+						revealCurrentPathEntry();
+				}
+			};
+			
+			globalClickAction = new Action() {
+				@Override
+				public void run() {
+					ISelection selection = globalTreeViewer.getSelection();
+					Object selectedObj = ((IStructuredSelection)selection).getFirstElement();
+					if(selectedObj == null || !(selectedObj instanceof FileModel || selectedObj instanceof FunctionModel)){
+						stackBrowserView.showErrorMessage("Internal error.  Unexpected double-click event type for global click");
+						return;
+					}
+					
+					// (go to the start of a file, or to the first covered line of a function)
+					int line = 1;
+					if(selectedObj instanceof FunctionModel)
+						line = firstLine((FunctionModel)selectedObj);
+					
+					CodeModel thisObj = (CodeModel)selectedObj;
+					stackBrowserView.clearFrame();
+					IFile openedFile = stackBrowserView.openFileAndGotoLine(thisObj.getFile(), line);
+					if(openedFile != null) {
+						utils.NotNull.check(stackBrowserView.annotationManager).clearMarkers(openedFile, AnnotationManager.localAnnotationTypes);
+						stackBrowserView.placedLocalMarkers = null;
+					}
+				}
+			};
+
+			infoAction = new Action(){
+				@Override
+				public void run(){
+					showMessage("CSI Analysis Integration / Data Explorer" + System.lineSeparator() +
+							"Copyright \u00a9 Peter Ohmann and Ben Liblit" + System.lineSeparator() +
+							System.lineSeparator() +
+							"For more information, see the website:" + System.lineSeparator() +
+							"https://github.com/liblit/csi-cc");
+				}
+			};
+			infoAction.setText("Information");
+			infoAction.setToolTipText("CSI Analysis Information");
+			infoAction.setImageDescriptor(PlatformUI.getWorkbench().getSharedImages()
+					.getImageDescriptor(ISharedImages.IMG_OBJS_INFO_TSK));
+
+			hookContextMenu(stackBrowserView);
+			hookDoubleClickAction();
+			contributeToActionBars(stackBrowserView);
+			
+			// set up the workspace/marker manager, and clear all local and global data in starting workspace
+			stackBrowserView.workspaceManager = new WorkspaceManager(shell);
+			stackBrowserView.annotationManager = new MarkerManager(stackBrowserView.workspaceManager);
+			stackBrowserView.clearGlobalAndLocalAnnotations();
+		}
+
+		/**
+		 * Swap newly-loaded analysis data into the viewers.
+		 *
+		 * @param stackBrowserView the view
+		 * @param data the loaded data
+		 */
+		private void showAnalysisData(StackBrowserView stackBrowserView, AnalysisData data){
+			boolean previouslyLoaded = stackBrowserView.state.get().isLoaded();
+			
+			// make sure to clear old markers (of the old data) before new data is shown
+			stackBrowserView.clearGlobalAndLocalAnnotations();
+			
+			// assign loaded data to the various viewers, and swap it in (as one new state)
+			stackTreeViewer.setInput(data.getLocalData());
+			globalLabelProvider.setFrequencies(data.getFrequencies());
+			globalTreeViewer.setInput(data.getGlobalData());
+			stackBrowserView.state.getAndUpdate(current -> current.withData(data));
+	
+			// massage the global view (resize columns; the label provider colors them)
+			Tree globalTree = globalTreeViewer.getTree();
+			for (int i = 0; i < globalTree.getColumnCount(); ++i)
+				globalTree.getColumn(i).pack();
+			
+			// utterly silly way to get the table (and surrounding composite) to resize and
+			// layout nicely...but it seems to work
+			traceContainer.layout(true, true);
+			Point viewSize = traceContainer.getSize();
+			viewSize.x += 1;
+			traceContainer.setSize(viewSize);
+			traceContainer.layout(true, true);
+			viewSize.x -= 1;
+			traceContainer.setSize(viewSize);
+			traceContainer.layout(true, true);
+	
+			// toggle the global button appropriately--start by not showing it, unless requested
+			globalAction.setChecked(false);
+	
+			stackBrowserView.clearFrame();
+			traceContainer.setVisible(true);
+			if (!previouslyLoaded)
+				updateActionBarsForLoadedData(stackBrowserView);
+		}
+
+		/**
+		 * Report the outcome of loading a directory of analysis files in one message: the time taken to
+		 * load each file, and why any file failed to load.
+		 *
+		 * @param batch the loaded batch
+		 */
+		private void showBatchSummary(AnalysisBatch batch){
+			final int failed = batch.getReports().size() - batch.getLoadedCount();
+			StringBuilder summary = new StringBuilder();
+			summary.append("Loaded " + batch.getLoadedCount() + " of " + batch.getReports().size() +
+					" CSI analysis files" + (failed > 0 ? " (" + failed + " failed)" : "") + System.lineSeparator());
+			for(AnalysisBatch.Report report : batch.getReports()){
+				summary.append(System.lineSeparator() + report.getName() + ": " + report.getLoadMillis() + " ms");
+				final String error = report.getError();
+				if(error != null)
+					summary.append(" -- FAILED: " + error);
+			}
+			
+			if(failed > 0)
+				Messages.showErrorMessage(getShell(), utils.NotNull.check(summary.toString()));
+			else
+				showMessage(utils.NotNull.check(summary.toString()));
+		}
+		
+		/**
+		 * Report, in one message, every loaded model with lines in more than one of its "yes", "no", and
+		 * "maybe" sets.  The conflicts were already found when the models were built, so this is cheap
+		 * even for very large data.  Stack frames that are loaded on demand and not yet loaded are skipped.
+		 *
+		 * @param stackBrowserView the view
+		 */
+		private void showConflictSummary(StackBrowserView stackBrowserView){
+			final AnalysisData data = stackBrowserView.state.get().getData();
+			if(data == null){
+				showMessage("CSI data not loaded.  Cannot check for conflicts");
+				return;
+			}
+			
+			StringBuilder details = new StringBuilder();
+			int checked = 0;
+			int conflicted = 0;
+			int skipped = 0;
+			for(FrameModel frame : data.getFrames()){
+				if(!frame.isMaterialized()){
+					++skipped;
+					continue;
+				}
+				++checked;
+				if(appendConflicts(details, conflicted, "Frame " + frame.getName() + " (" + frame.getFile() + ")", frame.getConflicts()))
+					++conflicted;
+			}
+			for(FileModel file : data.getGlobalData()){
+				++checked;
+				if(appendConflicts(details, conflicted, "File " + file.getFile(), file.getConflicts()))
+					++conflicted;
+			}
+			if(conflicted > MAX_LISTED_CONFLICTS)
+				details.append(System.lineSeparator() + "... and " + (conflicted - MAX_LISTED_CONFLICTS) + " more");
+			
+			String summary = conflicted + " of " + checked + " models have lines in more than one of the yes/no/maybe sets" +
+					(skipped > 0 ? " (" + skipped + " stack frames not yet loaded were not checked)" : "") +
+					System.lineSeparator() + details;
+			showMessage(utils.NotNull.check(summary));
+		}
+		
+		/**
+		 * Add one model's conflicts to a conflict report, unless it has none or the report is already full.
+		 *
+		 * @param details the report
+		 * @param listed the number of conflicting models already in the report
+		 * @param label the description of the model
+		 * @param conflicts the model's conflicts
+		 * @return true if the model has conflicts
+		 */
+		private boolean appendConflicts(StringBuilder details, int listed, String label, ConflictSummary conflicts){
+			if(!conflicts.hasConflicts())
+				return(false);
+			if(listed < MAX_LISTED_CONFLICTS)
+				details.append(System.lineSeparator() + label + ": " + conflicts);
+			return(true);
+		}
+		
+		/**
+		 * Place the markers of a comparison, and report it in one message: the numbers of changed lines,
+		 * and the stack frames with changes.
+		 *
+		 * @param stackBrowserView the view
+		 * @param diff the comparison of the earlier data with the loaded data
+		 * @param earlierPath the path to the earlier data's file
+		 */
+		private void showDiff(StackBrowserView stackBrowserView, AnalysisDiff diff, String earlierPath){
+			stackBrowserView.clearDiffAnnotations();
+			stackBrowserView.state.getAndUpdate(current -> current.withDiff(diff));
+			
+			long newlyExecuted = 0;
+			long noLongerExecuted = 0;
+			long resolved = 0;
+			int missing = 0;
+			final WorkspaceManager workspace = utils.NotNull.check(stackBrowserView.workspaceManager);
+			final AnnotationManager markers = utils.NotNull.check(stackBrowserView.annotationManager);
+			final Map<AnalysisDiff.LineDiff, IFile> markedFiles = new IdentityHashMap<>();
+			for(AnalysisDiff.LineDiff fileDiff : diff.getFileDiffs()){
+				newlyExecuted += fileDiff.getNewlyExecuted().size();
+				noLongerExecuted += fileDiff.getNoLongerExecuted().size();
+				resolved += fileDiff.getResolved().size();
+				
+				IFile theFile;
+				try{
+					theFile = workspace.findFileInWorkspace(fileDiff.getFile());
+				}
+				catch(MissingFileException e){
+					// (report these together, rather than with one error box per file)
+					++missing;
+					continue;
+				}
+				if(theFile != null)
+					markedFiles.put(fileDiff, theFile);
+			}
+			
+			// (then place all of the markers in one workspace operation)
+			markers.runBatched(() -> {
+				for(AnalysisDiff.LineDiff fileDiff : diff.getFileDiffs()){
+					final IFile theFile = markedFiles.get(fileDiff);
+					if(theFile != null)
+						markers.doDiffMarkers(theFile, fileDiff);
+				}
+			});
+			
+			StringBuilder summary = new StringBuilder();
+			summary.append("Compared with " + earlierPath + System.lineSeparator() + System.lineSeparator());
+			summary.append("Global data: " + diff.getFileDiffs().size() + " files changed (" + newlyExecuted +
+					" lines newly executed, " + noLongerExecuted + " no longer executed, " + resolved +
+					" resolved from maybe to yes)" + System.lineSeparator());
+			if(missing > 0)
+				summary.append(missing + " changed files were not found in the workspace" + System.lineSeparator());
+			summary.append("Stack data: " + diff.getFrameDiffs().size() + " frames changed (" +
+					diff.getUnmatchedFrameCount() + " frames only in one of the data)");
+			int listed = 0;
+			for(AnalysisDiff.LineDiff frameDiff : diff.getFrameDiffs()){
+				if(listed++ == MAX_LISTED_DIFFS){
+					summary.append(System.lineSeparator() + "... and " + (diff.getFrameDiffs().size() - MAX_LISTED_DIFFS) + " more");
+					break;
+				}
+				summary.append(System.lineSeparator() + frameDiff.getFunction() + " (" + frameDiff.getFile() + "): +" +
+						frameDiff.getNewlyExecuted().size() + " -" + frameDiff.getNoLongerExecuted().size() +
+						" maybe->yes " + frameDiff.getResolved().size());
+			}
+			showMessage(utils.NotNull.check(summary.toString()));
+		}
+		
+		private void setLoadActionsEnabled(boolean enabled){
+			loadDataAction.setEnabled(enabled);
+			loadDirectoryAction.setEnabled(enabled);
+			compareDataAction.setEnabled(enabled);
+		}
+
+		private void addLocalToolBar(IToolBarManager manager, ContributionItem item){
+			manager.add(item);
+		}
+
+		private void addLocalToolBar(IToolBarManager manager, Action action){
+			manager.add(action);
+		}
+
+		private void contributeToActionBars(StackBrowserView stackBrowserView) {
+			IActionBars bars = stackBrowserView.getViewSite().getActionBars();
+			fillLocalPullDown(utils.NotNull.check(bars.getMenuManager()));
+			fillLocalToolBar(utils.NotNull.check(bars.getToolBarManager()));
+		}
+
+		private void fillLocalPullDown(IMenuManager manager) {
+			manager.add(loadDirectoryAction);
+			manager.add(convertDataAction);
+			manager.add(lazyLoadAction);
+			manager.add(rangeMarkersAction);
+			manager.add(editorAnnotationsAction);
+			manager.add(checkConflictsAction);
+			manager.add(compareDataAction);
+			manager.add(new Separator());
+			manager.add(infoAction);
+		}
+
+		private void fillLocalToolBar(IToolBarManager manager) {
+			addLocalToolBar(manager, loadDataAction);
+		}
+
+		private Shell getShell() {
+			return utils.NotNull.check(traceContainer.getShell());
+		}
+
+		/**
+		 * Get the first line with any coverage data in a function.
+		 *
+		 * @param function the function
+		 * @return the smallest yes, no, or maybe line of the function, or 1 if it has none
+		 */
+		private int firstLine(FunctionModel function) {
+			int first = Integer.MAX_VALUE;
+			for(IntervalSet ranges : new IntervalSet[] {function.getExeYesRanges(), function.getExeNoRanges(), function.getExeMaybeRanges()}){
+				if(ranges.getRunCount() > 0)
+					first = Math.min(first, ranges.getStart(0));
+			}
+			return(first == Integer.MAX_VALUE ? 1 : first);
+		}
+
+		private void hookContextMenu(StackBrowserView stackBrowserView) {
+			MenuManager menuMgr = new MenuManager("#PopupMenu");
+			menuMgr.setRemoveAllWhenShown(true);
+			menuMgr.addMenuListener(StackBrowserView::fillContextMenu);
+			final TreeViewer treeViewer = utils.NotNull.check(stackTreeViewer);
+			Menu menu = menuMgr.createContextMenu(treeViewer.getControl());
+			treeViewer.getControl().setMenu(menu);
+			stackBrowserView.getSite().registerContextMenu(menuMgr, treeViewer);
+		}
+
+		private void hookDoubleClickAction() {
+			stackTreeViewer.addDoubleClickListener(event -> {
+				localClickAction.run();
+			});
+			
+			globalTreeViewer.addDoubleClickListener(event -> {
+				globalClickAction.run();
+			});
+		}
+
+		private void setFocus() {
+			stackTreeViewer.getControl().setFocus();
+		}
+
+		private void showMessage(String message) {
+			Messages.showMessage(getShell(), message);
+		}
+
+		private void updateActionBarsForLoadedData(StackBrowserView stackBrowserView){
+			IActionBars bars = stackBrowserView.getViewSite().getActionBars();
+			IToolBarManager manager = bars.getToolBarManager();
+			assert manager != null;
+			addLocalToolBar(manager, new Separator());
+			addLocalToolBar(manager, localAction);
+			addLocalToolBar(manager, globalAction);
+			addLocalToolBar(manager, new Separator());
+			addLocalToolBar(manager, backwardAction);
+			addLocalToolBar(manager, forwardAction);
+			bars.updateActionBars();
+		}
+
+		/**
+		 * Reveal the current path trace entry.  This method is specifically intended for cases where
+		 * the path trace markers were previously hidden, and you want to reveal them without changing
+		 * anything about the current entry.
+		 *
+		 * If you are changing path entries (i.e., stepping through the path trace), you should instead
+		 * use StackBrowserView.pathStep().
+		 */
+		private void revealCurrentPathEntry() {
+			// a bit tricky: do this by stepping 0 path trace entries from current
+			pathStep(0);
+		}
+		
+		/**
+		 * updateFwdBackButtons() will grey-out or make visible the step forward/backward buttons based
+		 * on the current frame + entry context.
+		 * @param stackBrowserView the view object (for context)
+		 */
+		private void updateFwdBackButtons(StackBrowserView stackBrowserView){
+			// Eclipse's shared images
+			ISharedImages images = PlatformUI.getWorkbench().getSharedImages();
+			
+			// determine which of the fwd/bwd buttons should be enabled
+			ImageDescriptor fwd;
+			boolean fwdEnabled;
+			ImageDescriptor bwd;
+			boolean bwdEnabled;
+			final BrowserState current = stackBrowserView.state.get();
+			final FrameModel frame = current.getFrame();
+			if(!localAction.isChecked() || frame == null || current.getPathEntry() < 1){
+				fwd = images.getImageDescriptor(ISharedImages.IMG_TOOL_FORWARD_DISABLED);
+				fwdEnabled = false;
+			}
+			else{
+				fwd = images.getImageDescriptor(ISharedImages.IMG_TOOL_FORWARD);
+				fwdEnabled = true;
+			}
+			if(!localAction.isChecked() || frame == null || !frame.hasChildren() ||
+					current.getPathEntry() > frame.getPathLength()-2){
+				bwd = images.getImageDescriptor(ISharedImages.IMG_TOOL_BACK_DISABLED);
+				bwdEnabled = false;
+			}
+			else{
+				bwd = images.getImageDescriptor(ISharedImages.IMG_TOOL_BACK);
+				bwdEnabled = true;
+			}
+			
+			forwardAction.setImageDescriptor(fwd);
+			forwardAction.setEnabled(fwdEnabled);
+			backwardAction.setImageDescriptor(bwd);
+			backwardAction.setEnabled(bwdEnabled);
+		}
+		
+		/**
+		 * Clean up components, and deactivate shortcut keys for actions.
+		 */
+		private void dispose() {
+			backwardActivation.getHandlerService().deactivateHandler(this.backwardActivation);
+			forwardActivation.getHandlerService().deactivateHandler(forwardActivation);
+		}
+	}
+
+	/**
+	 * The ID of the view as specified by the extension.
+	 */
+	public static final String ID = "csi.views.StackBrowserView";
+
+	// the loaded data, current frame and path entry, and shown comparison (replaced as a whole on change)
+	private final AtomicReference<BrowserState> state = new AtomicReference<>(BrowserState.EMPTY);
+	
+	private @Nullable ViewComponents viewComponents;
+	
+	// handling workspace file management and management of markers/annotations
+	private @Nullable WorkspaceManager workspaceManager;
+	private @Nullable AnnotationManager annotationManager;
+	// the stack-frame-local markers currently placed, or null if unknown (only used from the UI thread)
+	private @Nullable PlacedLocalMarkers placedLocalMarkers;
+	
+	/**
+	 * A record of the stack-frame-local markers placed by doFileMarkersLocal(), so that switching to another
+	 * frame of the same file only needs to change the markers of lines whose classification differs.
+	 */
+	private static final class PlacedLocalMarkers {
+		private final IFile file;
+		private final long modificationStamp;
+		private final CoverageClassification classification;
+		private final @Nullable AnalysisData data;
+		// the line index the tooltips were described from (null if there were no tooltips)
+		private final @Nullable LineIndex lineIndex;
+		private final boolean rangeMarkers;
+		
+		private PlacedLocalMarkers(IFile file, CoverageClassification classification, @Nullable AnalysisData data,
+				boolean rangeMarkers) {
+			this.file = file;
+			this.modificationStamp = file.getModificationStamp();
+			this.classification = classification;
+			this.data = data;
+			this.lineIndex = data == null ? null : data.getBuiltLineIndex();
+			this.rangeMarkers = rangeMarkers;
+		}
+		
+		/**
+		 * Check whether new markers for a file could be placed by updating these markers: i.e., the
+		 * markers are for the same unchanged file, the same data and line index (so the same tooltips),
+		 * and the same range mode.
+		 */
+		private boolean canUpdate(IFile otherFile, @Nullable AnalysisData otherData, boolean otherRangeMarkers){
+			return(file.equals(otherFile) && file.getModificationStamp() == modificationStamp &&
+					data == otherData && lineIndex == (otherData == null ? null : otherData.getBuiltLineIndex()) &&
+					rangeMarkers == otherRangeMarkers);
+		}
+	}
+	
+	/**
+	 * Load analysis data from a file in a background job, and show it once it has been loaded.  The
+	 * job can be canceled from the progress view; a canceled or failed load leaves the currently-shown
+	 * data as it is.
+	 *
+	 * @param path the path to the analysis data file
+	 */
+	private void loadAnalysisData(String path){
+		final ViewComponents components = utils.NotNull.check(viewComponents);
+		final Shell shell = components.getShell();
+		final Display display = utils.NotNull.check(shell.getDisplay());
+		final boolean lazy = components.lazyLoadAction.isChecked();
+		
+		// (only one load at a time)
+		components.setLoadActionsEnabled(false);
+		Job job = new Job("Loading CSI crash data") {
+			@Override
+			protected IStatus run(@Nullable IProgressMonitor monitor) {
+				AnalysisReader reader = new AnalysisReader(shell);
+				// (whatever happens, the next load is allowed, and the loaded data is only replaced on success)
+				Runnable update = () -> {};
+				try{
+					final AnalysisData data = reader.readAnalysis(path, lazy,
+							monitor == null ? new NullProgressMonitor() : monitor);
+					// (build the line index for marker tooltips now, rather than on the UI thread)
+					data.getLineIndex();
+					update = () -> components.showAnalysisData(StackBrowserView.this, data);
+					return(utils.NotNull.check(Status.OK_STATUS));
+				}
+				catch(OperationCanceledException e){
+					return(utils.NotNull.check(Status.CANCEL_STATUS));
+				}
+				catch(AnalysisFormatException e){
+					final String message = utils.NotNull.check(e.getMessage());
+					update = () -> showErrorMessage(message);
+					return(utils.NotNull.check(Status.OK_STATUS));
+				}
+				catch(RuntimeException e){
+					update = internalError("loading " + path, e);
+					return(utils.NotNull.check(Status.OK_STATUS));
+				}
+				finally{
+					finishLoad(display, update);
+				}
+			}
+		};
+		job.setUser(true);
+		job.schedule();
+	}
+	
+	/**
+	 * Load analysis data from every analysis file in a directory in a background job, and show it once
+	 * all files have been loaded: each file's stack frames under their own node, and the global data
+	 * of all files combined.  Load times and failures are reported together at the end.  The job can be
+	 * canceled from the progress view; a canceled or failed load leaves the currently-shown data as it is.
+	 *
+	 * @param directory the path to the directory
+	 */
+	private void loadAnalysisDirectory(String directory){
+		final ViewComponents components = utils.NotNull.check(viewComponents);
+		final Display display = utils.NotNull.check(components.getShell().getDisplay());
+		final boolean lazy = components.lazyLoadAction.isChecked();
+		
+		// (only one load at a time)
+		components.setLoadActionsEnabled(false);
+		Job job = new Job("Loading CSI crash data directory") {
+			@Override
+			protected IStatus run(@Nullable IProgressMonitor monitor) {
+				// (whatever happens, the next load is allowed, and the loaded data is only replaced on success)
+				Runnable update = () -> {};
+				try{
+					final AnalysisBatch batch = AnalysisBatch.read(directory, lazy,
+							monitor == null ? new NullProgressMonitor() : monitor);
+					// (build the line index for marker tooltips now, rather than on the UI thread)
+					batch.getData().getLineIndex();
+					update = () -> {
+						if(batch.getLoadedCount() > 0)
+							components.showAnalysisData(StackBrowserView.this, batch.getData());
+						components.showBatchSummary(batch);
+					};
+					return(utils.NotNull.check(Status.OK_STATUS));
+				}
+				catch(OperationCanceledException e){
+					return(utils.NotNull.check(Status.CANCEL_STATUS));
+				}
+				catch(AnalysisFormatException e){
+					final String message = utils.NotNull.check(e.getMessage());
+					update = () -> showErrorMessage(message);
+					return(utils.NotNull.check(Status.OK_STATUS));
+				}
+				catch(RuntimeException e){
+					update = internalError("loading " + directory, e);
+					return(utils.NotNull.check(Status.OK_STATUS));
+				}
+				finally{
+					finishLoad(display, update);
+				}
+			}
+		};
+		job.setUser(true);
+		job.schedule();
+	}
+	
+	/**
+	 * Convert a text analysis file to the binary format in a background job (see AnalysisConverter),
+	 * and report the result once it is done.  The job can be canceled from the progress view; a
+	 * canceled or failed conversion leaves no binary file.
+	 *
+	 * @param sourcePath the path to the text analysis data file
+	 * @param destinationPath the path of the binary analysis file to create (or replace)
+	 */
+	private void convertAnalysisData(String sourcePath, String destinationPath){
+		final ViewComponents components = utils.NotNull.check(viewComponents);
+		final Shell shell = components.getShell();
+		final Display display = utils.NotNull.check(shell.getDisplay());
+		
+		Job job = new Job("Converting CSI crash data") {
+			@Override
+			protected IStatus run(@Nullable IProgressMonitor monitor) {
+				AnalysisConverter converter = new AnalysisConverter(shell);
+				try{
+					converter.convertToBinary(sourcePath, destinationPath,
+							monitor == null ? new NullProgressMonitor() : monitor);
+					final String message = "Converted " + sourcePath + " (" + new File(sourcePath).length() + " bytes)" +
+							System.lineSeparator() + "to " + destinationPath + " (" +
+							new File(destinationPath).length() + " bytes)";
+					finishJob(display, () -> components.showMessage(message));
+					return(utils.NotNull.check(Status.OK_STATUS));
+				}
+				catch(OperationCanceledException e){
+					return(utils.NotNull.check(Status.CANCEL_STATUS));
+				}
+				catch(AnalysisFormatException e){
+					final String message = utils.NotNull.check(e.getMessage());
+					finishJob(display, () -> showErrorMessage(message));
+					return(utils.NotNull.check(Status.OK_STATUS));
+				}
+			}
+		};
+		job.setUser(true);
+		job.schedule();
+	}
+	
+	/**
+	 * Load earlier analysis data from a file in a background job, compare it with the loaded data, and
+	 * mark the differences (see AnalysisDiff).  The earlier data is not kept.  The job can be canceled
+	 * from the progress view.
+	 *
+	 * @param path the path to the earlier analysis data file
+	 */
+	private void compareAnalysisData(String path){
+		final ViewComponents components = utils.NotNull.check(viewComponents);
+		final Shell shell = components.getShell();
+		final Display display = utils.NotNull.check(shell.getDisplay());
+		final AnalysisData current = utils.NotNull.check(state.get().getData());
+		
+		// (the loaded data cannot change during the comparison)
+		components.setLoadActionsEnabled(false);
+		Job job = new Job("Comparing CSI crash data") {
+			@Override
+			protected IStatus run(@Nullable IProgressMonitor monitor) {
+				AnalysisReader reader = new AnalysisReader(shell);
+				// (whatever happens, the next load is allowed, and the loaded data stays as it is)
+				Runnable update = () -> {};
+				try{
+					final SubMonitor progress = utils.NotNull.check(SubMonitor.convert(monitor, 2));
+					final AnalysisData earlier = reader.readAnalysis(path, false,
+							utils.NotNull.check(progress.newChild(1)));
+					final AnalysisDiff diff = AnalysisDiff.compare(earlier, current,
+							utils.NotNull.check(progress.newChild(1)));
+					update = () -> components.showDiff(StackBrowserView.this, diff, path);
+					return(utils.NotNull.check(Status.OK_STATUS));
+				}
+				catch(OperationCanceledException e){
+					return(utils.NotNull.check(Status.CANCEL_STATUS));
+				}
+				catch(AnalysisFormatException e){
+					final String message = utils.NotNull.check(e.getMessage());
+					update = () -> showErrorMessage(message);
+					return(utils.NotNull.check(Status.OK_STATUS));
+				}
+				catch(RuntimeException e){
+					update = internalError("comparing with " + path, e);
+					return(utils.NotNull.check(Status.OK_STATUS));
+				}
+				finally{
+					finishLoad(display, update);
+				}
+			}
+		};
+		job.setUser(true);
+		job.schedule();
+	}
+	
+	/**
+	 * Report an unexpected failure of a background load (e.g., a bug, rather than a bad file), so that
+	 * the load still finishes normally.
+	 *
+	 * @param what what the load was doing (e.g., "loading" and the file's path)
+	 * @param e the failure
+	 * @return the UI update that shows the failure
+	 */
+	private Runnable internalError(String what, RuntimeException e){
+		e.printStackTrace();
+		final String message = "Internal error " + what + ": " + e;
+		return(() -> showErrorMessage(message));
+	}
+	
+	/**
+	 * Run the UI part of finishing a background load on the UI thread (unless the view has been closed
+	 * in the meantime), and allow the next load.
+	 *
+	 * @param display the display of the view
+	 * @param update what to do with the load's result
+	 */
+	private void finishLoad(Display display, Runnable update){
+		finishJob(display, () -> {
+			utils.NotNull.check(viewComponents).setLoadActionsEnabled(true);
+			update.run();
+		});
+	}
+	
+	/**
+	 * Finish a background job (e.g., a conversion) by updating the view on the UI thread, if the view
+	 * still exists.
+	 *
+	 * @param display the view's display
+	 * @param update the update to make on the UI thread
+	 */
+	private void finishJob(Display display, Runnable update){
+		if(display.isDisposed())
+			return;
+		display.asyncExec(() -> {
+			final ViewComponents components = this.viewComponents;
+			if(components == null || components.traceContainer.isDisposed())
+				return;
+			update.run();
+		});
+	}
+	
+	/**
+	 * createPartControl() is a callback function from the Eclipse UI that does necessary setup to create the viewer
+	 * and initialize it.
+	 * @param parent the parent container for this viewer
+	 */
+	@Override
+	public void createPartControl(@Nullable Composite parent) {
+		viewComponents = new ViewComponents(this, parent);
+	}
+	
+	/**
+	 * fillContextMenu() sets up actions for the right-click drop-down menu inside the viewer.  (Currently none.)
+	 * NOTE: It seems to support allowing further additions by other add-ons?  I don't know anything about this...it
+	 * was here in the sample that I started with.
+	 * @param manager the manager for the drop-down menu
+	 */
+	private static void fillContextMenu(@Nullable IMenuManager manager) {
+		// for now, we contribute nothing to the right-click drop-down menu
+		assert manager != null;
+		manager.add(new Separator(IWorkbenchActionConstants.MB_ADDITIONS));
+	}
+	
+	private void clearGlobalAndLocalAnnotations(){
+		utils.NotNull.check(annotationManager).runBatched(() -> {
+			clearWorkspaceAnnotations(AnnotationManager.globalAnnotationTypes);
+			clearWorkspaceAnnotations(AnnotationManager.localAnnotationTypes);
+			clearDiffAnnotations();
+		});
+	}
+	
+	private void clearDiffAnnotations(){
+		clearWorkspaceAnnotations(AnnotationManager.diffAnnotationTypes);
+		
+		// (a comparison may also have marked files that are only in the earlier data)
+		final AnalysisDiff diff = state.getAndUpdate(current -> current.withDiff(null)).getDiff();
+		if(diff != null){
+			for(AnalysisDiff.LineDiff fileDiff : diff.getFileDiffs())
+				clearAnnotationsIgnoringExceptions(fileDiff.getFile(), AnnotationManager.diffAnnotationTypes);
+		}
+	}
+	
+	private void doFileMarkersGlobal(IFile theFile, CodeModel model){
+		assert annotationManager != null;
+		final AnalysisData data = state.get().getData();
+		annotationManager.doFileMarkers(theFile, "csi.global", "Global", model.getClassification(),
+				line -> describeFramesAtLine(data, model.getFile(), line));
+	}
+	
+	private void doFileMarkersLocal(IFile theFile, CodeModel model){
+		final AnnotationManager manager = annotationManager;
+		assert manager != null;
+		final AnalysisData data = state.get().getData();
+		final CoverageClassification classification = model.getClassification();
+		final IntFunction<@Nullable String> lineDetails = line -> describeFramesAtLine(data, model.getFile(), line);
+		final PlacedLocalMarkers placed = placedLocalMarkers;
+		
+		// (the old markers go and the new ones come in one workspace operation)
+		manager.runBatched(() -> {
+			if(placed != null && placed.canUpdate(theFile, data, manager.isRangeMarkers())){
+				// another frame in the same file: only change the lines whose classification differs
+				manager.updateFileMarkers(theFile, "csi", "Local", placed.classification, classification, lineDetails);
+				return;
+			}
+			
+			// clear previous stack-frame-local markers: just those of the previous file, if we know it
+			// (Note that the full clearing must be done in the view, rather than in AnnotationManager, because it
+			// iterates through loaded data)
+			if(placed != null && placed.data == data)
+				manager.clearMarkers(placed.file, AnnotationManager.localAnnotationTypes);
+			else
+				clearWorkspaceAnnotations(AnnotationManager.localAnnotationTypes);
+			
+			manager.doFileMarkers(theFile, "csi", "Local", classification, lineDetails);
+		});
+		placedLocalMarkers = new PlacedLocalMarkers(theFile, classification, data, manager.isRangeMarkers());
+	}
+	
+	/**
+	 * Describe which stack frames of the loaded data executed, did not execute, or may have executed a
+	 * line (for marker tooltips).  This uses the data's line index (see AnalysisData.getLineIndex()), so
+	 * it is fast no matter how many frames are loaded.  (The index is built by the load job, never here.)
+	 *
+	 * @param data the loaded data, or null if none is loaded
+	 * @param file the file name (as in the analysis data)
+	 * @param line the line
+	 * @return the description, or null if no frame has the line (or the data has no line index)
+	 */
+	private @Nullable String describeFramesAtLine(@Nullable AnalysisData data, String file, int line){
+		final LineIndex index = data == null ? null : data.getBuiltLineIndex();
+		if(index == null)
+			return(null);
+		final int[] entries = index.find(file, line);
+		if(entries.length == 0)
+			return(null);
+		
+		final String[] labels = { "executed by", "not executed by", "maybe executed by" };
+		final int[] counts = new int[labels.length];
+		final StringBuilder[] names = new StringBuilder[labels.length];
+		for(int i = 0; i < names.length; ++i)
+			names[i] = new StringBuilder();
+		for(int entry : entries){
+			final int category = LineIndex.categoryOf(entry);
+			if(counts[category]++ < MAX_FRAMES_PER_LINE)
+				names[category].append(counts[category] > 1 ? ", " : "").append(index.getFrame(LineIndex.frameOf(entry)).getName());
+			else if(counts[category] == MAX_FRAMES_PER_LINE + 1)
+				names[category].append(", ...");
+		}
+		
+		StringBuilder description = new StringBuilder("Stack frames:");
+		String separator = " ";
+		for(int category = 0; category < labels.length; ++category){
+			if(counts[category] == 0)
+				continue;
+			description.append(separator + labels[category] + " " + counts[category] + " (" + names[category] + ")");
+			separator = "; ";
+		}
+		return(description.toString());
+	}
+	
+	private void clearFrame(){
+		updateFrameAndPathEntry(null, -1);
+	}
+	
+	/**
+	 * updateFrameAndPathEntry() updates the current frame and the current active path entry for that frame.
+	 * Note that both inputs are validated: the only valid entry for a null frame is -1, and entries for non-null
+	 * frames are valid if they are within the number of path entries for that frame.
+	 *
+	 * @param frame the newly current stack frame model
+	 * @param entry the newly current path trace entry index
+	 */
+	private void updateFrameAndPathEntry(@Nullable FrameModel frame, int entry){
+		final ViewComponents components = viewComponents;
+		assert components != null;
+
+		// check input validity
+		if(frame == null && entry != -1){
+			showErrorMessage("Internal error: attempt to set index for no local frame");
+			clearFrame();
+			return;
+		}
+		else if(frame != null && (entry < 0 || !frame.hasChildren() || entry > frame.getPathLength() - 1)){
+			showErrorMessage("Internal error: attempt to set invalid path index for frame");
+			clearFrame();
+			return;
+		}
+		
+		// update the values
+		final BrowserState previous = this.state.getAndUpdate(current -> current.withFrame(frame, entry));
+		boolean updatedFrame = frame != previous.getFrame();
+		int prevEntry = previous.getPathEntry();
+		
+		// grey-out or make-visible the forward/backward buttons, if appropriate
+		boolean movedToOrFromEnd = prevEntry != entry &&
+				(frame == null || entry == 0 || entry == frame.getPathLength()-1 ||
+				 prevEntry <= 0 || prevEntry == frame.getPathLength()-1);
+		if(updatedFrame || movedToOrFromEnd)
+			components.updateFwdBackButtons(this);
+	}
+	
+	/**
+	 * updatePathEntry() updates the current active path entry for the current active frame.
+	 * Note that both input is validated as: the only valid entry for a null frame is -1, and entries for non-null
+	 * frames are valid if they are within the number of path entries for that frame.  Thus, the caller should be
+	 * aware of the current frame, or call updateFrameAndPathEntry() instead.
+	 *
+	 * @param entry the newly current path trace entry index
+	 */
+	private void updatePathEntry(int entry){
+		updateFrameAndPathEntry(this.state.get().getFrame(), entry);
+	}
+	
+	private void pathStep(int amount){
+		final BrowserState current = this.state.get();
+		final FrameModel frame = current.getFrame();
+		if(!current.isLoaded() || frame == null || current.getPathEntry() < 0)
+			return;
+		
+		// get the number of lines (steps / children) in the current frame
+		final int pathLength = frame.getPathLength();
+		
+		// (fix up in case errors have occurred setting the path value to something invalid)
+		int newValue = Math.min(current.getPathEntry(), pathLength - 1) + amount;
+		if(newValue < 0 || newValue > pathLength - 1)
+			return;
+		updatePathEntry(newValue);
+		
+		final LineModel theLine = frame.getPathEntry(newValue);
+		utils.NotNull.check(viewComponents).stackTreeViewer.setSelection(new StructuredSelection(theLine), true);
+		
+		// TODO: clean this up.  (It sets the "current" and "prev/next" arrows for path entries.)
+		IFile theFile = openFileAndGotoLine(utils.NotNull.check(theLine.getParent()).getFile(), theLine.getLine());
+		if(theFile == null){
+			showErrorMessage("Internal error: could not open path entry file");
+			return;
+		}
+		final AnnotationManager manager = annotationManager;
+		assert manager != null;
+		LineSet currentLines = LineSet.of(theLine.getLine());
+		LineSet nextLines = new LineSet();
+		if(newValue > 0)
+			nextLines.add(frame.getPathLine(newValue-1));
+		if(newValue < pathLength-1)
+			nextLines.add(frame.getPathLine(newValue+1));
+		manager.runBatched(() -> {
+			manager.clearMarkers(theFile, "csi.path.currentMarker");
+			manager.clearMarkers(theFile, "csi.path.nextMarker");
+			manager.setMarkers(theFile, currentLines, "csi.path.currentMarker", "Current path entry");
+			manager.setMarkers(theFile, nextLines, "csi.path.nextMarker", "Adjacent path entry");
+		});
+	}
+	
+	/*
+	private IFile createTempCopyOfFile(IFile file){
+		if(file == null)
+			return(null);
+		
+		String tempDir = System.getProperty("java.io.tmpdir");
+		System.out.println("temp dir is: " + tempDir);
+		
+		IFile newFile = file.getProject().getFile(tempDir + file.getName());
+		//theFile.getResourceAttributes().setReadOnly(true);
+		//theFile.setResourceAttributes(theFile.getResourceAttributes());
+		theFile.setReadOnly(true);
+		return(newFile);
+	}
+	*/
+	
+	/**
+	 * openFileAndGotoLine() opens the specified file in its default editor, then seeks to the specified line in
+	 * that file.
+	 *
+	 * @param fileName the file to open (as a path or filename)
+	 * @param gotoLine the line to seek to
+	 * @return the file reference, if successfully opened and focused.  Otherwise, null.
+	 */
+	private @Nullable IFile openFileAndGotoLine(String fileName, int gotoLine){
+		assert workspaceManager != null;
+		IFile theFile;
+		try {
+			theFile = utils.NotNull.check(workspaceManager).findFileInWorkspace(fileName);
+		}
+		catch (MissingFileException e) {
+			showErrorMessage(utils.NotNull.check(e.getMessage()));
+			return(null);
+		}
+		
+		// TODO: update this after further refactoring.  findFileInWorkspace() will eventually be
+		// non-nullable and return all problems as exceptions
+		if(theFile == null){
+			// a serious error occurred while searching for the file.
+			// An error should already be printed in the callee
+			return(null);
+		}
+
+		// get the current workbench and page from the Eclipse UI
+		IWorkbenchWindow eclipseWindow = PlatformUI.getWorkbench().getActiveWorkbenchWindow();
+		if(eclipseWindow == null){
+			showErrorMessage("Internal error.  Unexpected file search from non-UI thread");
+			return(null);
+		}
+		IWorkbenchPage eclipsePage = eclipseWindow.getActivePage();
+		if(eclipsePage == null){
+			showErrorMessage("Internal error.  No eclipse page due to call from non-UI thread");
+			return(null);
+		}
+		
+		// find the appropriate editor for the file
+		IEditorDescriptor defaultEditor =
+				PlatformUI.getWorkbench().getEditorRegistry().getDefaultEditor(theFile.getName());
+		if(defaultEditor == null){
+			// fall back on default text editor -- this is an unfortunate thing to do
+			defaultEditor = PlatformUI.getWorkbench().getEditorRegistry().getDefaultEditor("test.txt");
+		}
+		
+		// open the editor and get document parts and things
+		IEditorPart openedEditor;
+		try{
+			openedEditor = eclipsePage.openEditor(new FileEditorInput(theFile), defaultEditor.getId());
+		}
+		catch(PartInitException e){
+			showErrorMessage("Some crazy exception initializing parts");
+			e.printStackTrace();
+			return(null);
+		}
+		if(openedEditor == null || !(openedEditor instanceof ITextEditor)){
+			showErrorMessage("Internal error: Text editor properties unexpected.");
+			return(null);
+		}
+		ITextEditor editor = (ITextEditor)openedEditor;
+		IDocumentProvider provider = editor.getDocumentProvider();
+		IDocument document = provider.getDocument(editor.getEditorInput());
+		
+		// go to the appropriate line (if it exists)
+		try {
+			// a hack to get it to center the line in the editor (there seems to be no simple way to do this)
+			editor.selectAndReveal(0, 0);
+			
+			// seems to go one line too far (0-indexed array?)
+			int start = document.getLineOffset(gotoLine-1) +
+					document.getLineInformation(gotoLine-1).getLength();
+			editor.selectAndReveal(start, 0);
+		}
+		catch (BadLocationException e) {
+			showErrorMessage("Provided line number '" + gotoLine + "' does not exist in file");
+			return(null);
+		}
+		
+		return(theFile);
+	}
+	
+	private void clearAnnotationsIgnoringExceptions(String file, @NonNull String[] annotationTypes){
+		if(annotationManager == null)
+			return;
+		
+		try{
+			// TODO: I get an error without this non-null assertion here.  Why?
+			utils.NotNull.check(annotationManager).clearMarkers(file, utils.NotNull.check(annotationTypes));
+		}
+		catch(MissingFileException e){
+			// ignore this Exception: we should not show huge numbers of error boxes
+			// just to try to clear annotations for analysis data
+		}
+	}
+	
+	private void clearWorkspaceAnnotations(String[] types){
+		// (this may clear local markers, so their record must go too)
+		placedLocalMarkers = null;
+		
+		// (one batch of changes for every file, see AnnotationManager.runBatched())
+		utils.NotNull.check(annotationManager).runBatched(() -> clearAllAnnotations(types));
+	}
+	
+	private void clearAllAnnotations(String[] types){
+		// clear all annotations from all files in the current workspace
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		final AnnotationManager manager = utils.NotNull.check(annotationManager);
+		for (IProject project : root.getProjects()) {
+			// clear annotations from open projects
+			if(!project.exists()){
+				showErrorMessage("Plugin returned non-existant project while clearing annotations");
+				return;
+			}
+			else if(project.isOpen()){
+				manager.clearMarkers(project, types);
+			}
+		}
+		
+		// clear all annotations from all files currently open in editors
+		IEditorReference[] editors =
+				PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage().getEditorReferences();
+		try{
+			for(IEditorReference editor : editors){
+				if(editor.getEditorInput() instanceof FileEditorInput){
+					FileEditorInput fileEditor = (FileEditorInput)editor.getEditorInput();
+					final IFile file = fileEditor.getFile();
+					assert file != null;
+					manager.clearMarkers(file, types);
+				}
+			}
+		}
+		catch(PartInitException e){
+			showErrorMessage("Error accessing open editors");
+			e.printStackTrace();
+		}
+		
+		// clear all annotations from all files in loaded CSI execution data
+		final AnalysisData data = state.get().getData();
+		if(data != null){
+			for(FrameModel fData : data.getFrames())
+				clearAnnotationsIgnoringExceptions(fData.getFile(), types);
+			for(FileModel fData : data.getGlobalData()){
+				clearAnnotationsIgnoringExceptions(fData.getFile(), types);
+			}
+		}
+	}
+	
+	/**
+	 * Necessary clean-up for the view.  Specifically, we need to remove all annotations, and
+	 * clean up the view components (i.e., disable all actions and keyboard shortcuts).
+	 */
+	@Override
+	public void dispose() {
+		clearGlobalAndLocalAnnotations();
+		utils.NotNull.check(annotationManager).dispose();
+		
+		// dispose the view components (disables all keyboard shortcuts)
+		utils.NotNull.check(this.viewComponents).dispose();
+	}
+
+	private void showErrorMessage(String message){
+		final ViewComponents components = utils.NotNull.check(viewComponents);
+		Messages.showErrorMessage(components.getShell(), message);
+	}
+	
+	/**
+	 * Passing the focus request to the viewer's control.
+	 */
+	@Override
+	public void setFocus() {
+		utils.NotNull.check(viewComponents).setFocus();
+	}
+}
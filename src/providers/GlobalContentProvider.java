@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package providers;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.Viewer;
+
+import csi.models.FileModel;
+
+/**
+ * GlobalContentProvider is the provider for tree content for global analysis data models.  The input is
+ * the array of FileModels; each file's children are its FunctionModels.
+ */
+public class GlobalContentProvider implements ITreeContentProvider {
+	
+	@Override
+	public Object @Nullable[] getElements(@Nullable Object inputElement) {
+		if(inputElement instanceof FileModel[])
+			return((FileModel[])inputElement);
+		return(new Object[0]);
+	}
+
+	@Override
+	public void dispose() {
+
+	}
+
+	@Override
+	public void inputChanged(@Nullable Viewer viewer, @Nullable Object oldInput, @Nullable Object newInput) {
+
+	}
+
+	@Override
+	public Object @Nullable[] getChildren(@Nullable Object parentElement) {
+		if(parentElement instanceof FileModel)
+			return(((FileModel)parentElement).getFunctions());
+		return(new Object[0]);
+	}
+
+	@Override
+	public @Nullable Object getParent(@Nullable Object element) {
+		// (function models do not keep a reference to their file)
+		return(null);
+	}
+
+	@Override
+	public boolean hasChildren(@Nullable Object element) {
+		return(element instanceof FileModel && ((FileModel)element).hasFunctions());
+	}
+
+}
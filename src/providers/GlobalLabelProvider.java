@@ -1,66 +1,135 @@
-/**
- * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
- * 
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- * 
- *     http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package providers;
-
-import org.eclipse.jdt.annotation.Nullable;
-import org.eclipse.jface.viewers.ITableLabelProvider;
-import org.eclipse.jface.viewers.LabelProvider;
-import org.eclipse.swt.graphics.Image;
-
-import csi.Activator;
-import csi.models.FileModel;
-
-/**
- * GlobalLabelProvider is the provider for labels and images for global analysis data models.
- */
-public class GlobalLabelProvider extends LabelProvider implements ITableLabelProvider {
-
-	@Override
-	public @Nullable Image getColumnImage(@Nullable Object element, int columnIndex) {
-		if(!(element instanceof FileModel) || columnIndex != 0){
-			return(null);
-		}
-		FileModel model = (FileModel)element;
-		
-		// compute the image based on the coverage data:
-		// if(yes > 0%) green; else if(maybe > 0%) yellow; else red;
-		if(model.getExeYesSize() > 0)
-			return(Activator.getImage("icons/green_circle_small.png"));
-		else if(model.getExeMaybeSize() > 0)
-			return(Activator.getImage("icons/yellow_diamond_small.png"));
-		else
-			return(Activator.getImage("icons/red_square_small.png"));
-	}
-
-	@Override
-	public @Nullable String getColumnText(@Nullable Object element, int columnIndex) {
-		if(!(element instanceof FileModel)){
-			return(null);
-		}
-		FileModel model = (FileModel)element;
-		
-		switch(columnIndex){
-		case 0: return(null);
-		case 1: return(model.getFile());
-		case 2: return Integer.toString(model.getExeYesSize());
-		case 3: return Integer.toString(model.getExeNoSize());
-		case 4: return Integer.toString(model.getExeMaybeSize());
-		default: return(null);
-		}
-	}
-
-}
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package providers;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jface.viewers.ITableColorProvider;
+import org.eclipse.jface.viewers.ITableLabelProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Display;
+
+import csi.Activator;
+import csi.analysis.LineFrequencies;
+import csi.models.CodeModel;
+import csi.models.FileModel;
+import csi.models.FunctionModel;
+
+/**
+ * GlobalLabelProvider is the provider for labels, images, and colors for global analysis data models
+ * (files, and the functions within them).  All counts come from the models' already-maintained sets
+ * (and, for several reports, from their already-aggregated LineFrequencies), so nothing is recomputed as
+ * rows are drawn.
+ */
+public class GlobalLabelProvider extends LabelProvider implements ITableLabelProvider, ITableColorProvider {
+	private final Display display;
+	private @Nullable LineFrequencies frequencies = null;
+	
+	/**
+	 * The constructor requires the display of the viewer, for the column colors.
+	 *
+	 * @param display the display of the viewer using this provider
+	 */
+	public GlobalLabelProvider(Display display){
+		this.display = display;
+	}
+	
+	/**
+	 * Set the per-line report counts shown in the crash count columns.
+	 *
+	 * @param frequencies the counts of the shown data, or null if it is from a single report
+	 */
+	public void setFrequencies(@Nullable LineFrequencies frequencies){
+		this.frequencies = frequencies;
+	}
+
+	@Override
+	public @Nullable Image getColumnImage(@Nullable Object element, int columnIndex) {
+		if(!(element instanceof FileModel || element instanceof FunctionModel) || columnIndex != 0){
+			return(null);
+		}
+		CodeModel model = (CodeModel)element;
+		
+		// compute the image based on the coverage data:
+		// if(yes > 0%) green; else if(maybe > 0%) yellow; else red;
+		if(model.getExeYesSize() > 0)
+			return(Activator.getImage("icons/green_circle_small.png"));
+		else if(model.getExeMaybeSize() > 0)
+			return(Activator.getImage("icons/yellow_diamond_small.png"));
+		else
+			return(Activator.getImage("icons/red_square_small.png"));
+	}
+
+	@Override
+	public @Nullable String getColumnText(@Nullable Object element, int columnIndex) {
+		if(!(element instanceof FileModel || element instanceof FunctionModel)){
+			return(null);
+		}
+		CodeModel model = (CodeModel)element;
+		
+		switch(columnIndex){
+		case 0: return(null);
+		case 1: return(model.toString());
+		case 2: return Integer.toString(model.getExeYesSize());
+		case 3: return Integer.toString(model.getExeNoSize());
+		case 4: return Integer.toString(model.getExeMaybeSize());
+		case 5:
+			if(!(model instanceof FileModel))
+				return(null);
+			FileModel file = (FileModel)model;
+			return(file.getExecutedFunctionCount() + " / " + file.getFunctionCount());
+		case 6:
+		case 7:
+			return(this.getCrashCountText(model, columnIndex));
+		default: return(null);
+		}
+	}
+	
+	private @Nullable String getCrashCountText(CodeModel model, int columnIndex){
+		final LineFrequencies frequencies = this.frequencies;
+		if(frequencies == null || !(model instanceof FileModel))
+			return(null);
+		final LineFrequencies.FileCounts counts = frequencies.getCounts(model.getFile());
+		if(counts == null)
+			return(null);
+		
+		if(columnIndex == 6)
+			return(counts.getExecutedReportCount() + " / " + frequencies.getReportCount());
+		final int line = counts.getHottestLine();
+		if(line < 0)
+			return(null);
+		return(line + " (" + counts.getYesCount(line) + ")");
+	}
+
+	@Override
+	public @Nullable Color getForeground(@Nullable Object element, int columnIndex) {
+		switch(columnIndex){
+		case 2: return(this.display.getSystemColor(SWT.COLOR_GREEN));
+		case 3: return(this.display.getSystemColor(SWT.COLOR_RED));
+		case 4: return(this.display.getSystemColor(SWT.COLOR_DARK_YELLOW));
+		default: return(null);
+		}
+	}
+
+	@Override
+	public @Nullable Color getBackground(@Nullable Object element, int columnIndex) {
+		return(null);
+	}
+
+}
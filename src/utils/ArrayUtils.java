@@ -1,90 +1,220 @@
-/**
- * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
- * 
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- * 
- *     http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package utils;
-
-import java.lang.reflect.Array;
-
-/**
- * ArrayUtils is a purely static utility class containing methods for array type manipulation.
- * TODO: rewrite most or all of this with lambdas.
- */
-public final class ArrayUtils {
-
-	/**
-	 * An unused function emulating the functional-style "map" function.
-	 * 
-	 * @param from the source array
-	 * @param f the map function
-	 * @return the new array after applying "f" to each element of "from"
-	 */
-	public static <F, T> T[] map(F[] from, Lambdas.OneArg<T, F> f){
-        // can't do this: ...Java
-		//T[] result = new T[from.length];
-        
-        // so instead do this:...Java
-        Class<T> x = null;
-        @SuppressWarnings("unchecked")
-		T[] result = (T[]) Array.newInstance(x, from.length); // Type safety: Unchecked cast from Object to T[]
-        System.out.println("in this case: "+result.getClass().getComponentType().getSimpleName());
-        
-		for(int i = 0; i < from.length; ++i){
-			result[i] = f.apply(from[i]);
-		}
-		return result;
-	}
-	
-	/**
-	 * Convert an input array of String to an array of int.
-	 * 
-	 * @param input the input array
-	 * @return an array of input.length with each element converted to an int
-	 * @throws NumberFormatException if any element of "input" does not expressed a signed
-	 * decimal integer (i.e., cannot be converted to an int via Integer.parseInt)
-	 */
-	public static int[] stringArrayToIntArray(String[] input) throws NumberFormatException {
-		int[] result = new int[input.length];
-		for(int i = 0; i < input.length; ++i){
-			// might throw NumberFormatException
-			result[i] = Integer.parseInt(input[i]);
-		}
-		return(result);
-	}
-	
-	/**
-	 * Convert an input string (with entries separated by ",") to an array of ints.
-	 * 
-	 * @param input the input string
-	 * @return the corresponding array of int
-	 * @throws NumberFormatException if any element of "input" does not expressed a signed
-	 * decimal integer (i.e., cannot be converted to an int via Integer.parseInt)
-	 */
-	public static int[] linesArrayForLineString(String input) throws NumberFormatException {
-		if(input.trim().isEmpty())
-			return(new int[0]);
-
-		String[] yesString = input.trim().split(",");
-		// could re-throw NumberFormatException
-		assert yesString != null;
-		return(stringArrayToIntArray(yesString));
-	}
-	
-	private ArrayUtils() {
-		// cannot instantiate this class
-		System.exit(1);
-	}
-
-}
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package utils;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+
+/**
+ * ArrayUtils is a purely static utility class containing methods for array type manipulation.
+ * TODO: rewrite most or all of this with lambdas.
+ */
+public final class ArrayUtils {
+
+	/**
+	 * An unused function emulating the functional-style "map" function.
+	 *
+	 * @param from the source array
+	 * @param f the map function
+	 * @return the new array after applying "f" to each element of "from"
+	 */
+	public static <F, T> T[] map(F[] from, Lambdas.OneArg<T, F> f){
+        // can't do this: ...Java
+		//T[] result = new T[from.length];
+        
+        // so instead do this:...Java
+        Class<T> x = null;
+        @SuppressWarnings("unchecked")
+		T[] result = (T[]) Array.newInstance(x, from.length); // Type safety: Unchecked cast from Object to T[]
+        System.out.println("in this case: "+result.getClass().getComponentType().getSimpleName());
+        
+		for(int i = 0; i < from.length; ++i){
+			result[i] = f.apply(from[i]);
+		}
+		return result;
+	}
+	
+	/**
+	 * Convert an input array of String to an array of int.
+	 *
+	 * @param input the input array
+	 * @return an array of input.length with each element converted to an int
+	 * @throws NumberFormatException if any element of "input" does not expressed a signed
+	 * decimal integer (i.e., cannot be converted to an int via Integer.parseInt)
+	 */
+	public static int[] stringArrayToIntArray(String[] input) throws NumberFormatException {
+		int[] result = new int[input.length];
+		for(int i = 0; i < input.length; ++i){
+			// might throw NumberFormatException
+			result[i] = Integer.parseInt(input[i]);
+		}
+		return(result);
+	}
+	
+	/**
+	 * Convert an input string (with entries separated by ",") to an array of ints.
+	 *
+	 * @param input the input string
+	 * @return the corresponding array of int
+	 * @throws NumberFormatException if any element of "input" does not expressed a signed
+	 * decimal integer (i.e., cannot be converted to an int via Integer.parseInt)
+	 */
+	public static int[] linesArrayForLineString(String input) throws NumberFormatException {
+		IntList lines = new IntList();
+		// could re-throw NumberFormatException
+		parseLines(input, lines);
+		return(lines.toArray());
+	}
+	
+	/**
+	 * Parse an input string of entries separated by "," into a list of ints, without creating a
+	 * String for any entry.  The input is accepted (and rejected) exactly as by linesArrayForLineString():
+	 * the input is trimmed, trailing empty entries are ignored, and each other entry must be accepted by
+	 * Integer.parseInt.
+	 *
+	 * @param input the input characters
+	 * @param lines the list to append the entries to
+	 * @throws NumberFormatException if any entry does not express a signed decimal integer
+	 */
+	public static void parseLines(CharSequence input, IntList lines) throws NumberFormatException {
+		int start = 0;
+		int end = input.length();
+		while(start < end && input.charAt(start) <= ' ')
+			++start;
+		while(end > start && input.charAt(end - 1) <= ' ')
+			--end;
+		// (like String.split(), ignore trailing empty entries)
+		while(end > start && input.charAt(end - 1) == ',')
+			--end;
+		
+		int entryStart = start;
+		for(int i = start; i < end; ++i){
+			if(input.charAt(i) == ','){
+				lines.add(parseInt(input, entryStart, i));
+				entryStart = i + 1;
+			}
+		}
+		if(end > start)
+			lines.add(parseInt(input, entryStart, end));
+	}
+	
+	/**
+	 * Parse a range of bytes (entries of ASCII digits separated by ",") into a list of ints, with the same
+	 * rules as parseLines(CharSequence, IntList).  The buffer is only read with absolute gets.
+	 *
+	 * @param input the input bytes
+	 * @param start the first byte to parse
+	 * @param end one past the last byte to parse
+	 * @param lines the list to append the entries to
+	 * @throws NumberFormatException if any entry does not express a signed decimal integer
+	 */
+	public static void parseLines(ByteBuffer input, int start, int end, IntList lines) throws NumberFormatException {
+		// (String.trim() treats every character up to and including ' ' as whitespace)
+		while(start < end && (input.get(start) & 0xff) <= ' ')
+			++start;
+		while(end > start && (input.get(end - 1) & 0xff) <= ' ')
+			--end;
+		while(end > start && input.get(end - 1) == ',')
+			--end;
+		
+		int entryStart = start;
+		for(int i = start; i < end; ++i){
+			if(input.get(i) == ','){
+				lines.add(parseInt(input, entryStart, i));
+				entryStart = i + 1;
+			}
+		}
+		if(end > start)
+			lines.add(parseInt(input, entryStart, end));
+	}
+	
+	/**
+	 * Parse a signed decimal int from a range of characters, accepting exactly what Integer.parseInt()
+	 * accepts.
+	 *
+	 * @param input the input characters
+	 * @param start the first character of the number
+	 * @param end one past the last character of the number
+	 * @return the parsed value
+	 * @throws NumberFormatException if the range does not express a signed decimal integer
+	 */
+	public static int parseInt(CharSequence input, int start, int end) throws NumberFormatException {
+		int i = start;
+		boolean negative = false;
+		if(i < end && (input.charAt(i) == '-' || input.charAt(i) == '+')){
+			negative = input.charAt(i) == '-';
+			++i;
+		}
+		if(i == end)
+			throw numberFormatException(input.subSequence(start, end));
+		
+		final long limit = negative ? -(long)Integer.MIN_VALUE : Integer.MAX_VALUE;
+		long value = 0;
+		for(; i < end; ++i){
+			final int digit = Character.digit(input.charAt(i), 10);
+			if(digit < 0)
+				throw numberFormatException(input.subSequence(start, end));
+			value = value * 10 + digit;
+			if(value > limit)
+				throw numberFormatException(input.subSequence(start, end));
+		}
+		return((int)(negative ? -value : value));
+	}
+	
+	/**
+	 * Parse a signed decimal int from a range of ASCII bytes, accepting exactly what Integer.parseInt()
+	 * accepts for ASCII input.
+	 *
+	 * @param input the input bytes
+	 * @param start the first byte of the number
+	 * @param end one past the last byte of the number
+	 * @return the parsed value
+	 * @throws NumberFormatException if the range does not express a signed decimal integer
+	 */
+	public static int parseInt(ByteBuffer input, int start, int end) throws NumberFormatException {
+		int i = start;
+		boolean negative = false;
+		if(i < end && (input.get(i) == '-' || input.get(i) == '+')){
+			negative = input.get(i) == '-';
+			++i;
+		}
+		if(i == end)
+			throw new NumberFormatException("Missing digits");
+		
+		final long limit = negative ? -(long)Integer.MIN_VALUE : Integer.MAX_VALUE;
+		long value = 0;
+		for(; i < end; ++i){
+			final int digit = input.get(i) - '0';
+			if(digit < 0 || digit > 9)
+				throw new NumberFormatException("Invalid digit");
+			value = value * 10 + digit;
+			if(value > limit)
+				throw new NumberFormatException("Value out of range");
+		}
+		return((int)(negative ? -value : value));
+	}
+	
+	private static NumberFormatException numberFormatException(CharSequence input) {
+		return(new NumberFormatException("For input string: \"" + input + "\""));
+	}
+	
+	private ArrayUtils() {
+		// cannot instantiate this class
+		System.exit(1);
+	}
+
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package utils;
+
+/**
+ * IntList is a growable list of primitive ints.  It is meant to be reused as a scratch buffer (see clear()),
+ * so that collecting numbers allocates nothing once the buffer is large enough.
+ */
+public final class IntList {
+	private int[] values;
+	private int size = 0;
+	
+	/**
+	 * Construct an empty list with a small initial capacity.
+	 */
+	public IntList() {
+		this(16);
+	}
+	
+	/**
+	 * Construct an empty list with the specified initial capacity.
+	 *
+	 * @param capacity the initial capacity
+	 * @throws IllegalArgumentException if the capacity is negative
+	 */
+	public IntList(int capacity) throws IllegalArgumentException {
+		if(capacity < 0)
+			throw new IllegalArgumentException("Invalid negative capacity '" + capacity + "'");
+		this.values = new int[capacity];
+	}
+	
+	/**
+	 * Add a value to the end of the list.
+	 *
+	 * @param value the value to add
+	 */
+	public void add(int value){
+		if(this.size == this.values.length){
+			int[] grown = new int[Math.max(16, this.values.length * 2)];
+			System.arraycopy(this.values, 0, grown, 0, this.size);
+			this.values = grown;
+		}
+		this.values[this.size++] = value;
+	}
+	
+	/**
+	 * Get the value at an index.
+	 *
+	 * @param index the index
+	 * @return the value at "index"
+	 * @throws IndexOutOfBoundsException if the index is not in [0, size())
+	 */
+	public int get(int index) throws IndexOutOfBoundsException {
+		if(index < 0 || index >= this.size)
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + this.size);
+		return(this.values[index]);
+	}
+	
+	/**
+	 * Get the number of values in the list.
+	 *
+	 * @return the size of the list
+	 */
+	public int size(){
+		return(this.size);
+	}
+	
+	/**
+	 * Return whether the list is empty.
+	 *
+	 * @return true if the list has no values
+	 */
+	public boolean isEmpty(){
+		return(this.size == 0);
+	}
+	
+	/**
+	 * Remove all values from the list (keeping its capacity).
+	 */
+	public void clear(){
+		this.size = 0;
+	}
+	
+	/**
+	 * Copy the values to a new array of exactly the list's size.
+	 *
+	 * @return the values, in order
+	 */
+	public int[] toArray(){
+		int[] result = new int[this.size];
+		System.arraycopy(this.values, 0, result, 0, this.size);
+		return(result);
+	}
+}
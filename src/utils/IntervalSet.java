@@ -0,0 +1,310 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package utils;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * IntervalSet is an immutable set of (non-negative) line numbers stored as sorted, disjoint runs of
+ * consecutive lines.  Coverage data mostly consists of long runs (e.g., whole basic blocks and function
+ * bodies), so this is usually far smaller than a set of individual lines, and its set operations take
+ * time proportional to the number of runs rather than the number of lines.
+ */
+public final class IntervalSet {
+	/**
+	 * The empty set.
+	 */
+	public static final IntervalSet EMPTY = new IntervalSet(new int[0]);
+	
+	// the runs, as [start, end] pairs (both inclusive): ascending, disjoint, and never adjacent
+	private final int[] bounds;
+	
+	private IntervalSet(int[] bounds) {
+		this.bounds = bounds;
+	}
+	
+	/**
+	 * Build the interval set of the lines in a line set.
+	 *
+	 * @param lines the lines
+	 * @return the runs of consecutive lines in "lines"
+	 */
+	public static IntervalSet fromLines(LineSet lines){
+		if(lines.isEmpty())
+			return(EMPTY);
+		
+		final Builder builder = new Builder();
+		lines.forEach(line -> builder.add(line, line));
+		return(builder.build());
+	}
+	
+	/**
+	 * Build the interval set of one run of lines.
+	 *
+	 * @param start the first line of the run
+	 * @param end the last line of the run (inclusive)
+	 * @return the run
+	 * @throws IllegalArgumentException if "start" is negative or "end" is before "start"
+	 */
+	public static IntervalSet of(int start, int end) throws IllegalArgumentException {
+		if(start < 0 || end < start)
+			throw new IllegalArgumentException("Invalid line range '" + start + "-" + end + "'");
+		return(new IntervalSet(new int[]{ start, end }));
+	}
+	
+	/**
+	 * Get the number of runs.
+	 *
+	 * @return the number of runs of consecutive lines
+	 */
+	public int getRunCount(){
+		return(bounds.length / 2);
+	}
+	
+	/**
+	 * Get the first line of a run.
+	 *
+	 * @param run the index of the run, in [0, getRunCount())
+	 * @return the run's first line
+	 */
+	public int getStart(int run){
+		return(bounds[2 * run]);
+	}
+	
+	/**
+	 * Get the last line of a run.
+	 *
+	 * @param run the index of the run, in [0, getRunCount())
+	 * @return the run's last line (inclusive)
+	 */
+	public int getEnd(int run){
+		return(bounds[2 * run + 1]);
+	}
+	
+	/**
+	 * Get the number of lines in the set.
+	 *
+	 * @return the total length of all runs
+	 */
+	public int size(){
+		int size = 0;
+		for(int i = 0; i < bounds.length; i += 2)
+			size += bounds[i + 1] - bounds[i] + 1;
+		return(size);
+	}
+	
+	/**
+	 * Return whether the set is empty.
+	 *
+	 * @return true if the set has no lines
+	 */
+	public boolean isEmpty(){
+		return(bounds.length == 0);
+	}
+	
+	/**
+	 * Return whether a line is in the set.
+	 *
+	 * @param line the line
+	 * @return true if "line" is in one of the runs
+	 */
+	public boolean contains(int line){
+		// (find the last run starting at or before "line")
+		int low = 0, high = getRunCount() - 1;
+		while(low <= high){
+			final int middle = (low + high) >>> 1;
+			if(getStart(middle) <= line)
+				low = middle + 1;
+			else
+				high = middle - 1;
+		}
+		return(high >= 0 && line <= getEnd(high));
+	}
+	
+	/**
+	 * Compute the union of this set and another set.
+	 *
+	 * @param other the other set
+	 * @return the lines in either set
+	 */
+	public IntervalSet union(IntervalSet other){
+		if(other.isEmpty())
+			return(this);
+		else if(isEmpty())
+			return(other);
+		
+		final Builder builder = new Builder();
+		int i = 0, j = 0;
+		while(i < getRunCount() || j < other.getRunCount()){
+			if(j >= other.getRunCount() || (i < getRunCount() && getStart(i) <= other.getStart(j))){
+				builder.add(getStart(i), getEnd(i));
+				++i;
+			}
+			else{
+				builder.add(other.getStart(j), other.getEnd(j));
+				++j;
+			}
+		}
+		return(builder.build());
+	}
+	
+	/**
+	 * Compute the intersection of this set and another set.
+	 *
+	 * @param other the other set
+	 * @return the lines in both sets
+	 */
+	public IntervalSet intersection(IntervalSet other){
+		final Builder builder = new Builder();
+		int i = 0, j = 0;
+		while(i < getRunCount() && j < other.getRunCount()){
+			final int start = Math.max(getStart(i), other.getStart(j));
+			final int end = Math.min(getEnd(i), other.getEnd(j));
+			if(start <= end)
+				builder.add(start, end);
+			
+			// (the run that ends first cannot overlap anything else)
+			if(getEnd(i) < other.getEnd(j))
+				++i;
+			else
+				++j;
+		}
+		return(builder.build());
+	}
+	
+	/**
+	 * Compute the difference of this set and another set.
+	 *
+	 * @param other the other set
+	 * @return the lines in this set but not in "other"
+	 */
+	public IntervalSet difference(IntervalSet other){
+		if(isEmpty() || other.isEmpty())
+			return(this);
+		
+		final Builder builder = new Builder();
+		int j = 0;
+		for(int i = 0; i < getRunCount(); ++i){
+			long start = getStart(i);
+			final int end = getEnd(i);
+			
+			// skip the runs of "other" that end before this run, then cut out the ones that overlap it
+			while(j < other.getRunCount() && other.getEnd(j) < start)
+				++j;
+			int k = j;
+			while(k < other.getRunCount() && other.getStart(k) <= end){
+				if(other.getStart(k) > start)
+					builder.add((int)start, other.getStart(k) - 1);
+				start = Math.max(start, (long)other.getEnd(k) + 1);
+				++k;
+			}
+			if(start <= end)
+				builder.add((int)start, end);
+		}
+		return(builder.build());
+	}
+	
+	/**
+	 * Visit every line in the set, in ascending order.
+	 *
+	 * @param action the action to perform on each line
+	 */
+	public void forEach(IntConsumer action){
+		for(int i = 0; i < bounds.length; i += 2){
+			for(long line = bounds[i]; line <= bounds[i + 1]; ++line)
+				action.accept((int)line);
+		}
+	}
+	
+	@Override
+	public boolean equals(@Nullable Object other){
+		return(other instanceof IntervalSet && Arrays.equals(bounds, ((IntervalSet)other).bounds));
+	}
+	
+	@Override
+	public int hashCode(){
+		return(Arrays.hashCode(bounds));
+	}
+	
+	@Override
+	public String toString(){
+		StringBuilder result = new StringBuilder("[");
+		for(int i = 0; i < getRunCount(); ++i){
+			if(i > 0)
+				result.append(", ");
+			result.append(getStart(i));
+			if(getEnd(i) != getStart(i))
+				result.append('-').append(getEnd(i));
+		}
+		return(utils.NotNull.check(result.append(']').toString()));
+	}
+	
+	/**
+	 * Builder collects runs in ascending order of their starts, merging overlapping and adjacent runs.
+	 */
+	public static final class Builder {
+		private int[] bounds = new int[8];
+		private int size = 0;
+		
+		/**
+		 * Add a run of lines.  Runs must be added in ascending order of their starts.
+		 *
+		 * @param start the first line of the run
+		 * @param end the last line of the run (inclusive)
+		 */
+		public void add(int start, int end){
+			if(size > 0 && start <= (long)bounds[size - 1] + 1){
+				// (overlaps or touches the last run, so extend it)
+				bounds[size - 1] = Math.max(bounds[size - 1], end);
+				return;
+			}
+			if(size == bounds.length)
+				bounds = utils.NotNull.check(Arrays.copyOf(bounds, size * 2));
+			bounds[size++] = start;
+			bounds[size++] = end;
+		}
+		
+		/**
+		 * Add the lines of a 64-line bitmap word: bit i of "bits" stands for line base + i.  Words must
+		 * be added in ascending order of their bases (and after any runs starting before them).
+		 *
+		 * @param base the line of the word's lowest bit
+		 * @param bits the bitmap word
+		 */
+		public void addBits(int base, long bits){
+			while(bits != 0){
+				final int start = Long.numberOfTrailingZeros(bits);
+				final long shifted = bits >>> start;
+				final int length = (shifted == -1L ? Long.SIZE - start : Long.numberOfTrailingZeros(~shifted));
+				add(base + start, base + start + length - 1);
+				bits = (start + length >= Long.SIZE ? 0 : bits & (-1L << (start + length)));
+			}
+		}
+		
+		/**
+		 * Finish building.
+		 *
+		 * @return the set of all runs added
+		 */
+		public IntervalSet build(){
+			return(size == 0 ? EMPTY : new IntervalSet(utils.NotNull.check(Arrays.copyOf(bounds, size))));
+		}
+	}
+}
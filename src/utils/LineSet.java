@@ -0,0 +1,601 @@
+/**
+ * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package utils;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * LineSet is a compressed set of (non-negative) line numbers, stored without boxing.  Following the
+ * "roaring bitmap" design, the lines are split into chunks of 65536 by their high 16 bits; each chunk
+ * keeps its low 16 bits either as a sorted array of chars (2 bytes per line, for sparse chunks) or as a
+ * 65536-bit bitmap (8KB, for dense chunks), whichever is smaller.  Lines are always visited in
+ * ascending order.
+ * A set can be frozen (see freeze()), after which it is read-only, and so can be shared without copying.
+ */
+public final class LineSet {
+	// chunks with more lines than this are stored as bitmaps
+	private static final int ARRAY_MAX = 4096;
+	
+	/**
+	 * Container holds the low 16 bits of the lines of one chunk.  Set operations never return (or keep)
+	 * a reference to their argument, so containers are never shared between sets.
+	 */
+	private static abstract class Container {
+		/**
+		 * Add a line, returning the container that now holds the chunk (which may be a new container).
+		 */
+		abstract Container add(char low);
+		abstract boolean contains(char low);
+		abstract int cardinality();
+		abstract Container copy();
+		abstract Container and(Container other);
+		abstract Container andNot(Container other);
+		abstract Container or(Container other);
+		abstract void forEach(int high, IntConsumer action);
+	}
+	
+	private static final class ArrayContainer extends Container {
+		private char[] values;
+		private int size;
+		
+		private ArrayContainer(char[] values, int size) {
+			this.values = values;
+			this.size = size;
+		}
+		
+		@Override
+		Container add(char low) {
+			final int index = Arrays.binarySearch(values, 0, size, low);
+			if(index >= 0)
+				return(this);
+			if(size == ARRAY_MAX)
+				return(toBitmap().add(low));
+			
+			final int insertion = -index - 1;
+			if(size == values.length)
+				values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, size * 2)));
+			System.arraycopy(values, insertion, values, insertion + 1, size - insertion);
+			values[insertion] = low;
+			++size;
+			return(this);
+		}
+		
+		@Override
+		boolean contains(char low) {
+			return(Arrays.binarySearch(values, 0, size, low) >= 0);
+		}
+		
+		@Override
+		int cardinality() {
+			return(size);
+		}
+		
+		@Override
+		Container copy() {
+			return(new ArrayContainer(utils.NotNull.check(Arrays.copyOf(values, size)), size));
+		}
+		
+		@Override
+		Container and(Container other) {
+			return(filter(other, true));
+		}
+		
+		@Override
+		Container andNot(Container other) {
+			return(filter(other, false));
+		}
+		
+		private Container filter(Container other, boolean keepContained) {
+			char[] kept = new char[size];
+			int count = 0;
+			for(int i = 0; i < size; ++i){
+				if(other.contains(values[i]) == keepContained)
+					kept[count++] = values[i];
+			}
+			return(new ArrayContainer(kept, count));
+		}
+		
+		@Override
+		Container or(Container other) {
+			if(other instanceof BitmapContainer)
+				return(other.or(this));
+			
+			// (merge the two sorted arrays)
+			final ArrayContainer that = (ArrayContainer)other;
+			char[] merged = new char[size + that.size];
+			int count = 0, i = 0, j = 0;
+			while(i < size && j < that.size){
+				final char a = values[i], b = that.values[j];
+				if(a <= b)
+					++i;
+				if(b <= a)
+					++j;
+				merged[count++] = (a <= b ? a : b);
+			}
+			while(i < size)
+				merged[count++] = values[i++];
+			while(j < that.size)
+				merged[count++] = that.values[j++];
+			
+			final ArrayContainer result = new ArrayContainer(merged, count);
+			return(count > ARRAY_MAX ? result.toBitmap() : result);
+		}
+		
+		@Override
+		void forEach(int high, IntConsumer action) {
+			for(int i = 0; i < size; ++i)
+				action.accept(high | values[i]);
+		}
+		
+		private BitmapContainer toBitmap() {
+			BitmapContainer bitmap = new BitmapContainer(new long[BitmapContainer.WORDS], 0);
+			for(int i = 0; i < size; ++i)
+				bitmap.add(values[i]);
+			return(bitmap);
+		}
+	}
+	
+	private static final class BitmapContainer extends Container {
+		private static final int WORDS = (1 << 16) / Long.SIZE;
+		
+		private final long[] words;
+		private int cardinality;
+		
+		private BitmapContainer(long[] words, int cardinality) {
+			this.words = words;
+			this.cardinality = cardinality;
+		}
+		
+		@Override
+		Container add(char low) {
+			final long bit = 1L << low;
+			if((words[low >>> 6] & bit) == 0){
+				words[low >>> 6] |= bit;
+				++cardinality;
+			}
+			return(this);
+		}
+		
+		@Override
+		boolean contains(char low) {
+			return((words[low >>> 6] & (1L << low)) != 0);
+		}
+		
+		@Override
+		int cardinality() {
+			return(cardinality);
+		}
+		
+		@Override
+		Container copy() {
+			return(new BitmapContainer(utils.NotNull.check(words.clone()), cardinality));
+		}
+		
+		@Override
+		Container and(Container other) {
+			if(other instanceof ArrayContainer)
+				return(other.and(this));
+			
+			final long[] those = ((BitmapContainer)other).words;
+			long[] result = new long[WORDS];
+			for(int i = 0; i < WORDS; ++i)
+				result[i] = words[i] & those[i];
+			return(shrink(result));
+		}
+		
+		@Override
+		Container andNot(Container other) {
+			long[] result = utils.NotNull.check(words.clone());
+			if(other instanceof ArrayContainer){
+				final ArrayContainer that = (ArrayContainer)other;
+				for(int i = 0; i < that.size; ++i)
+					result[that.values[i] >>> 6] &= ~(1L << that.values[i]);
+			}
+			else{
+				final long[] those = ((BitmapContainer)other).words;
+				for(int i = 0; i < WORDS; ++i)
+					result[i] &= ~those[i];
+			}
+			return(shrink(result));
+		}
+		
+		@Override
+		Container or(Container other) {
+			long[] result = utils.NotNull.check(words.clone());
+			if(other instanceof ArrayContainer){
+				final ArrayContainer that = (ArrayContainer)other;
+				for(int i = 0; i < that.size; ++i)
+					result[that.values[i] >>> 6] |= 1L << that.values[i];
+			}
+			else{
+				final long[] those = ((BitmapContainer)other).words;
+				for(int i = 0; i < WORDS; ++i)
+					result[i] |= those[i];
+			}
+			return(shrink(result));
+		}
+		
+		@Override
+		void forEach(int high, IntConsumer action) {
+			for(int i = 0; i < WORDS; ++i){
+				long word = words[i];
+				while(word != 0){
+					action.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+		}
+		
+		/**
+		 * Package the result of a bitmap operation in the smaller kind of container.
+		 */
+		private static Container shrink(long[] words) {
+			int cardinality = 0;
+			for(long word : words)
+				cardinality += Long.bitCount(word);
+			if(cardinality > ARRAY_MAX)
+				return(new BitmapContainer(words, cardinality));
+			
+			final char[] values = new char[cardinality];
+			final int[] count = { 0 };
+			new BitmapContainer(words, cardinality).forEach(0, line -> values[count[0]++] = (char)line);
+			return(new ArrayContainer(values, cardinality));
+		}
+	}
+	
+	// the chunks, by ascending high 16 bits
+	private int[] keys;
+	private Container[] containers;
+	private int chunks = 0;
+	private int size = 0;
+	private boolean frozen = false;
+	
+	/**
+	 * Construct an empty set.
+	 */
+	public LineSet() {
+		this.keys = new int[1];
+		this.containers = new Container[1];
+	}
+	
+	/**
+	 * Construct a copy of another set.  The copy is never frozen.
+	 *
+	 * @param other the set to copy
+	 */
+	public LineSet(LineSet other) {
+		this.keys = utils.NotNull.check(Arrays.copyOf(other.keys, Math.max(1, other.chunks)));
+		this.containers = new Container[this.keys.length];
+		for(int i = 0; i < other.chunks; ++i)
+			this.containers[i] = other.containers[i].copy();
+		this.chunks = other.chunks;
+		this.size = other.size;
+	}
+	
+	/**
+	 * Construct a set of the specified lines.
+	 *
+	 * @param lines the lines (in any order, possibly with duplicates)
+	 * @return the set
+	 * @throws IllegalArgumentException if any line is negative
+	 */
+	public static LineSet of(int... lines) throws IllegalArgumentException {
+		LineSet result = new LineSet();
+		for(int line : lines)
+			result.add(line);
+		return(result);
+	}
+	
+	/**
+	 * Add a line to the set.
+	 *
+	 * @param line the line to add
+	 * @return true if the line was not already in the set
+	 * @throws IllegalArgumentException if the line is negative
+	 * @throws UnsupportedOperationException if the set is frozen
+	 */
+	public boolean add(int line) throws IllegalArgumentException, UnsupportedOperationException {
+		checkMutable();
+		if(line < 0)
+			throw new IllegalArgumentException("Invalid negative line '" + line + "'");
+		
+		final int high = line >>> 16;
+		int index = Arrays.binarySearch(keys, 0, chunks, high);
+		if(index < 0){
+			index = -index - 1;
+			insertChunk(index, high, new ArrayContainer(new char[4], 0));
+		}
+		
+		final Container container = containers[index];
+		final int before = container.cardinality();
+		containers[index] = container.add((char)line);
+		if(containers[index].cardinality() == before)
+			return(false);
+		++size;
+		return(true);
+	}
+	
+	/**
+	 * Return whether a line is in the set.
+	 *
+	 * @param line the line
+	 * @return true if "line" is in the set
+	 */
+	public boolean contains(int line){
+		if(line < 0)
+			return(false);
+		final int index = Arrays.binarySearch(keys, 0, chunks, line >>> 16);
+		return(index >= 0 && containers[index].contains((char)line));
+	}
+	
+	/**
+	 * Get the number of lines in the set.
+	 *
+	 * @return the size of the set
+	 */
+	public int size(){
+		return(size);
+	}
+	
+	/**
+	 * Return whether the set is empty.
+	 *
+	 * @return true if the set has no lines
+	 */
+	public boolean isEmpty(){
+		return(size == 0);
+	}
+	
+	/**
+	 * Add all lines of another set to this set.
+	 *
+	 * @param other the set whose lines to add
+	 * @throws UnsupportedOperationException if the set is frozen
+	 */
+	public void addAll(LineSet other) throws UnsupportedOperationException {
+		checkMutable();
+		int[] newKeys = new int[chunks + other.chunks];
+		Container[] newContainers = new Container[newKeys.length];
+		int count = 0, i = 0, j = 0;
+		while(i < chunks || j < other.chunks){
+			if(j >= other.chunks || (i < chunks && keys[i] < other.keys[j])){
+				newKeys[count] = keys[i];
+				newContainers[count++] = containers[i++];
+			}
+			else if(i >= chunks || other.keys[j] < keys[i]){
+				newKeys[count] = other.keys[j];
+				newContainers[count++] = other.containers[j++].copy();
+			}
+			else{
+				newKeys[count] = keys[i];
+				newContainers[count++] = containers[i++].or(other.containers[j++]);
+			}
+		}
+		replaceChunks(newKeys, newContainers, count);
+	}
+	
+	/**
+	 * Remove all lines that are not in another set from this set.
+	 *
+	 * @param other the set of lines to keep
+	 * @throws UnsupportedOperationException if the set is frozen
+	 */
+	public void retainAll(LineSet other) throws UnsupportedOperationException {
+		combine(other, true);
+	}
+	
+	/**
+	 * Remove all lines of another set from this set.
+	 *
+	 * @param other the set of lines to remove
+	 * @throws UnsupportedOperationException if the set is frozen
+	 */
+	public void removeAll(LineSet other) throws UnsupportedOperationException {
+		combine(other, false);
+	}
+	
+	private void combine(LineSet other, boolean retain){
+		checkMutable();
+		int[] newKeys = new int[Math.max(1, chunks)];
+		Container[] newContainers = new Container[newKeys.length];
+		int count = 0;
+		for(int i = 0; i < chunks; ++i){
+			final int index = Arrays.binarySearch(other.keys, 0, other.chunks, keys[i]);
+			Container result;
+			if(index < 0)
+				result = retain ? null : containers[i];
+			else if(retain)
+				result = containers[i].and(other.containers[index]);
+			else
+				result = containers[i].andNot(other.containers[index]);
+			
+			if(result != null && result.cardinality() > 0){
+				newKeys[count] = keys[i];
+				newContainers[count++] = result;
+			}
+		}
+		replaceChunks(newKeys, newContainers, count);
+	}
+	
+	/**
+	 * Make the set read-only: every later attempt to change it throws UnsupportedOperationException.
+	 * A frozen set can never be unfrozen (but it can be copied).
+	 *
+	 * @return this set
+	 */
+	public LineSet freeze(){
+		this.frozen = true;
+		return(this);
+	}
+	
+	/**
+	 * Return whether the set is frozen (read-only).
+	 *
+	 * @return true if freeze() has been called
+	 */
+	public boolean isFrozen(){
+		return(this.frozen);
+	}
+	
+	private void checkMutable() throws UnsupportedOperationException {
+		if(this.frozen)
+			throw new UnsupportedOperationException("Attempt to modify a frozen line set");
+	}
+	
+	/**
+	 * WordConsumer receives the lines of three sets together, as 64-line bitmap words.
+	 */
+	public interface WordConsumer {
+		/**
+		 * Accept one 64-line bitmap word of each set: bit i of a word stands for line base + i.
+		 *
+		 * @param base the line of the words' lowest bit (a multiple of 64)
+		 * @param first the word of the first set
+		 * @param second the word of the second set
+		 * @param third the word of the third set
+		 */
+		public void accept(int base, long first, long second, long third);
+	}
+	
+	/**
+	 * Visit three sets together, 64 lines at a time, so that they can be combined with word-level bitwise
+	 * operations in a single pass.  Only words in which at least one set has a line are visited, in
+	 * ascending order of their bases.
+	 *
+	 * @param first the first set
+	 * @param second the second set
+	 * @param third the third set
+	 * @param action the action to perform on each word
+	 */
+	public static void forEachWord(LineSet first, LineSet second, LineSet third, WordConsumer action){
+		final long[] firstWords = new long[BitmapContainer.WORDS];
+		final long[] secondWords = new long[BitmapContainer.WORDS];
+		final long[] thirdWords = new long[BitmapContainer.WORDS];
+		
+		int i = 0, j = 0, k = 0;
+		while(i < first.chunks || j < second.chunks || k < third.chunks){
+			// (the next chunk present in any of the sets)
+			int high = Integer.MAX_VALUE;
+			if(i < first.chunks)
+				high = Math.min(high, first.keys[i]);
+			if(j < second.chunks)
+				high = Math.min(high, second.keys[j]);
+			if(k < third.chunks)
+				high = Math.min(high, third.keys[k]);
+			
+			final long[] a = (i < first.chunks && first.keys[i] == high) ?
+					words(first.containers[i++], firstWords) : clear(firstWords);
+			final long[] b = (j < second.chunks && second.keys[j] == high) ?
+					words(second.containers[j++], secondWords) : clear(secondWords);
+			final long[] c = (k < third.chunks && third.keys[k] == high) ?
+					words(third.containers[k++], thirdWords) : clear(thirdWords);
+			for(int w = 0; w < BitmapContainer.WORDS; ++w){
+				if((a[w] | b[w] | c[w]) != 0)
+					action.accept((high << 16) | (w << 6), a[w], b[w], c[w]);
+			}
+		}
+	}
+	
+	/**
+	 * Get the bitmap words of a container: a bitmap's own words, or an array's lines filled into "scratch".
+	 */
+	private static long[] words(Container container, long[] scratch){
+		if(container instanceof BitmapContainer)
+			return(((BitmapContainer)container).words);
+		
+		final ArrayContainer array = (ArrayContainer)container;
+		clear(scratch);
+		for(int i = 0; i < array.size; ++i)
+			scratch[array.values[i] >>> 6] |= 1L << array.values[i];
+		return(scratch);
+	}
+	
+	private static long[] clear(long[] words){
+		Arrays.fill(words, 0);
+		return(words);
+	}
+	
+	/**
+	 * Visit every line in the set, in ascending order.
+	 *
+	 * @param action the action to perform on each line
+	 */
+	public void forEach(IntConsumer action){
+		for(int i = 0; i < chunks; ++i)
+			containers[i].forEach(keys[i] << 16, action);
+	}
+	
+	/**
+	 * Copy the lines to a new array.
+	 *
+	 * @return the lines, in ascending order
+	 */
+	public int[] toArray(){
+		final int[] result = new int[size];
+		final int[] count = { 0 };
+		forEach(line -> result[count[0]++] = line);
+		return(result);
+	}
+	
+	@Override
+	public boolean equals(@Nullable Object other){
+		if(this == other)
+			return(true);
+		else if(!(other instanceof LineSet) || ((LineSet)other).size != size)
+			return(false);
+		return(Arrays.equals(toArray(), ((LineSet)other).toArray()));
+	}
+	
+	@Override
+	public int hashCode(){
+		return(Arrays.hashCode(toArray()));
+	}
+	
+	@Override
+	public String toString(){
+		return(utils.NotNull.check(Arrays.toString(toArray())));
+	}
+	
+	private void insertChunk(int index, int high, Container container){
+		if(chunks == keys.length){
+			keys = utils.NotNull.check(Arrays.copyOf(keys, chunks * 2));
+			containers = utils.NotNull.check(Arrays.copyOf(containers, chunks * 2));
+		}
+		System.arraycopy(keys, index, keys, index + 1, chunks - index);
+		System.arraycopy(containers, index, containers, index + 1, chunks - index);
+		keys[index] = high;
+		containers[index] = container;
+		++chunks;
+	}
+	
+	private void replaceChunks(int[] newKeys, Container[] newContainers, int count){
+		// (always keep room for at least one chunk)
+		if(newKeys.length == 0){
+			newKeys = new int[1];
+			newContainers = new Container[1];
+		}
+		keys = newKeys;
+		containers = newContainers;
+		chunks = count;
+		size = 0;
+		for(int i = 0; i < count; ++i)
+			size += containers[i].cardinality();
+	}
+}
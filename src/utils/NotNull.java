@@ -1,12 +1,12 @@
 /**
  * Copyright (c) 2015 Peter J. Ohmann and Benjamin R. Liblit
- * 
+ *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
  * You may obtain a copy of the License at
- * 
+ *
  *     http://www.apache.org/licenses/LICENSE-2.0
- * 
+ *
  * Unless required by applicable law or agreed to in writing, software
  * distributed under the License is distributed on an "AS IS" BASIS,
  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
@@ -25,7 +25,7 @@ import org.eclipse.jdt.annotation.Nullable;
 public class NotNull {
 	/**
 	 * Assert that "suspicious" is not null.
-	 * 
+	 *
 	 * @param suspicious the object to assert non-null
 	 * @return suspicious
 	 */
@@ -36,7 +36,7 @@ public class NotNull {
 
 	/**
 	 * Assert that "suspicious" (an array) is not null.
-	 * 
+	 *
 	 * @param suspicious the array object to assert non-null
 	 * @return suspicious
 	 */